@@ -0,0 +1,97 @@
+package com.alexis.sprintboot.app.Controllers;
+
+import com.alexis.sprintboot.app.DTO.ProductoDTO;
+import com.alexis.sprintboot.app.DTO.VentaResponseDTO;
+import com.alexis.sprintboot.app.DTO.VentaResponseDTO.ItemVentaResponseDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización con Jackson de las respuestas envueltas en HashMap que
+ * devuelven los controladores (página de productos, producto y venta).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RespuestaJsonBench {
+
+    private ObjectMapper objectMapper;
+    private Map<String, Object> paginaProductos;
+    private Map<String, Object> producto;
+    private Map<String, Object> venta;
+
+    @Setup
+    public void setUp() {
+        // Misma configuración base que el ObjectMapper de Spring Boot
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        List<ProductoDTO> productos = new ArrayList<>();
+        for (long i = 1; i <= 20; i++) {
+            productos.add(new ProductoDTO(i, "SKU-" + i, "Producto de prueba " + i,
+                    new BigDecimal("49.99"), 100, 1L, "Electrónica"));
+        }
+
+        // Igual que GET /api/productos
+        paginaProductos = new HashMap<>();
+        paginaProductos.put("success", true);
+        paginaProductos.put("data", productos);
+        paginaProductos.put("page", 0);
+        paginaProductos.put("size", 20);
+        paginaProductos.put("totalElements", 5000L);
+        paginaProductos.put("totalPages", 250);
+        paginaProductos.put("last", false);
+
+        // Igual que GET /api/productos/{id}
+        producto = new HashMap<>();
+        producto.put("success", true);
+        producto.put("data", productos.get(0));
+
+        // Igual que POST /api/ventas
+        List<ItemVentaResponseDTO> items = new ArrayList<>();
+        for (long i = 1; i <= 5; i++) {
+            items.add(new ItemVentaResponseDTO(i, "Producto " + i, 2, new BigDecimal("19.99")));
+        }
+        VentaResponseDTO ventaDTO = new VentaResponseDTO(1L, LocalDateTime.now(), BigDecimal.ZERO, items);
+        ventaDTO.calcularTotal();
+        venta = new HashMap<>();
+        venta.put("success", true);
+        venta.put("message", "Venta procesada exitosamente");
+        venta.put("data", ventaDTO);
+    }
+
+    @Benchmark
+    public byte[] serializarPaginaProductos() throws Exception {
+        return objectMapper.writeValueAsBytes(paginaProductos);
+    }
+
+    @Benchmark
+    public byte[] serializarProducto() throws Exception {
+        return objectMapper.writeValueAsBytes(producto);
+    }
+
+    @Benchmark
+    public byte[] serializarVenta() throws Exception {
+        return objectMapper.writeValueAsBytes(venta);
+    }
+}
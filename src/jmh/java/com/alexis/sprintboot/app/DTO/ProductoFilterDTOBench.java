@@ -0,0 +1,54 @@
+package com.alexis.sprintboot.app.DTO;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluación de filtros en GET /api/productos (sin filtros, solo nombre en blanco, todos)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductoFilterDTOBench {
+
+    private ProductoFilterDTO sinFiltros;
+    private ProductoFilterDTO nombreEnBlanco;
+    private ProductoFilterDTO todosLosFiltros;
+
+    @Setup
+    public void setUp() {
+        sinFiltros = new ProductoFilterDTO();
+        nombreEnBlanco = new ProductoFilterDTO();
+        nombreEnBlanco.setNombre("    ");
+        todosLosFiltros = new ProductoFilterDTO("laptop", new BigDecimal("100"), new BigDecimal("2000"), 1L, 0, 20);
+    }
+
+    @Benchmark
+    public boolean hasAnyFilterSinFiltros() {
+        return sinFiltros.hasAnyFilter();
+    }
+
+    @Benchmark
+    public boolean hasAnyFilterNombreEnBlanco() {
+        return nombreEnBlanco.hasAnyFilter();
+    }
+
+    @Benchmark
+    public boolean hasAnyFilterTodos() {
+        return todosLosFiltros.hasAnyFilter();
+    }
+}
@@ -0,0 +1,67 @@
+package com.alexis.sprintboot.app.DTO;
+
+import com.alexis.sprintboot.app.DTO.VentaResponseDTO.ItemVentaResponseDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cálculo del total de una venta y de los subtotales de sus líneas (BigDecimal)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VentaResponseDTOBench {
+
+    @Param({"1", "10", "100"})
+    private int lineas;
+
+    private VentaResponseDTO venta;
+    private BigDecimal[] precios;
+
+    @Setup
+    public void setUp() {
+        precios = new BigDecimal[lineas];
+        List<ItemVentaResponseDTO> items = new ArrayList<>(lineas);
+        for (int i = 0; i < lineas; i++) {
+            precios[i] = new BigDecimal("19.99").add(BigDecimal.valueOf(i));
+            items.add(new ItemVentaResponseDTO((long) i + 1, "Producto " + i, (i % 5) + 1, precios[i]));
+        }
+        venta = new VentaResponseDTO(1L, LocalDateTime.now(), BigDecimal.ZERO, items);
+    }
+
+    @Benchmark
+    public BigDecimal calcularTotal() {
+        return venta.calcularTotal();
+    }
+
+    @Benchmark
+    public void crearItemsConSubtotal(Blackhole blackhole) {
+        for (int i = 0; i < lineas; i++) {
+            blackhole.consume(new ItemVentaResponseDTO((long) i + 1, "Producto", (i % 5) + 1, precios[i]));
+        }
+    }
+
+    @Benchmark
+    public int cantidadTotalProductos() {
+        return venta.getCantidadTotalProductos();
+    }
+}
@@ -0,0 +1,77 @@
+package com.alexis.sprintboot.app.Security;
+
+import com.alexis.sprintboot.app.Model.Rol;
+import com.alexis.sprintboot.app.Model.Usuario;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generación y verificación de JWT: token nuevo, verificación completa
+ * (firma HMAC + parseo) y verificación resuelta desde la caché de JwtService.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtServiceBench {
+
+    private static final String SECRETO = "miClaveSecretaMuySeguraQueDebeSerLargaParaHS512AlMenos64Caracteres1234567890";
+
+    private JwtService jwtService;
+    private JwtParser parserSinCache;
+    private Usuario usuario;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jwtService, "secretKey", SECRETO);
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 86_400_000L);
+        ReflectionTestUtils.setField(jwtService, "tamanioMaximoCache", 100_000L);
+        jwtService.inicializar();
+
+        usuario = new Usuario();
+        usuario.setEmail("cajero@tienda.com");
+        usuario.setRol(Rol.USER);
+        usuario.setActivo(true);
+        token = jwtService.generateToken(usuario);
+
+        // Misma clave y algoritmo que JwtService, sin caché
+        parserSinCache = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRETO.getBytes()))
+                .build();
+    }
+
+    @Benchmark
+    public String generarToken() {
+        return jwtService.generateToken(usuario);
+    }
+
+    @Benchmark
+    public Claims verificarTokenSinCache() {
+        return parserSinCache.parseSignedClaims(token).getPayload();
+    }
+
+    @Benchmark
+    public Claims verificarTokenEnCache() {
+        return jwtService.extractAllClaims(token);
+    }
+}
@@ -0,0 +1,78 @@
+package com.alexis.sprintboot.app.Service;
+
+import com.alexis.sprintboot.app.DTO.ProductoDTO;
+import com.alexis.sprintboot.app.Model.Categoria;
+import com.alexis.sprintboot.app.Model.Producto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversión de entidad a DTO (ProductoService.convertirADTO), usada en cada
+ * lectura, listado y evento de producto.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductoServiceBench {
+
+    // convertirADTO es privado: se invoca con un MethodHandle constante (el JIT lo trata como llamada directa)
+    private static final MethodHandle CONVERTIR_A_DTO;
+
+    static {
+        try {
+            Method metodo = ProductoService.class.getDeclaredMethod("convertirADTO", Producto.class);
+            metodo.setAccessible(true);
+            CONVERTIR_A_DTO = MethodHandles.lookup().unreflect(metodo);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private ProductoService productoService;
+    private Producto productoConCategoria;
+    private Producto productoSinCategoria;
+
+    @Setup
+    public void setUp() {
+        // convertirADTO no usa dependencias
+        productoService = new ProductoService(null, null, null, null, null, null, null, null, null, null, null);
+
+        Categoria categoria = new Categoria();
+        categoria.setId(1L);
+        categoria.setNombre("Electrónica");
+
+        productoConCategoria = new Producto("SKU-001", "Smartphone Samsung Galaxy S23",
+                new BigDecimal("999.99"), 50, categoria);
+        productoConCategoria.setId(1L);
+
+        productoSinCategoria = new Producto("SKU-002", "Laptop Dell XPS 13", new BigDecimal("1299.99"), 25);
+        productoSinCategoria.setId(2L);
+    }
+
+    @Benchmark
+    public ProductoDTO convertirADTOConCategoria() throws Throwable {
+        return (ProductoDTO) CONVERTIR_A_DTO.invokeExact(productoService, productoConCategoria);
+    }
+
+    @Benchmark
+    public ProductoDTO convertirADTOSinCategoria() throws Throwable {
+        return (ProductoDTO) CONVERTIR_A_DTO.invokeExact(productoService, productoSinCategoria);
+    }
+}
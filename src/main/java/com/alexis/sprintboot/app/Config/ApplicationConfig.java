@@ -1,6 +1,9 @@
 package com.alexis.sprintboot.app.Config;
 
 import com.alexis.sprintboot.app.Repository.UsuarioRepository;
+import com.alexis.sprintboot.app.Security.PasswordEncoderAcotado;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -28,10 +31,10 @@ public class ApplicationConfig {
     }
 
     @Bean
-    public AuthenticationProvider authenticationProvider() {
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService());
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
         return authProvider;
     }
 
@@ -40,8 +43,18 @@ public class ApplicationConfig {
         return config.getAuthenticationManager();
     }
 
+    /**
+     * BCrypt en un pool dedicado: por defecto la mitad de los núcleos, para que
+     * una ráfaga de logins no deje sin CPU al resto de la API
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${seguridad.hashing.hilos:0}") int hilos,
+            @Value("${seguridad.hashing.capacidad-cola:200}") int capacidadCola,
+            @Value("${seguridad.hashing.espera-maxima-ms:5000}") long esperaMaximaMs,
+            MeterRegistry meterRegistry) {
+        int hilosEfectivos = hilos > 0 ? hilos : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new PasswordEncoderAcotado(new BCryptPasswordEncoder(), hilosEfectivos,
+                capacidadCola, esperaMaximaMs, meterRegistry);
     }
 }
\ No newline at end of file
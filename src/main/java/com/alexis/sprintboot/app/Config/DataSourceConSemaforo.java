@@ -0,0 +1,99 @@
+package com.alexis.sprintboot.app.Config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * DataSource que limita con un semáforo justo cuántas conexiones se usan a la vez.
+ *
+ * Con hilos virtuales puede haber miles de peticiones en curso; el semáforo
+ * (del mismo tamaño que el pool de Hikari) las hace esperar en orden de llegada
+ * antes de entrar al driver, así el número de hilos bloqueados dentro de JDBC
+ * nunca supera al de conexiones. El permiso se devuelve al cerrar la conexión.
+ */
+public class DataSourceConSemaforo extends DelegatingDataSource {
+
+    private final Semaphore permisos;
+    private final int totalPermisos;
+    private final long esperaMaximaMs;
+
+    public DataSourceConSemaforo(DataSource delegado, int totalPermisos, long esperaMaximaMs) {
+        super(delegado);
+        this.permisos = new Semaphore(totalPermisos, true);
+        this.totalPermisos = totalPermisos;
+        this.esperaMaximaMs = esperaMaximaMs;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        adquirirPermiso();
+        try {
+            return envolver(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        adquirirPermiso();
+        try {
+            return envolver(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    public int getPermisosDisponibles() {
+        return permisos.availablePermits();
+    }
+
+    public int getHilosEnEspera() {
+        return permisos.getQueueLength();
+    }
+
+    private void adquirirPermiso() throws SQLException {
+        try {
+            if (!permisos.tryAcquire(esperaMaximaMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException(
+                        "No hay conexiones disponibles: " + totalPermisos + " en uso tras " + esperaMaximaMs + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrumpido esperando una conexión", e);
+        }
+    }
+
+    /**
+     * Conexión que libera el permiso una sola vez, en el primer close()
+     */
+    private Connection envolver(Connection conexion) {
+        AtomicBoolean liberada = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, metodo, args) -> {
+                    boolean cerrar = "close".equals(metodo.getName()) && liberada.compareAndSet(false, true);
+                    try {
+                        return metodo.invoke(conexion, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    } finally {
+                        if (cerrar) {
+                            permisos.release();
+                        }
+                    }
+                });
+    }
+}
@@ -0,0 +1,57 @@
+package com.alexis.sprintboot.app.Config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Modo de hilos virtuales (spring.threads.virtual.enabled=true, solo en Java 21+).
+ *
+ * Spring Boot atiende las peticiones de Tomcat en hilos virtuales; aquí se agrega
+ * el límite explícito de concurrencia hacia la base de datos, alineado con
+ * spring.datasource.hikari.maximum-pool-size.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class HilosVirtualesConfig {
+
+    @Bean
+    public static BeanPostProcessor limiteConexionesPostProcessor(Environment environment) {
+        int permisos = environment.getProperty("inventario.db.permisos", Integer.class,
+                environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+        long esperaMaximaMs = environment.getProperty("inventario.db.espera-permiso-ms", Long.class,
+                environment.getProperty("spring.datasource.hikari.connection-timeout", Long.class, 30000L));
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof DataSourceConSemaforo)) {
+                    return new DataSourceConSemaforo(dataSource, permisos, esperaMaximaMs);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Permisos libres y peticiones esperando conexión (db.permisos.*)
+     */
+    @Bean
+    public MeterBinder permisosBaseDatosMetrics(DataSource dataSource) {
+        return registry -> {
+            if (dataSource instanceof DataSourceConSemaforo limitado) {
+                Gauge.builder("db.permisos.disponibles", limitado, DataSourceConSemaforo::getPermisosDisponibles)
+                        .register(registry);
+                Gauge.builder("db.permisos.en-espera", limitado, DataSourceConSemaforo::getHilosEnEspera)
+                        .register(registry);
+            }
+        };
+    }
+}
@@ -38,10 +38,14 @@ public class SecurityConfig {
                         .requestMatchers("/api/public/**").permitAll()
                         .requestMatchers("/swagger-ui/**").permitAll()
                         .requestMatchers("/v3/api-docs/**").permitAll()
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
 
                         // Endpoints de productos
+                        .requestMatchers(HttpMethod.GET, "/api/productos/export").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.GET, "/api/productos/**").permitAll() // Lectura pública
                         .requestMatchers(HttpMethod.POST, "/api/productos").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.POST, "/api/productos/bulk").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.PUT, "/api/productos/**").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.DELETE, "/api/productos/**").hasRole("ADMIN")
 
@@ -56,6 +60,10 @@ public class SecurityConfig {
 
                         // Endpoints de ventas
                         .requestMatchers(HttpMethod.POST, "/api/ventas").hasAnyRole("USER", "ADMIN")
+                        .requestMatchers(HttpMethod.POST, "/api/ventas/async").hasAnyRole("USER", "ADMIN")
+                        .requestMatchers(HttpMethod.POST, "/api/ventas/reservas/**").hasAnyRole("USER", "ADMIN")
+                        .requestMatchers(HttpMethod.DELETE, "/api/ventas/reservas/*").hasAnyRole("USER", "ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/api/ventas/export").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.GET, "/api/ventas/**").hasAnyRole("USER", "ADMIN")
                         .requestMatchers(HttpMethod.POST, "/api/ventas/*/cancelar").hasRole("ADMIN")
 
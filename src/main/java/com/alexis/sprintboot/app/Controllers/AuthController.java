@@ -3,8 +3,12 @@ package com.alexis.sprintboot.app.Controllers;
 import com.alexis.sprintboot.app.DTO.auth.LoginRequest;
 import com.alexis.sprintboot.app.DTO.auth.LoginResponse;
 import com.alexis.sprintboot.app.DTO.auth.RegisterRequest;
+import com.alexis.sprintboot.app.Exception.ServicioSaturadoException;
+import com.alexis.sprintboot.app.Security.LimitadorLogin;
 import com.alexis.sprintboot.app.Service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -19,9 +23,11 @@ import java.util.Map;
 public class AuthController {
 
     private final AuthService authService;
+    private final LimitadorLogin limitadorLogin;
 
-    public AuthController(AuthService authService) {
+    public AuthController(AuthService authService, LimitadorLogin limitadorLogin) {
         this.authService = authService;
+        this.limitadorLogin = limitadorLogin;
     }
 
     /**
@@ -53,7 +59,17 @@ public class AuthController {
      * Iniciar sesión
      */
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request) {
+    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request, HttpServletRequest httpRequest) {
+        // Detrás de un proxy interno getRemoteAddr ya es la IP del cliente (server.forward-headers-strategy)
+        if (!limitadorLogin.permitir(request.getEmail(), httpRequest.getRemoteAddr())) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("success", false);
+            error.put("message", "Demasiados intentos de inicio de sesión, intente más tarde");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(limitadorLogin.getSegundosReintento()))
+                    .body(error);
+        }
+
         try {
             LoginResponse response = authService.login(request);
 
@@ -64,6 +80,9 @@ public class AuthController {
 
             return ResponseEntity.ok(success);
 
+        } catch (ServicioSaturadoException e) {
+            // No es un error de credenciales: lo responde el manejador global (503)
+            throw e;
         } catch (Exception e) {
             Map<String, Object> error = new HashMap<>();
             error.put("success", false);
@@ -1,20 +1,30 @@
 package com.alexis.sprintboot.app.Controllers;
 
 
+import com.alexis.sprintboot.app.DTO.CargaMasivaResponseDTO;
+import com.alexis.sprintboot.app.DTO.CursorPageDTO;
+import com.alexis.sprintboot.app.DTO.FormatoExportacion;
 import com.alexis.sprintboot.app.DTO.ProductoDTO;
 import com.alexis.sprintboot.app.DTO.ProductoFilterDTO;
 import com.alexis.sprintboot.app.Service.ProductoService;
+import com.alexis.sprintboot.app.Service.VigilanciaBajoStock;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,9 +35,11 @@ import java.util.Map;
 public class ProductoController {
 
     private final ProductoService productoService;
+    private final VigilanciaBajoStock vigilanciaBajoStock;
 
-    public ProductoController(ProductoService productoService) {
+    public ProductoController(ProductoService productoService, VigilanciaBajoStock vigilanciaBajoStock) {
         this.productoService = productoService;
+        this.vigilanciaBajoStock = vigilanciaBajoStock;
     }
 
     /**
@@ -61,6 +73,33 @@ public class ProductoController {
         }
     }
 
+    /**
+     * POST /api/productos/bulk
+     * Crear o actualizar productos por SKU en bloque (arreglo JSON o NDJSON).
+     * Devuelve el resultado de cada fila en el orden recibido.
+     */
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"})
+    public ResponseEntity<?> cargaMasivaProductos(InputStream entrada) {
+        try {
+            CargaMasivaResponseDTO resultado = productoService.cargarProductosMasivo(entrada);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Carga masiva procesada: " + resultado.getCreados() + " creados, "
+                    + resultado.getActualizados() + " actualizados, " + resultado.getErrores() + " con error");
+            response.put("data", resultado);
+
+            return ResponseEntity.ok(response);
+
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(crearErrorResponse(
+                    HttpStatus.BAD_REQUEST.value(),
+                    "Formato de entrada inválido",
+                    e.getMessage()
+            ));
+        }
+    }
+
     /**
      * GET /api/productos/{id}
      * Obtener un producto por ID
@@ -142,11 +181,15 @@ public class ProductoController {
             } else {
                 // Configurar paginación con ordenamiento
                 List<Sort.Order> orders = new ArrayList<>();
-                for (String sortOrder : sort) {
-                    String[] _sort = sortOrder.split(",");
+                for (int i = 0; i < sort.length; i++) {
+                    String[] _sort = sort[i].split(",");
+                    String direccion = _sort.length > 1 ? _sort[1] : null;
+                    // Un solo parámetro "nombre,asc" llega separado en dos valores: ["nombre", "asc"]
+                    if (direccion == null && i + 1 < sort.length && esDireccion(sort[i + 1])) {
+                        direccion = sort[++i];
+                    }
                     orders.add(new Sort.Order(
-                            _sort.length > 1 && _sort[1].equalsIgnoreCase("desc") ?
-                                    Sort.Direction.DESC : Sort.Direction.ASC,
+                            "desc".equalsIgnoreCase(direccion) ? Sort.Direction.DESC : Sort.Direction.ASC,
                             _sort[0]
                     ));
                 }
@@ -181,6 +224,74 @@ public class ProductoController {
         }
     }
 
+    /**
+     * GET /api/productos/cursor
+     * Listar productos por cursor (orden por nombre, sin total de elementos).
+     * Para la siguiente página se envía el nextCursor de la respuesta anterior.
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<?> listarProductosPorCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) String nombre,
+            @RequestParam(required = false) BigDecimal precioMin,
+            @RequestParam(required = false) BigDecimal precioMax,
+            @RequestParam(required = false) Long categoriaId) {
+        try {
+            ProductoFilterDTO filtro = new ProductoFilterDTO();
+            filtro.setNombre(nombre);
+            filtro.setPrecioMin(precioMin);
+            filtro.setPrecioMax(precioMax);
+            filtro.setCategoriaId(categoriaId);
+            filtro.setSize(size);
+
+            CursorPageDTO<ProductoDTO> pagina = productoService.listarProductosPorCursor(filtro, cursor);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", pagina.getContent());
+            response.put("size", pagina.getSize());
+            response.put("hasNext", pagina.isHasNext());
+            response.put("nextCursor", pagina.getNextCursor());
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(crearErrorResponse(
+                    HttpStatus.BAD_REQUEST.value(),
+                    "Parámetros de búsqueda inválidos",
+                    e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * GET /api/productos/export?formato=ndjson|csv
+     * Exportar el catálogo completo por streaming (una línea por producto, orden por ID).
+     * La respuesta se escribe mientras se lee la base de datos, sin armar el listado en memoria.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<?> exportarCatalogo(@RequestParam(defaultValue = "ndjson") String formato) {
+        FormatoExportacion formatoExportacion;
+        try {
+            formatoExportacion = FormatoExportacion.desde(formato);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(crearErrorResponse(
+                    HttpStatus.BAD_REQUEST.value(),
+                    "Formato inválido",
+                    e.getMessage()
+            ));
+        }
+
+        StreamingResponseBody cuerpo = salida -> productoService.exportarCatalogo(salida, formatoExportacion);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(formatoExportacion.getMediaType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"productos." + formatoExportacion.getExtension() + "\"")
+                .body(cuerpo);
+    }
+
     /**
      * PUT /api/productos/{id}
      * Actualizar un producto existente
@@ -319,7 +430,7 @@ public class ProductoController {
 
     /**
      * GET /api/productos/{id}/stock/disponible
-     * Verificar stock disponible
+     * Verificar stock disponible (descontando lo retenido por reservas activas)
      */
     @GetMapping("/{id}/stock/disponible")
     public ResponseEntity<?> verificarStockDisponible(
@@ -334,19 +445,22 @@ public class ProductoController {
                 ));
             }
 
-            boolean disponible = productoService.verificarStockDisponible(id, cantidadRequerida);
+            // Disponible = stock - reservas activas de carritos en curso
+            int cantidadDisponible = productoService.obtenerStockDisponible(id);
+            boolean disponible = cantidadDisponible >= cantidadRequerida;
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("productoId", id);
             response.put("cantidadRequerida", cantidadRequerida);
             response.put("stockDisponible", disponible);
+            response.put("cantidadDisponible", cantidadDisponible);
 
             if (!disponible) {
                 // Obtener stock actual para dar información más detallada
                 ProductoDTO producto = productoService.obtenerProductoPorId(id);
                 response.put("stockActual", producto.getStockActual());
-                response.put("faltante", cantidadRequerida - producto.getStockActual());
+                response.put("faltante", cantidadRequerida - cantidadDisponible);
             }
 
             return ResponseEntity.ok(response);
@@ -368,10 +482,12 @@ public class ProductoController {
     public ResponseEntity<?> obtenerValorTotalInventario() {
         try {
             BigDecimal valorTotal = productoService.calcularValorTotalInventario();
+            Map<Long, BigDecimal> valorPorCategoria = productoService.calcularValorInventarioPorCategoria();
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("valorTotalInventario", valorTotal);
+            response.put("valorPorCategoria", valorPorCategoria);
             response.put("moneda", "USD");
 
             return ResponseEntity.ok(response);
@@ -410,23 +526,34 @@ public class ProductoController {
 
     /**
      * GET /api/productos/bajo-stock
-     * Obtener productos con stock bajo
+     * Obtener productos con stock bajo (paginado)
      */
     @GetMapping("/bajo-stock")
     public ResponseEntity<?> obtenerProductosBajoStock(
-            @RequestParam(defaultValue = "10") Integer umbral) {
+            @RequestParam(defaultValue = "10") Integer umbral,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
         try {
-            // Este método necesitaría ser implementado en ProductoService
-            // List<ProductoDTO> productos = productoService.obtenerProductosBajoStock(umbral);
+            Page<ProductoDTO> productosPage = productoService.obtenerProductosBajoStock(umbral, page, size);
 
-            // Por ahora, simulamos la respuesta
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("message", "Endpoint en desarrollo");
             response.put("umbral", umbral);
+            response.put("data", productosPage.getContent());
+            response.put("page", productosPage.getNumber());
+            response.put("size", productosPage.getSize());
+            response.put("totalElements", productosPage.getTotalElements());
+            response.put("totalPages", productosPage.getTotalPages());
+            response.put("last", productosPage.isLast());
 
             return ResponseEntity.ok(response);
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(crearErrorResponse(
+                    HttpStatus.BAD_REQUEST.value(),
+                    "Parámetros inválidos",
+                    e.getMessage()
+            ));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(crearErrorResponse(
                     HttpStatus.INTERNAL_SERVER_ERROR.value(),
@@ -436,6 +563,23 @@ public class ProductoController {
         }
     }
 
+    /**
+     * GET /api/productos/bajo-stock/vigilancia
+     * Conjunto actual de productos bajo el umbral de reposición (en memoria)
+     */
+    @GetMapping("/bajo-stock/vigilancia")
+    public ResponseEntity<?> obtenerVigilanciaBajoStock() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("umbral", vigilanciaBajoStock.getUmbral());
+        response.put("data", vigilanciaBajoStock.getProductosBajoStock());
+        return ResponseEntity.ok(response);
+    }
+
+    private static boolean esDireccion(String valor) {
+        return "asc".equalsIgnoreCase(valor) || "desc".equalsIgnoreCase(valor);
+    }
+
     /**
      * Métodos auxiliares para respuestas estandarizadas
      */
@@ -1,35 +1,99 @@
 package com.alexis.sprintboot.app.Controllers;
 
 
+import com.alexis.sprintboot.app.DTO.CursorPageDTO;
+import com.alexis.sprintboot.app.DTO.EstadisticasVentasDTO;
+import com.alexis.sprintboot.app.DTO.FormatoExportacion;
+import com.alexis.sprintboot.app.DTO.ReservaStockDTO;
+import com.alexis.sprintboot.app.DTO.TicketVentaDTO;
 import com.alexis.sprintboot.app.DTO.VentaRequestDTO;
 import com.alexis.sprintboot.app.DTO.VentaResponseDTO;
+import com.alexis.sprintboot.app.Exception.ClaveIdempotenciaReutilizadaException;
+import com.alexis.sprintboot.app.Exception.ServicioSaturadoException;
+import com.alexis.sprintboot.app.Service.EscritorVentasAgrupado;
+import com.alexis.sprintboot.app.Service.IdempotenciaVentas;
+import com.alexis.sprintboot.app.Service.PipelineVentas;
+import com.alexis.sprintboot.app.Service.ReintentoVentaService;
 import com.alexis.sprintboot.app.Service.VentaService;
 import jakarta.validation.Valid;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.math.BigDecimal;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/ventas")
 public class VentaController {
 
+    private static final int TAMANIO_BUFFER_GZIP = 64 * 1024;
+    private static final String HEADER_IDEMPOTENCIA = "Idempotency-Key";
+    private static final String HEADER_REPETIDA = "Idempotent-Replayed";
+    private static final int LONGITUD_MAXIMA_CLAVE = 100;
+
     private final VentaService ventaService;
+    private final EscritorVentasAgrupado escritorVentasAgrupado;
+    private final ReintentoVentaService reintentoVentaService;
+    private final IdempotenciaVentas idempotenciaVentas;
+    private final PipelineVentas pipelineVentas;
 
-    public VentaController(VentaService ventaService) {
+    public VentaController(VentaService ventaService, EscritorVentasAgrupado escritorVentasAgrupado,
+                           ReintentoVentaService reintentoVentaService,
+                           IdempotenciaVentas idempotenciaVentas, PipelineVentas pipelineVentas) {
         this.ventaService = ventaService;
+        this.escritorVentasAgrupado = escritorVentasAgrupado;
+        this.reintentoVentaService = reintentoVentaService;
+        this.idempotenciaVentas = idempotenciaVentas;
+        this.pipelineVentas = pipelineVentas;
     }
 
     /**
      * Crear una nueva venta
      * POST /api/ventas
+     * Con el header Idempotency-Key, los reintentos con la misma clave reciben la
+     * respuesta de la primera venta confirmada (header Idempotent-Replayed: true)
+     * sin volver a descontar stock.
      */
     @PostMapping
-    public ResponseEntity<VentaResponseDTO> crearVenta(@Valid @RequestBody VentaRequestDTO ventaRequest) {
+    public ResponseEntity<?> crearVenta(
+            @Valid @RequestBody VentaRequestDTO ventaRequest,
+            @RequestHeader(value = HEADER_IDEMPOTENCIA, required = false) String claveIdempotencia) {
+        if (claveIdempotencia != null
+                && (claveIdempotencia.isBlank() || claveIdempotencia.length() > LONGITUD_MAXIMA_CLAVE)) {
+            return ResponseEntity.badRequest().body(crearRespuestaError(
+                    "Idempotency-Key debe tener entre 1 y " + LONGITUD_MAXIMA_CLAVE + " caracteres"));
+        }
+
         try {
-            VentaResponseDTO ventaProcesada = ventaService.procesarVenta(ventaRequest);
+            if (claveIdempotencia != null) {
+                IdempotenciaVentas.Resultado resultado = idempotenciaVentas.procesar(claveIdempotencia, ventaRequest);
+                return ResponseEntity.status(HttpStatus.CREATED)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HEADER_REPETIDA, String.valueOf(resultado.repetido()))
+                        .body(resultado.cuerpo());
+            }
+
+            VentaResponseDTO ventaProcesada = escritorVentasAgrupado.procesarVenta(ventaRequest);
             return new ResponseEntity<>(ventaProcesada, HttpStatus.CREATED);
+        } catch (ConcurrencyFailureException e) {
+            // Se agotaron los reintentos por conflicto de concurrencia
+            System.err.println("Conflicto de concurrencia al procesar venta: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(
+                    crearRespuestaError("Conflicto de concurrencia al procesar venta")
+            );
+        } catch (ClaveIdempotenciaReutilizadaException e) {
+            // Misma Idempotency-Key con otro contenido
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(
+                    crearRespuestaError(e.getMessage())
+            );
+        } catch (ServicioSaturadoException e) {
+            // Se responde con 503 y Retry-After desde el manejador global
+            throw e;
         } catch (Exception e) {
             // Log del error (en producción usarías un logger)
             System.err.println("Error al procesar venta: " + e.getMessage());
@@ -39,6 +103,75 @@ public class VentaController {
         }
     }
 
+    /**
+     * Registrar una venta de forma asíncrona
+     * POST /api/ventas/async
+     * Valida el carrito, encola la venta y responde 202 con el ticket; el estado final
+     * se consulta en GET /api/ventas/tickets/{ticket}. Con la cola llena responde 503.
+     */
+    @PostMapping("/async")
+    public ResponseEntity<TicketVentaDTO> crearVentaAsync(@Valid @RequestBody VentaRequestDTO ventaRequest) {
+        TicketVentaDTO ticket = pipelineVentas.encolar(ventaRequest);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header(HttpHeaders.LOCATION, "/api/ventas/tickets/" + ticket.getTicket())
+                .body(ticket);
+    }
+
+    /**
+     * Consultar el estado de una venta asíncrona
+     * GET /api/ventas/tickets/{ticket}
+     */
+    @GetMapping("/tickets/{ticket}")
+    public ResponseEntity<TicketVentaDTO> obtenerTicket(@PathVariable String ticket) {
+        TicketVentaDTO estado = pipelineVentas.obtenerTicket(ticket);
+        if (estado == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(estado);
+    }
+
+    /**
+     * Reservar stock para un carrito en curso
+     * POST /api/ventas/reservas
+     * Las cantidades quedan retenidas hasta expiraEn; después se liberan solas.
+     */
+    @PostMapping("/reservas")
+    public ResponseEntity<ReservaStockDTO> crearReserva(@Valid @RequestBody VentaRequestDTO ventaRequest) {
+        ReservaStockDTO reserva = ventaService.reservarStock(ventaRequest);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header(HttpHeaders.LOCATION, "/api/ventas/reservas/" + reserva.getId())
+                .body(reserva);
+    }
+
+    /**
+     * Consultar una reserva activa
+     * GET /api/ventas/reservas/{id}
+     */
+    @GetMapping("/reservas/{id}")
+    public ResponseEntity<ReservaStockDTO> obtenerReserva(@PathVariable String id) {
+        return ResponseEntity.ok(ventaService.obtenerReserva(id));
+    }
+
+    /**
+     * Convertir una reserva en venta
+     * POST /api/ventas/reservas/{id}/confirmar
+     */
+    @PostMapping("/reservas/{id}/confirmar")
+    public ResponseEntity<VentaResponseDTO> confirmarReserva(@PathVariable String id) {
+        VentaResponseDTO venta = reintentoVentaService.ejecutarConReintentos(() -> ventaService.confirmarReserva(id));
+        return new ResponseEntity<>(venta, HttpStatus.CREATED);
+    }
+
+    /**
+     * Liberar una reserva antes de que venza
+     * DELETE /api/ventas/reservas/{id}
+     */
+    @DeleteMapping("/reservas/{id}")
+    public ResponseEntity<Void> liberarReserva(@PathVariable String id) {
+        ventaService.liberarReserva(id);
+        return ResponseEntity.noContent().build();
+    }
+
     /**
      * Obtener una venta por ID
      * GET /api/ventas/{id}
@@ -56,54 +189,100 @@ public class VentaController {
     }
 
     /**
-     * Listar todas las ventas (con paginación opcional)
-     * GET /api/ventas
+     * Listar ventas por cursor, de la más reciente a la más antigua
+     * GET /api/ventas?cursor=&size=
+     * Para la siguiente página se envía el nextCursor de la respuesta anterior.
      */
     @GetMapping
-    public ResponseEntity<List<VentaResponseDTO>> listarVentas(
-            @RequestParam(required = false) Integer page,
-            @RequestParam(required = false) Integer size) {
+    public ResponseEntity<?> listarVentas(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
         try {
-            List<VentaResponseDTO> ventas = ventaService.listarVentas(page, size);
+            CursorPageDTO<VentaResponseDTO> ventas = ventaService.listarVentas(cursor, size);
             return ResponseEntity.ok(ventas);
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
-                    List.of(crearRespuestaError("Error al listar ventas: " + e.getMessage()))
-            );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Error al listar ventas: " + e.getMessage());
         }
     }
 
     /**
-     * Obtener ventas por rango de fechas
-     * GET /api/ventas/filtrar
+     * Obtener ventas por rango de fechas (por cursor)
+     * GET /api/ventas/filtrar?fechaInicio=&fechaFin=&cursor=&size=
      */
     @GetMapping("/filtrar")
-    public ResponseEntity<List<VentaResponseDTO>> filtrarVentasPorFecha(
+    public ResponseEntity<?> filtrarVentasPorFecha(
             @RequestParam String fechaInicio,
-            @RequestParam String fechaFin) {
+            @RequestParam String fechaFin,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
         try {
-            List<VentaResponseDTO> ventas = ventaService.filtrarVentasPorFecha(fechaInicio, fechaFin);
+            CursorPageDTO<VentaResponseDTO> ventas =
+                    ventaService.filtrarVentasPorFecha(fechaInicio, fechaFin, cursor, size);
             return ResponseEntity.ok(ventas);
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
-                    List.of(crearRespuestaError("Error en filtro de fechas: " + e.getMessage()))
-            );
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Error en filtro de fechas: " + e.getMessage());
         }
     }
 
+    /**
+     * Exportar por streaming las ventas de un rango de fechas con sus líneas (contabilidad)
+     * GET /api/ventas/export?fechaInicio=&fechaFin=&formato=ndjson|csv&gzip=false
+     * La respuesta se escribe mientras se lee la base de datos; con gzip=true se comprime
+     * al vuelo y se descarga como archivo .gz.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<?> exportarVentas(
+            @RequestParam String fechaInicio,
+            @RequestParam String fechaFin,
+            @RequestParam(defaultValue = "ndjson") String formato,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        FormatoExportacion formatoExportacion;
+        try {
+            formatoExportacion = FormatoExportacion.desde(formato);
+            ventaService.validarRangoFechas(fechaInicio, fechaFin);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Error en la exportación: " + e.getMessage());
+        }
+
+        String archivo = "ventas-" + fechaInicio + "-" + fechaFin + "." + formatoExportacion.getExtension();
+        StreamingResponseBody cuerpo;
+        MediaType tipo;
+        if (gzip) {
+            archivo += ".gz";
+            tipo = MediaType.parseMediaType("application/gzip");
+            cuerpo = salida -> {
+                // syncFlush: cada flush del escritor llega comprimido al cliente sin esperar al final
+                GZIPOutputStream comprimida = new GZIPOutputStream(salida, TAMANIO_BUFFER_GZIP, true);
+                ventaService.exportarVentas(comprimida, formatoExportacion, fechaInicio, fechaFin);
+                comprimida.finish();
+            };
+        } else {
+            tipo = MediaType.parseMediaType(formatoExportacion.getMediaType() + ";charset=UTF-8");
+            cuerpo = salida -> ventaService.exportarVentas(salida, formatoExportacion, fechaInicio, fechaFin);
+        }
+
+        return ResponseEntity.ok()
+                .contentType(tipo)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + archivo.replace(':', '-') + "\"")
+                .body(cuerpo);
+    }
+
     /**
      * Obtener el total de ventas en un período
      * GET /api/ventas/total
      */
     @GetMapping("/total")
-    public ResponseEntity<Double> obtenerTotalVentas(
+    public ResponseEntity<BigDecimal> obtenerTotalVentas(
             @RequestParam(required = false) String fechaInicio,
             @RequestParam(required = false) String fechaFin) {
         try {
-            Double total = ventaService.calcularTotalVentas(fechaInicio, fechaFin);
+            BigDecimal total = ventaService.calcularTotalVentas(fechaInicio, fechaFin);
             return ResponseEntity.ok(total);
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(0.0);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(BigDecimal.ZERO);
         }
     }
 
@@ -114,7 +293,7 @@ public class VentaController {
     @GetMapping("/estadisticas")
     public ResponseEntity<?> obtenerEstadisticas() {
         try {
-            Object estadisticas = ventaService.obtenerEstadisticasVentas();
+            EstadisticasVentasDTO estadisticas = ventaService.obtenerEstadisticasVentas();
             return ResponseEntity.ok(estadisticas);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -0,0 +1,166 @@
+package com.alexis.sprintboot.app.DTO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de una carga masiva de productos: totales y el resultado de cada fila
+ * en el mismo orden en que se recibieron.
+ */
+public class CargaMasivaResponseDTO {
+
+    public enum Resultado {
+        CREADO, ACTUALIZADO, ERROR
+    }
+
+    private int total;
+    private int creados;
+    private int actualizados;
+    private int errores;
+    private List<ResultadoFilaDTO> filas;
+
+    // Constructor vacío
+    public CargaMasivaResponseDTO() {
+        this.filas = new ArrayList<>();
+    }
+
+    /**
+     * Agrega el resultado de una fila y actualiza los totales
+     */
+    public void addFila(ResultadoFilaDTO fila) {
+        filas.add(fila);
+        total++;
+        switch (fila.getResultado()) {
+            case CREADO -> creados++;
+            case ACTUALIZADO -> actualizados++;
+            case ERROR -> errores++;
+        }
+    }
+
+    // Getters y Setters
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getCreados() {
+        return creados;
+    }
+
+    public void setCreados(int creados) {
+        this.creados = creados;
+    }
+
+    public int getActualizados() {
+        return actualizados;
+    }
+
+    public void setActualizados(int actualizados) {
+        this.actualizados = actualizados;
+    }
+
+    public int getErrores() {
+        return errores;
+    }
+
+    public void setErrores(int errores) {
+        this.errores = errores;
+    }
+
+    public List<ResultadoFilaDTO> getFilas() {
+        return filas;
+    }
+
+    public void setFilas(List<ResultadoFilaDTO> filas) {
+        this.filas = filas;
+    }
+
+    // toString()
+
+    @Override
+    public String toString() {
+        return "CargaMasivaResponseDTO{" +
+                "total=" + total +
+                ", creados=" + creados +
+                ", actualizados=" + actualizados +
+                ", errores=" + errores +
+                '}';
+    }
+
+    // Clase interna ResultadoFilaDTO
+    public static class ResultadoFilaDTO {
+        private int fila;
+        private String sku;
+        private Long id;
+        private Resultado resultado;
+        private String mensaje;
+
+        // Constructor vacío
+        public ResultadoFilaDTO() {
+        }
+
+        // Constructor con parámetros
+        public ResultadoFilaDTO(int fila, String sku, Long id, Resultado resultado, String mensaje) {
+            this.fila = fila;
+            this.sku = sku;
+            this.id = id;
+            this.resultado = resultado;
+            this.mensaje = mensaje;
+        }
+
+        // Getters y Setters
+
+        public int getFila() {
+            return fila;
+        }
+
+        public void setFila(int fila) {
+            this.fila = fila;
+        }
+
+        public String getSku() {
+            return sku;
+        }
+
+        public void setSku(String sku) {
+            this.sku = sku;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public Resultado getResultado() {
+            return resultado;
+        }
+
+        public void setResultado(Resultado resultado) {
+            this.resultado = resultado;
+        }
+
+        public String getMensaje() {
+            return mensaje;
+        }
+
+        public void setMensaje(String mensaje) {
+            this.mensaje = mensaje;
+        }
+
+        @Override
+        public String toString() {
+            return "ResultadoFilaDTO{" +
+                    "fila=" + fila +
+                    ", sku='" + sku + '\'' +
+                    ", resultado=" + resultado +
+                    '}';
+        }
+    }
+}
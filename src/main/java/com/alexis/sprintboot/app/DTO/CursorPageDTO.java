@@ -0,0 +1,75 @@
+package com.alexis.sprintboot.app.DTO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Página de resultados con cursor (paginación por clave, sin total de elementos).
+ * El cursor es opaco para el cliente: se envía tal cual para pedir la página siguiente.
+ */
+public class CursorPageDTO<T> {
+
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+
+    // Constructor vacío
+    public CursorPageDTO() {
+        this.content = new ArrayList<>();
+    }
+
+    // Constructor con parámetros
+    public CursorPageDTO(List<T> content, int size, boolean hasNext, String nextCursor) {
+        this.content = content != null ? content : new ArrayList<>();
+        this.size = size;
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters y Setters
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public void setContent(List<T> content) {
+        this.content = content;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    // toString()
+
+    @Override
+    public String toString() {
+        return "CursorPageDTO{" +
+                "elementos=" + (content != null ? content.size() : 0) +
+                ", size=" + size +
+                ", hasNext=" + hasNext +
+                ", nextCursor='" + nextCursor + '\'' +
+                '}';
+    }
+}
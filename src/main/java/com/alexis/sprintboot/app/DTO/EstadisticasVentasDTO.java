@@ -0,0 +1,205 @@
+package com.alexis.sprintboot.app.DTO;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Estadísticas de ventas calculadas desde los resúmenes por minuto, hora y día
+ */
+public class EstadisticasVentasDTO {
+
+    private LocalDateTime generadoEn;
+    private ResumenPeriodoDTO hoy;
+    private ResumenPeriodoDTO ultimaHora;
+    private List<ResumenPeriodoDTO> porHora;
+    private List<ResumenPeriodoDTO> porDia;
+    private List<RankingDTO> topProductos;
+    private List<RankingDTO> topCategorias;
+
+    // Constructor vacío
+    public EstadisticasVentasDTO() {
+        this.porHora = new ArrayList<>();
+        this.porDia = new ArrayList<>();
+        this.topProductos = new ArrayList<>();
+        this.topCategorias = new ArrayList<>();
+    }
+
+    // Getters y Setters
+
+    public LocalDateTime getGeneradoEn() {
+        return generadoEn;
+    }
+
+    public void setGeneradoEn(LocalDateTime generadoEn) {
+        this.generadoEn = generadoEn;
+    }
+
+    public ResumenPeriodoDTO getHoy() {
+        return hoy;
+    }
+
+    public void setHoy(ResumenPeriodoDTO hoy) {
+        this.hoy = hoy;
+    }
+
+    public ResumenPeriodoDTO getUltimaHora() {
+        return ultimaHora;
+    }
+
+    public void setUltimaHora(ResumenPeriodoDTO ultimaHora) {
+        this.ultimaHora = ultimaHora;
+    }
+
+    public List<ResumenPeriodoDTO> getPorHora() {
+        return porHora;
+    }
+
+    public void setPorHora(List<ResumenPeriodoDTO> porHora) {
+        this.porHora = porHora;
+    }
+
+    public List<ResumenPeriodoDTO> getPorDia() {
+        return porDia;
+    }
+
+    public void setPorDia(List<ResumenPeriodoDTO> porDia) {
+        this.porDia = porDia;
+    }
+
+    public List<RankingDTO> getTopProductos() {
+        return topProductos;
+    }
+
+    public void setTopProductos(List<RankingDTO> topProductos) {
+        this.topProductos = topProductos;
+    }
+
+    public List<RankingDTO> getTopCategorias() {
+        return topCategorias;
+    }
+
+    public void setTopCategorias(List<RankingDTO> topCategorias) {
+        this.topCategorias = topCategorias;
+    }
+
+    // Clase interna ResumenPeriodoDTO
+    public static class ResumenPeriodoDTO {
+        private LocalDateTime periodo;
+        private long tickets;
+        private long unidades;
+        private BigDecimal ingresos;
+
+        // Constructor vacío
+        public ResumenPeriodoDTO() {
+        }
+
+        // Constructor con parámetros
+        public ResumenPeriodoDTO(LocalDateTime periodo, long tickets, long unidades, BigDecimal ingresos) {
+            this.periodo = periodo;
+            this.tickets = tickets;
+            this.unidades = unidades;
+            this.ingresos = ingresos;
+        }
+
+        /**
+         * Importe medio por ticket (0 si no hubo ventas)
+         */
+        public BigDecimal getTicketPromedio() {
+            if (tickets == 0 || ingresos == null) {
+                return BigDecimal.ZERO;
+            }
+            return ingresos.divide(BigDecimal.valueOf(tickets), 2, RoundingMode.HALF_UP);
+        }
+
+        // Getters y Setters
+
+        public LocalDateTime getPeriodo() {
+            return periodo;
+        }
+
+        public void setPeriodo(LocalDateTime periodo) {
+            this.periodo = periodo;
+        }
+
+        public long getTickets() {
+            return tickets;
+        }
+
+        public void setTickets(long tickets) {
+            this.tickets = tickets;
+        }
+
+        public long getUnidades() {
+            return unidades;
+        }
+
+        public void setUnidades(long unidades) {
+            this.unidades = unidades;
+        }
+
+        public BigDecimal getIngresos() {
+            return ingresos;
+        }
+
+        public void setIngresos(BigDecimal ingresos) {
+            this.ingresos = ingresos;
+        }
+    }
+
+    // Clase interna RankingDTO (producto o categoría)
+    public static class RankingDTO {
+        private Long id;
+        private String nombre;
+        private long unidades;
+        private BigDecimal ingresos;
+
+        // Constructor vacío
+        public RankingDTO() {
+        }
+
+        // Constructor con parámetros
+        public RankingDTO(Long id, String nombre, long unidades, BigDecimal ingresos) {
+            this.id = id;
+            this.nombre = nombre;
+            this.unidades = unidades;
+            this.ingresos = ingresos;
+        }
+
+        // Getters y Setters
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getNombre() {
+            return nombre;
+        }
+
+        public void setNombre(String nombre) {
+            this.nombre = nombre;
+        }
+
+        public long getUnidades() {
+            return unidades;
+        }
+
+        public void setUnidades(long unidades) {
+            this.unidades = unidades;
+        }
+
+        public BigDecimal getIngresos() {
+            return ingresos;
+        }
+
+        public void setIngresos(BigDecimal ingresos) {
+            this.ingresos = ingresos;
+        }
+    }
+}
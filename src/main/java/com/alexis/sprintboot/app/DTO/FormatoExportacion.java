@@ -0,0 +1,37 @@
+package com.alexis.sprintboot.app.DTO;
+
+/**
+ * Formatos de exportación por streaming
+ */
+public enum FormatoExportacion {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String mediaType;
+    private final String extension;
+
+    FormatoExportacion(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Obtener el formato a partir del parámetro de la petición (sin distinguir mayúsculas)
+     */
+    public static FormatoExportacion desde(String valor) {
+        for (FormatoExportacion formato : values()) {
+            if (formato.name().equalsIgnoreCase(valor)) {
+                return formato;
+            }
+        }
+        throw new IllegalArgumentException("Formato de exportación no soportado: " + valor);
+    }
+}
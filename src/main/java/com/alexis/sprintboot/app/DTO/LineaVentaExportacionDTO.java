@@ -0,0 +1,66 @@
+package com.alexis.sprintboot.app.DTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Línea de venta con los datos de su cabecera (una fila de la exportación de ventas)
+ */
+public class LineaVentaExportacionDTO {
+
+    private final Long ventaId;
+    private final LocalDateTime fechaVenta;
+    private final BigDecimal totalVenta;
+    private final Long productoId;
+    private final String productoNombre;
+    private final Integer cantidad;
+    private final BigDecimal precioUnitario;
+
+    // Constructor usado por la proyección JPQL
+    public LineaVentaExportacionDTO(Long ventaId, LocalDateTime fechaVenta, BigDecimal totalVenta,
+                                    Long productoId, String productoNombre,
+                                    Integer cantidad, BigDecimal precioUnitario) {
+        this.ventaId = ventaId;
+        this.fechaVenta = fechaVenta;
+        this.totalVenta = totalVenta;
+        this.productoId = productoId;
+        this.productoNombre = productoNombre;
+        this.cantidad = cantidad;
+        this.precioUnitario = precioUnitario;
+    }
+
+    public Long getVentaId() {
+        return ventaId;
+    }
+
+    public LocalDateTime getFechaVenta() {
+        return fechaVenta;
+    }
+
+    public BigDecimal getTotalVenta() {
+        return totalVenta;
+    }
+
+    public Long getProductoId() {
+        return productoId;
+    }
+
+    public String getProductoNombre() {
+        return productoNombre;
+    }
+
+    public Integer getCantidad() {
+        return cantidad;
+    }
+
+    public BigDecimal getPrecioUnitario() {
+        return precioUnitario;
+    }
+
+    public BigDecimal getSubtotal() {
+        if (precioUnitario == null || cantidad == null) {
+            return BigDecimal.ZERO;
+        }
+        return precioUnitario.multiply(new BigDecimal(cantidad));
+    }
+}
@@ -0,0 +1,74 @@
+package com.alexis.sprintboot.app.DTO;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reserva de stock de un carrito en curso: las cantidades quedan retenidas
+ * hasta expiraEn, cuando se confirma como venta o cuando se libera.
+ */
+public class ReservaStockDTO {
+
+    private String id;
+    private List<VentaRequestDTO.ItemVentaDTO> items;
+    private LocalDateTime creadaEn;
+    private LocalDateTime expiraEn;
+
+    // Constructor vacío
+    public ReservaStockDTO() {
+        this.items = new ArrayList<>();
+    }
+
+    // Constructor con parámetros
+    public ReservaStockDTO(String id, List<VentaRequestDTO.ItemVentaDTO> items,
+                           LocalDateTime creadaEn, LocalDateTime expiraEn) {
+        this.id = id;
+        this.items = items;
+        this.creadaEn = creadaEn;
+        this.expiraEn = expiraEn;
+    }
+
+    // Getters y Setters
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public List<VentaRequestDTO.ItemVentaDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<VentaRequestDTO.ItemVentaDTO> items) {
+        this.items = items;
+    }
+
+    public LocalDateTime getCreadaEn() {
+        return creadaEn;
+    }
+
+    public void setCreadaEn(LocalDateTime creadaEn) {
+        this.creadaEn = creadaEn;
+    }
+
+    public LocalDateTime getExpiraEn() {
+        return expiraEn;
+    }
+
+    public void setExpiraEn(LocalDateTime expiraEn) {
+        this.expiraEn = expiraEn;
+    }
+
+    @Override
+    public String toString() {
+        return "ReservaStockDTO{" +
+                "id='" + id + '\'' +
+                ", items=" + (items != null ? items.size() : 0) +
+                ", expiraEn=" + expiraEn +
+                '}';
+    }
+}
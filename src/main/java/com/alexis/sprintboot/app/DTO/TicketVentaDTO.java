@@ -0,0 +1,115 @@
+package com.alexis.sprintboot.app.DTO;
+
+import java.time.LocalDateTime;
+
+/**
+ * Estado de una venta aceptada por POST /api/ventas/async.
+ * Pasa de PENDIENTE a CONFIRMADA (con la venta registrada) o RECHAZADA (con el motivo).
+ */
+public class TicketVentaDTO {
+
+    public enum Estado {
+        PENDIENTE, CONFIRMADA, RECHAZADA
+    }
+
+    private String ticket;
+    private Estado estado;
+    private VentaResponseDTO venta;
+    private String mensaje;
+    private LocalDateTime recibidoEn;
+    private LocalDateTime resueltoEn;
+
+    // Constructor vacío
+    public TicketVentaDTO() {
+    }
+
+    // Constructor para un ticket recién aceptado
+    public TicketVentaDTO(String ticket, LocalDateTime recibidoEn) {
+        this.ticket = ticket;
+        this.estado = Estado.PENDIENTE;
+        this.recibidoEn = recibidoEn;
+    }
+
+    /**
+     * Copia resuelta con la venta confirmada
+     */
+    public TicketVentaDTO confirmar(VentaResponseDTO venta) {
+        TicketVentaDTO resuelto = resolver(Estado.CONFIRMADA);
+        resuelto.venta = venta;
+        return resuelto;
+    }
+
+    /**
+     * Copia resuelta con el motivo del rechazo
+     */
+    public TicketVentaDTO rechazar(String mensaje) {
+        TicketVentaDTO resuelto = resolver(Estado.RECHAZADA);
+        resuelto.mensaje = mensaje;
+        return resuelto;
+    }
+
+    private TicketVentaDTO resolver(Estado estadoFinal) {
+        TicketVentaDTO resuelto = new TicketVentaDTO(ticket, recibidoEn);
+        resuelto.estado = estadoFinal;
+        resuelto.resueltoEn = LocalDateTime.now();
+        return resuelto;
+    }
+
+    // Getters y Setters
+
+    public String getTicket() {
+        return ticket;
+    }
+
+    public void setTicket(String ticket) {
+        this.ticket = ticket;
+    }
+
+    public Estado getEstado() {
+        return estado;
+    }
+
+    public void setEstado(Estado estado) {
+        this.estado = estado;
+    }
+
+    public VentaResponseDTO getVenta() {
+        return venta;
+    }
+
+    public void setVenta(VentaResponseDTO venta) {
+        this.venta = venta;
+    }
+
+    public String getMensaje() {
+        return mensaje;
+    }
+
+    public void setMensaje(String mensaje) {
+        this.mensaje = mensaje;
+    }
+
+    public LocalDateTime getRecibidoEn() {
+        return recibidoEn;
+    }
+
+    public void setRecibidoEn(LocalDateTime recibidoEn) {
+        this.recibidoEn = recibidoEn;
+    }
+
+    public LocalDateTime getResueltoEn() {
+        return resueltoEn;
+    }
+
+    public void setResueltoEn(LocalDateTime resueltoEn) {
+        this.resueltoEn = resueltoEn;
+    }
+
+    @Override
+    public String toString() {
+        return "TicketVentaDTO{" +
+                "ticket='" + ticket + '\'' +
+                ", estado=" + estado +
+                '}';
+    }
+}
@@ -0,0 +1,24 @@
+package com.alexis.sprintboot.app.Event;
+
+import com.alexis.sprintboot.app.DTO.ProductoDTO;
+
+/**
+ * Se publica cuando se elimina un producto.
+ * Contiene el último estado conocido del producto.
+ */
+public class ProductoEliminadoEvent {
+
+    private final ProductoDTO producto;
+
+    public ProductoEliminadoEvent(ProductoDTO producto) {
+        this.producto = producto;
+    }
+
+    public ProductoDTO getProducto() {
+        return producto;
+    }
+
+    public Long getProductoId() {
+        return producto.getId();
+    }
+}
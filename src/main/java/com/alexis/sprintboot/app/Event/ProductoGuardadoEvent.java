@@ -0,0 +1,26 @@
+package com.alexis.sprintboot.app.Event;
+
+import com.alexis.sprintboot.app.DTO.ProductoDTO;
+
+/**
+ * Se publica cuando un producto se crea o se modifica (datos o stock).
+ * Contiene el estado anterior (null si es nuevo) y el estado después del cambio.
+ */
+public class ProductoGuardadoEvent {
+
+    private final ProductoDTO anterior;
+    private final ProductoDTO producto;
+
+    public ProductoGuardadoEvent(ProductoDTO anterior, ProductoDTO producto) {
+        this.anterior = anterior;
+        this.producto = producto;
+    }
+
+    public ProductoDTO getAnterior() {
+        return anterior;
+    }
+
+    public ProductoDTO getProducto() {
+        return producto;
+    }
+}
@@ -0,0 +1,33 @@
+package com.alexis.sprintboot.app.Event;
+
+import com.alexis.sprintboot.app.DTO.ProductoDTO;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Se publica cuando el volcado del stock caliente aplica a productos los movimientos pendientes.
+ * Indica la cantidad descontada de la tabla por producto y el estado de cada producto
+ * después del volcado.
+ */
+public class StockCalienteVolcadoEvent {
+
+    private final Map<Long, Integer> cantidadPorProducto;
+    private final List<ProductoDTO> productos;
+
+    public StockCalienteVolcadoEvent(Map<Long, Integer> cantidadPorProducto, List<ProductoDTO> productos) {
+        this.cantidadPorProducto = cantidadPorProducto;
+        this.productos = productos;
+    }
+
+    /**
+     * Cantidad descontada de la fila del producto en este volcado
+     */
+    public int getCantidad(Long productoId) {
+        return cantidadPorProducto.getOrDefault(productoId, 0);
+    }
+
+    public List<ProductoDTO> getProductos() {
+        return productos;
+    }
+}
@@ -0,0 +1,23 @@
+package com.alexis.sprintboot.app.Event;
+
+/**
+ * Se publica cuando se activa o desactiva un usuario.
+ */
+public class UsuarioEstadoCambiadoEvent {
+
+    private final String email;
+    private final boolean activo;
+
+    public UsuarioEstadoCambiadoEvent(String email, boolean activo) {
+        this.email = email;
+        this.activo = activo;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public boolean isActivo() {
+        return activo;
+    }
+}
@@ -0,0 +1,50 @@
+package com.alexis.sprintboot.app.Event;
+
+import com.alexis.sprintboot.app.DTO.VentaResponseDTO;
+
+import java.util.Map;
+
+/**
+ * Se publica cuando se registra una venta.
+ * Cada item indica el producto y la cantidad descontada del stock;
+ * también se incluye la categoría y el stock posterior de cada producto vendido.
+ */
+public class VentaRegistradaEvent {
+
+    private final VentaResponseDTO venta;
+    private final Map<Long, Long> categoriaPorProducto;
+    private final Map<Long, Integer> stockPosteriorPorProducto;
+
+    public VentaRegistradaEvent(VentaResponseDTO venta,
+                                Map<Long, Long> categoriaPorProducto,
+                                Map<Long, Integer> stockPosteriorPorProducto) {
+        this.venta = venta;
+        this.categoriaPorProducto = categoriaPorProducto;
+        this.stockPosteriorPorProducto = stockPosteriorPorProducto;
+    }
+
+    public VentaResponseDTO getVenta() {
+        return venta;
+    }
+
+    /**
+     * Categoría del producto vendido (null si no tiene)
+     */
+    public Long getCategoriaId(Long productoId) {
+        return categoriaPorProducto.get(productoId);
+    }
+
+    /**
+     * Stock del producto después de la venta.
+     * Con descuento atómico se lee de la tabla después del UPDATE, con la fila todavía
+     * bloqueada: incluye las ventas concurrentes que ya se confirmaron. Para un producto
+     * caliente es el valor del stock en memoria tras reservar.
+     */
+    public Integer getStockPosterior(Long productoId) {
+        return stockPosteriorPorProducto.get(productoId);
+    }
+
+    public Map<Long, Integer> getStockPosteriorPorProducto() {
+        return stockPosteriorPorProducto;
+    }
+}
@@ -0,0 +1,14 @@
+package com.alexis.sprintboot.app.Exception;
+
+/**
+ * Se lanza cuando una Idempotency-Key ya usada llega con otra venta.
+ * Se responde con 422.
+ */
+public class ClaveIdempotenciaReutilizadaException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ClaveIdempotenciaReutilizadaException(String message) {
+        super(message);
+    }
+}
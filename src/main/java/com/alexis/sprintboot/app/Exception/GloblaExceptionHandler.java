@@ -4,6 +4,7 @@ import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.ConstraintViolationException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -291,6 +292,26 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Maneja ServicioSaturadoException
+     * HTTP 503 - Service Unavailable
+     */
+    @ExceptionHandler(ServicioSaturadoException.class)
+    public ResponseEntity<Map<String, Object>> handleServicioSaturado(
+            ServicioSaturadoException ex) {
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", LocalDateTime.now());
+        response.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.put("error", "Servicio saturado");
+        response.put("message", ex.getMessage());
+        response.put("type", "SERVICE_BUSY");
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getSegundosReintento()))
+                .body(response);
+    }
+
     /**
      * Maneja cualquier otra excepción no capturada específicamente
      * HTTP 500 - Internal Server Error
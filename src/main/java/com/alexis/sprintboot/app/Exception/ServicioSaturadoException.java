@@ -0,0 +1,26 @@
+package com.alexis.sprintboot.app.Exception;
+
+/**
+ * Se lanza cuando un recurso acotado (por ejemplo, el pool de hashing de contraseñas)
+ * no puede aceptar más trabajo. Se responde con 503 y Retry-After.
+ */
+public class ServicioSaturadoException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long segundosReintento;
+
+    public ServicioSaturadoException(String message, long segundosReintento) {
+        super(message);
+        this.segundosReintento = segundosReintento;
+    }
+
+    public ServicioSaturadoException(String message, long segundosReintento, Throwable cause) {
+        super(message, cause);
+        this.segundosReintento = segundosReintento;
+    }
+
+    public long getSegundosReintento() {
+        return segundosReintento;
+    }
+}
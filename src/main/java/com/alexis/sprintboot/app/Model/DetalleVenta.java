@@ -8,7 +8,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "ventas")
+@Table(name = "ventas", indexes = {
+        // Totales por rango de fechas: SUM(total) se resuelve solo con el índice
+        @Index(name = "idx_ventas_fecha_total", columnList = "fecha_venta, total"),
+        // Listado por cursor: orden (fecha_venta, id)
+        @Index(name = "idx_ventas_fecha_id", columnList = "fecha_venta, id")
+})
 public class Venta {
 
     @Id
@@ -0,0 +1,75 @@
+package com.alexis.sprintboot.app.Model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Descuento de stock de un producto caliente que todavía no se aplicó a productos.
+ * Se inserta en la misma transacción que la venta y se borra en la misma transacción
+ * que aplica el descuento, así después de una caída basta con volcar las filas que quedan.
+ */
+@Entity
+@Table(name = "movimientos_stock_pendientes")
+public class MovimientoStockPendiente {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Sin clave foránea: insertar aquí no bloquea la fila del producto
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    @Column(nullable = false)
+    private Integer cantidad;
+
+    @Column(name = "creado_en", nullable = false)
+    private LocalDateTime creadoEn;
+
+    // Constructor vacío (requerido por JPA)
+    public MovimientoStockPendiente() {
+    }
+
+    // Getters y Setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getProductoId() {
+        return productoId;
+    }
+
+    public void setProductoId(Long productoId) {
+        this.productoId = productoId;
+    }
+
+    public Integer getCantidad() {
+        return cantidad;
+    }
+
+    public void setCantidad(Integer cantidad) {
+        this.cantidad = cantidad;
+    }
+
+    public LocalDateTime getCreadoEn() {
+        return creadoEn;
+    }
+
+    public void setCreadoEn(LocalDateTime creadoEn) {
+        this.creadoEn = creadoEn;
+    }
+
+    @Override
+    public String toString() {
+        return "MovimientoStockPendiente{" +
+                "id=" + id +
+                ", productoId=" + productoId +
+                ", cantidad=" + cantidad +
+                '}';
+    }
+}
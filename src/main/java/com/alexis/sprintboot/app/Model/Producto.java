@@ -4,7 +4,12 @@ import jakarta.persistence.*;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "productos")
+@Table(name = "productos", indexes = {
+        // Consultas de bajo stock: rango sobre stock_actual, desempate por id
+        @Index(name = "idx_productos_stock_actual", columnList = "stock_actual, id"),
+        // Paginación por cursor: orden (nombre, id)
+        @Index(name = "idx_productos_nombre_id", columnList = "nombre, id")
+})
 public class Producto {
 
     @Id
@@ -0,0 +1,127 @@
+package com.alexis.sprintboot.app.Model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Totales de ventas acumulados por periodo (minuto, hora o día).
+ * Se escriben de forma incremental a medida que se confirman las ventas,
+ * así las estadísticas no recorren ventas ni detalle_ventas.
+ */
+@Entity
+@Table(name = "resumen_ventas", uniqueConstraints = {
+        // Clave de la acumulación (INSERT ... ON DUPLICATE KEY UPDATE)
+        @UniqueConstraint(name = "uk_resumen_ventas_periodo", columnNames = {"granularidad", "periodo"})
+})
+public class ResumenVentas {
+
+    public enum Granularidad {
+        MINUTO(ChronoUnit.MINUTES),
+        HORA(ChronoUnit.HOURS),
+        DIA(ChronoUnit.DAYS);
+
+        private final ChronoUnit unidad;
+
+        Granularidad(ChronoUnit unidad) {
+            this.unidad = unidad;
+        }
+
+        /**
+         * Inicio del periodo al que pertenece la fecha
+         */
+        public LocalDateTime truncar(LocalDateTime fecha) {
+            return fecha.truncatedTo(unidad);
+        }
+
+        public ChronoUnit getUnidad() {
+            return unidad;
+        }
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Granularidad granularidad;
+
+    @Column(nullable = false)
+    private LocalDateTime periodo;
+
+    @Column(nullable = false)
+    private Long tickets;
+
+    @Column(nullable = false)
+    private Long unidades;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal ingresos;
+
+    // Constructor vacío (requerido por JPA)
+    public ResumenVentas() {
+    }
+
+    // Getters y Setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Granularidad getGranularidad() {
+        return granularidad;
+    }
+
+    public void setGranularidad(Granularidad granularidad) {
+        this.granularidad = granularidad;
+    }
+
+    public LocalDateTime getPeriodo() {
+        return periodo;
+    }
+
+    public void setPeriodo(LocalDateTime periodo) {
+        this.periodo = periodo;
+    }
+
+    public Long getTickets() {
+        return tickets;
+    }
+
+    public void setTickets(Long tickets) {
+        this.tickets = tickets;
+    }
+
+    public Long getUnidades() {
+        return unidades;
+    }
+
+    public void setUnidades(Long unidades) {
+        this.unidades = unidades;
+    }
+
+    public BigDecimal getIngresos() {
+        return ingresos;
+    }
+
+    public void setIngresos(BigDecimal ingresos) {
+        this.ingresos = ingresos;
+    }
+
+    @Override
+    public String toString() {
+        return "ResumenVentas{" +
+                "granularidad=" + granularidad +
+                ", periodo=" + periodo +
+                ", tickets=" + tickets +
+                ", unidades=" + unidades +
+                ", ingresos=" + ingresos +
+                '}';
+    }
+}
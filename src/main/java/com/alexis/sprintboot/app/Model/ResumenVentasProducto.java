@@ -0,0 +1,111 @@
+package com.alexis.sprintboot.app.Model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Unidades e ingresos de un producto en un día (ranking de productos y categorías).
+ * Guarda el ID del producto sin clave foránea para que el histórico
+ * sobreviva a la baja del producto.
+ */
+@Entity
+@Table(name = "resumen_ventas_productos", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_resumen_ventas_productos_fecha", columnNames = {"fecha", "producto_id"})
+})
+public class ResumenVentasProducto {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate fecha;
+
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    @Column(name = "producto_nombre", length = 200)
+    private String productoNombre;
+
+    @Column(name = "categoria_id")
+    private Long categoriaId;
+
+    @Column(nullable = false)
+    private Long unidades;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal ingresos;
+
+    // Constructor vacío (requerido por JPA)
+    public ResumenVentasProducto() {
+    }
+
+    // Getters y Setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDate getFecha() {
+        return fecha;
+    }
+
+    public void setFecha(LocalDate fecha) {
+        this.fecha = fecha;
+    }
+
+    public Long getProductoId() {
+        return productoId;
+    }
+
+    public void setProductoId(Long productoId) {
+        this.productoId = productoId;
+    }
+
+    public String getProductoNombre() {
+        return productoNombre;
+    }
+
+    public void setProductoNombre(String productoNombre) {
+        this.productoNombre = productoNombre;
+    }
+
+    public Long getCategoriaId() {
+        return categoriaId;
+    }
+
+    public void setCategoriaId(Long categoriaId) {
+        this.categoriaId = categoriaId;
+    }
+
+    public Long getUnidades() {
+        return unidades;
+    }
+
+    public void setUnidades(Long unidades) {
+        this.unidades = unidades;
+    }
+
+    public BigDecimal getIngresos() {
+        return ingresos;
+    }
+
+    public void setIngresos(BigDecimal ingresos) {
+        this.ingresos = ingresos;
+    }
+
+    @Override
+    public String toString() {
+        return "ResumenVentasProducto{" +
+                "fecha=" + fecha +
+                ", productoId=" + productoId +
+                ", unidades=" + unidades +
+                ", ingresos=" + ingresos +
+                '}';
+    }
+}
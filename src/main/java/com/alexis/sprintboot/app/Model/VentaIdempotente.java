@@ -0,0 +1,108 @@
+package com.alexis.sprintboot.app.Model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Respuesta registrada para una Idempotency-Key de POST /api/ventas.
+ * La fila se inserta en la misma transacción que la venta: si existe, la venta
+ * se confirmó y la respuesta guardada es la que se vuelve a enviar.
+ */
+@Entity
+@Table(name = "ventas_idempotencia", indexes = {
+        // Purga de claves vencidas
+        @Index(name = "idx_ventas_idempotencia_expira_en", columnList = "expira_en")
+})
+public class VentaIdempotente {
+
+    @Id
+    @Column(length = 100)
+    private String clave;
+
+    // SHA-256 del cuerpo de la petición: la misma clave con otra venta se rechaza
+    @Column(nullable = false, length = 64)
+    private String huella;
+
+    @Column(name = "venta_id")
+    private Long ventaId;
+
+    // JSON exacto de la primera respuesta
+    @Column(columnDefinition = "MEDIUMTEXT")
+    private String respuesta;
+
+    @Column(name = "creada_en", nullable = false)
+    private LocalDateTime creadaEn;
+
+    @Column(name = "expira_en", nullable = false)
+    private LocalDateTime expiraEn;
+
+    // Constructor vacío (requerido por JPA)
+    public VentaIdempotente() {
+    }
+
+    // Getters y Setters
+
+    public String getClave() {
+        return clave;
+    }
+
+    public void setClave(String clave) {
+        this.clave = clave;
+    }
+
+    public String getHuella() {
+        return huella;
+    }
+
+    public void setHuella(String huella) {
+        this.huella = huella;
+    }
+
+    public Long getVentaId() {
+        return ventaId;
+    }
+
+    public void setVentaId(Long ventaId) {
+        this.ventaId = ventaId;
+    }
+
+    public String getRespuesta() {
+        return respuesta;
+    }
+
+    public void setRespuesta(String respuesta) {
+        this.respuesta = respuesta;
+    }
+
+    public LocalDateTime getCreadaEn() {
+        return creadaEn;
+    }
+
+    public void setCreadaEn(LocalDateTime creadaEn) {
+        this.creadaEn = creadaEn;
+    }
+
+    public LocalDateTime getExpiraEn() {
+        return expiraEn;
+    }
+
+    public void setExpiraEn(LocalDateTime expiraEn) {
+        this.expiraEn = expiraEn;
+    }
+
+    /**
+     * La clave ya no protege contra reintentos pasada su ventana
+     */
+    public boolean isVencida(LocalDateTime ahora) {
+        return !expiraEn.isAfter(ahora);
+    }
+
+    @Override
+    public String toString() {
+        return "VentaIdempotente{" +
+                "clave='" + clave + '\'' +
+                ", ventaId=" + ventaId +
+                ", expiraEn=" + expiraEn +
+                '}';
+    }
+}
@@ -0,0 +1,108 @@
+package com.alexis.sprintboot.app.Model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Venta aceptada por POST /api/ventas/async que todavía puede estar sin registrar.
+ * Se inserta antes de responder 202 y se resuelve (respuesta y resuelta_en) en la misma
+ * transacción que registra la venta, así después de una caída basta con volver a
+ * procesar las filas sin resolver, y el ticket se puede consultar desde cualquier nodo.
+ */
+@Entity
+@Table(name = "ventas_pendientes", indexes = {
+        // Búsqueda de pendientes (resuelta_en IS NULL) y purga de resueltas
+        @Index(name = "idx_ventas_pendientes_resuelta_en", columnList = "resuelta_en")
+})
+public class VentaPendiente {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 36)
+    private String ticket;
+
+    // JSON del carrito recibido
+    @Column(nullable = false, columnDefinition = "MEDIUMTEXT")
+    private String carrito;
+
+    @Column(name = "recibida_en", nullable = false)
+    private LocalDateTime recibidaEn;
+
+    // JSON del ticket resuelto (CONFIRMADA con la venta o RECHAZADA con el motivo)
+    @Column(columnDefinition = "MEDIUMTEXT")
+    private String respuesta;
+
+    @Column(name = "resuelta_en")
+    private LocalDateTime resueltaEn;
+
+    // Constructor vacío (requerido por JPA)
+    public VentaPendiente() {
+    }
+
+    public VentaPendiente(String ticket, String carrito, LocalDateTime recibidaEn) {
+        this.ticket = ticket;
+        this.carrito = carrito;
+        this.recibidaEn = recibidaEn;
+    }
+
+    // Getters y Setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTicket() {
+        return ticket;
+    }
+
+    public void setTicket(String ticket) {
+        this.ticket = ticket;
+    }
+
+    public String getCarrito() {
+        return carrito;
+    }
+
+    public void setCarrito(String carrito) {
+        this.carrito = carrito;
+    }
+
+    public LocalDateTime getRecibidaEn() {
+        return recibidaEn;
+    }
+
+    public void setRecibidaEn(LocalDateTime recibidaEn) {
+        this.recibidaEn = recibidaEn;
+    }
+
+    public String getRespuesta() {
+        return respuesta;
+    }
+
+    public void setRespuesta(String respuesta) {
+        this.respuesta = respuesta;
+    }
+
+    public LocalDateTime getResueltaEn() {
+        return resueltaEn;
+    }
+
+    public void setResueltaEn(LocalDateTime resueltaEn) {
+        this.resueltaEn = resueltaEn;
+    }
+
+    @Override
+    public String toString() {
+        return "VentaPendiente{" +
+                "id=" + id +
+                ", ticket='" + ticket + '\'' +
+                ", resueltaEn=" + resueltaEn +
+                '}';
+    }
+}
@@ -0,0 +1,42 @@
+package com.alexis.sprintboot.app.Repository;
+
+import com.alexis.sprintboot.app.Model.MovimientoStockPendiente;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MovimientoStockPendienteRepository extends JpaRepository<MovimientoStockPendiente, Long> {
+
+    /**
+     * Registrar un descuento pendiente dentro de la transacción de la venta
+     */
+    @Modifying
+    @Query(value = "INSERT INTO movimientos_stock_pendientes (producto_id, cantidad, creado_en) " +
+            "VALUES (:productoId, :cantidad, :creadoEn)", nativeQuery = true)
+    int registrar(@Param("productoId") Long productoId,
+                  @Param("cantidad") Integer cantidad,
+                  @Param("creadoEn") LocalDateTime creadoEn);
+
+    /**
+     * Los movimientos más antiguos, bloqueados para volcarlos (SELECT ... FOR UPDATE)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<MovimientoStockPendiente> findByOrderByIdAsc(Limit limit);
+
+    /**
+     * Borrar exactamente los movimientos ya aplicados (no los que se confirmaron después)
+     */
+    @Modifying
+    @Query("DELETE FROM MovimientoStockPendiente m WHERE m.id IN :ids")
+    int eliminarPorIds(@Param("ids") Collection<Long> ids);
+}
@@ -1,4 +1,180 @@
 package com.alexis.sprintboot.app.Repository;
 
-public class ProductoRepository {
+import com.alexis.sprintboot.app.DTO.ProductoDTO;
+import com.alexis.sprintboot.app.Model.Producto;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Repository
+public interface ProductoRepository extends JpaRepository<Producto, Long> {
+
+    /**
+     * Buscar producto por SKU (exacto)
+     */
+    Optional<Producto> findBySku(String sku);
+
+    /**
+     * Verificar si existe un producto con el SKU dado
+     */
+    boolean existsBySku(String sku);
+
+    /**
+     * Cargar los productos de varios SKU en una sola consulta (carga masiva)
+     */
+    @EntityGraph(attributePaths = "categoria")
+    List<Producto> findBySkuIn(Collection<String> skus);
+
+    /**
+     * Cargar varios productos en una sola consulta (IN), ordenados por ID.
+     * El orden fijo hace que todas las ventas tomen las filas en la misma secuencia.
+     * La categoría viene en el mismo JOIN (sin un SELECT extra por categoría distinta).
+     */
+    @EntityGraph(attributePaths = "categoria")
+    List<Producto> findByIdInOrderByIdAsc(Collection<Long> ids);
+
+    /**
+     * Cargar y bloquear (SELECT ... FOR UPDATE) varios productos en orden de ID.
+     * La escritura agrupada valida todas las ventas del lote contra estas filas.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Producto p WHERE p.id IN :ids ORDER BY p.id ASC")
+    List<Producto> bloquearPorIdsEnOrden(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Recorrer el catálogo por bloques a partir de un ID (sin OFFSET ni COUNT)
+     */
+    @EntityGraph(attributePaths = "categoria")
+    Slice<Producto> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Recorrer el catálogo completo en orden de ID como stream de solo avance.
+     * Proyecta directamente a DTO (no crea entidades administradas) y lee de a
+     * 1000 filas: con useCursorFetch=true en la URL, el driver de MySQL usa un cursor
+     * del servidor en lugar de cargar todo el resultado en memoria (Integer.MIN_VALUE
+     * solo lo acepta MySQL; H2 rechaza un fetch size negativo).
+     * Debe consumirse dentro de una transacción y cerrarse al terminar.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT new com.alexis.sprintboot.app.DTO.ProductoDTO(" +
+            "p.id, p.sku, p.nombre, p.precio, p.stockActual, c.id, c.nombre) " +
+            "FROM Producto p LEFT JOIN p.categoria c ORDER BY p.id ASC")
+    Stream<ProductoDTO> streamCatalogo();
+
+    /**
+     * Descontar stock con un único UPDATE condicionado (sin leer la fila antes).
+     * Lo retenido por reservas de otros carritos no cuenta como disponible.
+     * Devuelve 1 si se descontó, 0 si el producto no existe o no hay stock suficiente.
+     * Incrementa la versión para que las escrituras optimistas en curso detecten el cambio.
+     */
+    @Modifying
+    @Query("UPDATE Producto p SET p.stockActual = p.stockActual - :cantidad, p.version = p.version + 1 " +
+            "WHERE p.id = :id AND p.stockActual - :retenido >= :cantidad")
+    int descontarStockSiDisponible(@Param("id") Long id, @Param("cantidad") Integer cantidad,
+                                   @Param("retenido") Integer retenido);
+
+    /**
+     * Sumar stock con un único UPDATE (sin leer la fila antes).
+     * Devuelve 0 si el producto no existe. Incrementa la versión como el descuento.
+     */
+    @Modifying
+    @Query("UPDATE Producto p SET p.stockActual = p.stockActual + :cantidad, p.version = p.version + 1 " +
+            "WHERE p.id = :id")
+    int sumarStock(@Param("id") Long id, @Param("cantidad") Integer cantidad);
+
+    /**
+     * Stock vigente de varios productos leído de la tabla, no de las entidades ya cargadas:
+     * después de un UPDATE condicionado es el valor que dejó esta transacción.
+     * Cada fila es [id, stockActual].
+     */
+    @Query("SELECT p.id, p.stockActual FROM Producto p WHERE p.id IN :ids")
+    List<Object[]> leerStockActual(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Aplicar un descuento ya validado fuera de la base de datos (volcado del stock caliente)
+     */
+    @Modifying
+    @Query("UPDATE Producto p SET p.stockActual = p.stockActual - :cantidad, p.version = p.version + 1 " +
+            "WHERE p.id = :id")
+    int aplicarDescuentoStock(@Param("id") Long id, @Param("cantidad") Integer cantidad);
+
+    /**
+     * Productos con stock por debajo del umbral, paginados sobre el índice (stock_actual, id)
+     */
+    @EntityGraph(attributePaths = "categoria")
+    Page<Producto> findByStockActualLessThanOrderByStockActualAscIdAsc(Integer umbral, Pageable pageable);
+
+    /**
+     * (id, stock) de los productos por debajo del umbral con ID mayor a desdeId, en orden de ID.
+     * Recorrido por clave: un producto que cambia de stock durante el recorrido no corre
+     * a los demás de página (con OFFSET se saltarían o repetirían filas).
+     */
+    @Query("SELECT p.id, p.stockActual FROM Producto p " +
+            "WHERE p.stockActual < :umbral AND p.id > :desdeId ORDER BY p.id ASC")
+    List<Object[]> buscarBajoStockDesde(@Param("umbral") Integer umbral, @Param("desdeId") Long desdeId,
+                                        Limit limit);
+
+    /**
+     * Valor del inventario (precio * stock) agrupado por categoría, calculado en la base de datos.
+     * Cada fila es [categoriaId (null si no tiene), valor].
+     */
+    @Query("SELECT c.id, SUM(p.precio * p.stockActual) FROM Producto p LEFT JOIN p.categoria c GROUP BY c.id")
+    List<Object[]> sumarValorInventarioPorCategoria();
+
+    /**
+     * Página por cursor: productos posteriores a (nombreCursor, idCursor) en orden (nombre, id).
+     * Con nombreCursor null se empieza desde el principio. No ejecuta COUNT.
+     */
+    @EntityGraph(attributePaths = "categoria")
+    @Query("SELECT p FROM Producto p WHERE " +
+            // nombre >= cursor como primer término para que MySQL haga un rango sobre (nombre, id)
+            "(:nombreCursor IS NULL OR (p.nombre >= :nombreCursor AND (p.nombre > :nombreCursor OR p.id > :idCursor))) AND " +
+            "(:nombre IS NULL OR LOWER(p.nombre) LIKE LOWER(CONCAT('%', :nombre, '%'))) AND " +
+            "(:precioMin IS NULL OR p.precio >= :precioMin) AND " +
+            "(:precioMax IS NULL OR p.precio <= :precioMax) AND " +
+            "(:categoriaId IS NULL OR p.categoria.id = :categoriaId) " +
+            "ORDER BY p.nombre ASC, p.id ASC")
+    List<Producto> buscarDespuesDeCursor(@Param("nombreCursor") String nombreCursor,
+                                         @Param("idCursor") Long idCursor,
+                                         @Param("nombre") String nombre,
+                                         @Param("precioMin") BigDecimal precioMin,
+                                         @Param("precioMax") BigDecimal precioMax,
+                                         @Param("categoriaId") Long categoriaId,
+                                         Limit limit);
+
+    /**
+     * Buscar productos con filtros opcionales
+     */
+    @Query("SELECT p FROM Producto p WHERE " +
+            "(:nombre IS NULL OR LOWER(p.nombre) LIKE LOWER(CONCAT('%', :nombre, '%'))) AND " +
+            "(:precioMin IS NULL OR p.precio >= :precioMin) AND " +
+            "(:precioMax IS NULL OR p.precio <= :precioMax) AND " +
+            "(:categoriaId IS NULL OR p.categoria.id = :categoriaId)")
+    Page<Producto> buscarConFiltros(@Param("nombre") String nombre,
+                                    @Param("precioMin") BigDecimal precioMin,
+                                    @Param("precioMax") BigDecimal precioMax,
+                                    @Param("categoriaId") Long categoriaId,
+                                    Pageable pageable);
 }
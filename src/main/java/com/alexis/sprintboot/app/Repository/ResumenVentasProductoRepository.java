@@ -0,0 +1,54 @@
+package com.alexis.sprintboot.app.Repository;
+
+import com.alexis.sprintboot.app.Model.ResumenVentasProducto;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ResumenVentasProductoRepository extends JpaRepository<ResumenVentasProducto, Long> {
+
+    /**
+     * Sumar unidades e ingresos del producto en el día (crea la fila si no existe)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO resumen_ventas_productos " +
+            "(fecha, producto_id, producto_nombre, categoria_id, unidades, ingresos) " +
+            "VALUES (:fecha, :productoId, :productoNombre, :categoriaId, :unidades, :ingresos) " +
+            "ON DUPLICATE KEY UPDATE producto_nombre = VALUES(producto_nombre), " +
+            "categoria_id = VALUES(categoria_id), " +
+            "unidades = unidades + VALUES(unidades), ingresos = ingresos + VALUES(ingresos)",
+            nativeQuery = true)
+    int acumular(@Param("fecha") LocalDate fecha,
+                 @Param("productoId") Long productoId,
+                 @Param("productoNombre") String productoNombre,
+                 @Param("categoriaId") Long categoriaId,
+                 @Param("unidades") long unidades,
+                 @Param("ingresos") BigDecimal ingresos);
+
+    /**
+     * Sobrescribir los totales del producto en el día (reconstrucción desde las ventas)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO resumen_ventas_productos " +
+            "(fecha, producto_id, producto_nombre, categoria_id, unidades, ingresos) " +
+            "VALUES (:fecha, :productoId, :productoNombre, :categoriaId, :unidades, :ingresos) " +
+            "ON DUPLICATE KEY UPDATE producto_nombre = VALUES(producto_nombre), " +
+            "categoria_id = VALUES(categoria_id), " +
+            "unidades = VALUES(unidades), ingresos = VALUES(ingresos)",
+            nativeQuery = true)
+    int reemplazar(@Param("fecha") LocalDate fecha,
+                   @Param("productoId") Long productoId,
+                   @Param("productoNombre") String productoNombre,
+                   @Param("categoriaId") Long categoriaId,
+                   @Param("unidades") long unidades,
+                   @Param("ingresos") BigDecimal ingresos);
+
+    List<ResumenVentasProducto> findByFecha(LocalDate fecha);
+}
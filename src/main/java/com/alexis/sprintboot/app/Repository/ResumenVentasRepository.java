@@ -0,0 +1,67 @@
+package com.alexis.sprintboot.app.Repository;
+
+import com.alexis.sprintboot.app.Model.ResumenVentas;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ResumenVentasRepository extends JpaRepository<ResumenVentas, Long> {
+
+    /**
+     * Sumar un incremento al periodo (crea la fila si no existe) con una sola sentencia
+     */
+    @Modifying
+    @Query(value = "INSERT INTO resumen_ventas (granularidad, periodo, tickets, unidades, ingresos) " +
+            "VALUES (:granularidad, :periodo, :tickets, :unidades, :ingresos) " +
+            "ON DUPLICATE KEY UPDATE tickets = tickets + VALUES(tickets), " +
+            "unidades = unidades + VALUES(unidades), ingresos = ingresos + VALUES(ingresos)",
+            nativeQuery = true)
+    int acumular(@Param("granularidad") String granularidad,
+                 @Param("periodo") LocalDateTime periodo,
+                 @Param("tickets") long tickets,
+                 @Param("unidades") long unidades,
+                 @Param("ingresos") BigDecimal ingresos);
+
+    /**
+     * Sobrescribir los totales del periodo (reconstrucción desde las ventas)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO resumen_ventas (granularidad, periodo, tickets, unidades, ingresos) " +
+            "VALUES (:granularidad, :periodo, :tickets, :unidades, :ingresos) " +
+            "ON DUPLICATE KEY UPDATE tickets = VALUES(tickets), " +
+            "unidades = VALUES(unidades), ingresos = VALUES(ingresos)",
+            nativeQuery = true)
+    int reemplazar(@Param("granularidad") String granularidad,
+                   @Param("periodo") LocalDateTime periodo,
+                   @Param("tickets") long tickets,
+                   @Param("unidades") long unidades,
+                   @Param("ingresos") BigDecimal ingresos);
+
+    /**
+     * Periodos de una granularidad desde una fecha (usa la clave única granularidad, periodo)
+     */
+    List<ResumenVentas> findByGranularidadAndPeriodoGreaterThanEqualOrderByPeriodoAsc(
+            ResumenVentas.Granularidad granularidad, LocalDateTime desde);
+
+    /**
+     * Primer periodo resumido de una granularidad (null si no hay ninguno)
+     */
+    @Query("SELECT MIN(r.periodo) FROM ResumenVentas r WHERE r.granularidad = :granularidad")
+    LocalDateTime findPrimerPeriodo(@Param("granularidad") ResumenVentas.Granularidad granularidad);
+
+    /**
+     * Suma de ingresos de los periodos en [desde, hasta)
+     */
+    @Query("SELECT COALESCE(SUM(r.ingresos), 0) FROM ResumenVentas r " +
+            "WHERE r.granularidad = :granularidad AND r.periodo >= :desde AND r.periodo < :hasta")
+    BigDecimal sumarIngresos(@Param("granularidad") ResumenVentas.Granularidad granularidad,
+                             @Param("desde") LocalDateTime desde,
+                             @Param("hasta") LocalDateTime hasta);
+}
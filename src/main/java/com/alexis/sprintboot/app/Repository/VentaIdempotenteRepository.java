@@ -0,0 +1,50 @@
+package com.alexis.sprintboot.app.Repository;
+
+import com.alexis.sprintboot.app.Model.VentaIdempotente;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface VentaIdempotenteRepository extends JpaRepository<VentaIdempotente, String> {
+
+    /**
+     * Reservar la clave al inicio de la transacción de venta.
+     * Es un INSERT (no merge): si otra transacción ya tiene la clave, esta espera su
+     * commit y falla por clave duplicada en lugar de repetir la venta.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO ventas_idempotencia (clave, huella, creada_en, expira_en) " +
+            "VALUES (:clave, :huella, :creadaEn, :expiraEn)", nativeQuery = true)
+    int reservar(@Param("clave") String clave,
+                 @Param("huella") String huella,
+                 @Param("creadaEn") LocalDateTime creadaEn,
+                 @Param("expiraEn") LocalDateTime expiraEn);
+
+    /**
+     * Guardar la respuesta de la venta en la fila reservada (misma transacción)
+     */
+    @Modifying
+    @Query("UPDATE VentaIdempotente v SET v.ventaId = :ventaId, v.respuesta = :respuesta WHERE v.clave = :clave")
+    int completar(@Param("clave") String clave,
+                  @Param("ventaId") Long ventaId,
+                  @Param("respuesta") String respuesta);
+
+    /**
+     * Borrar la clave si ya venció (permite reutilizarla)
+     */
+    @Modifying
+    @Query("DELETE FROM VentaIdempotente v WHERE v.clave = :clave AND v.expiraEn <= :ahora")
+    int eliminarSiVencida(@Param("clave") String clave, @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Purgar claves vencidas (usa el índice de expira_en)
+     */
+    @Modifying
+    @Query("DELETE FROM VentaIdempotente v WHERE v.expiraEn <= :ahora")
+    int eliminarVencidas(@Param("ahora") LocalDateTime ahora);
+}
@@ -0,0 +1,44 @@
+package com.alexis.sprintboot.app.Repository;
+
+import com.alexis.sprintboot.app.Model.VentaPendiente;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface VentaPendienteRepository extends JpaRepository<VentaPendiente, Long> {
+
+    Optional<VentaPendiente> findByTicket(String ticket);
+
+    /**
+     * Las que siguen sin resolver, bloqueadas en orden de ID (SELECT ... FOR UPDATE).
+     * Otro escritor que tome las mismas espera el commit y ya no las encuentra pendientes.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM VentaPendiente v WHERE v.id IN :ids AND v.resueltaEn IS NULL ORDER BY v.id ASC")
+    List<VentaPendiente> bloquearSinResolver(@Param("ids") Collection<Long> ids);
+
+    /**
+     * IDs sin resolver recibidos antes de una fecha, en orden de llegada
+     */
+    @Query("SELECT v.id FROM VentaPendiente v WHERE v.resueltaEn IS NULL AND v.recibidaEn < :antesDe " +
+            "ORDER BY v.id ASC")
+    List<Long> buscarSinResolverAntesDe(@Param("antesDe") LocalDateTime antesDe, Limit limit);
+
+    /**
+     * Purgar las resueltas antes de una fecha (usa el índice de resuelta_en)
+     */
+    @Modifying
+    @Query("DELETE FROM VentaPendiente v WHERE v.resueltaEn <= :antesDe")
+    int eliminarResueltasAntesDe(@Param("antesDe") LocalDateTime antesDe);
+}
@@ -1,4 +1,89 @@
 package com.alexis.sprintboot.app.Repository;
 
-public class VentaRepository {
+import com.alexis.sprintboot.app.DTO.LineaVentaExportacionDTO;
+import com.alexis.sprintboot.app.Model.Venta;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface VentaRepository extends JpaRepository<Venta, Long> {
+
+    /**
+     * Líneas vendidas desde una fecha, ordenadas por venta (reconstrucción de los resúmenes).
+     * Cada fila: [fechaVenta, ventaId, productoId, productoNombre, categoriaId, cantidad, precioUnitario]
+     * Se lee de a 1000 filas con el cursor del servidor: debe consumirse dentro de una
+     * transacción y cerrarse al terminar.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT v.fechaVenta, v.id, p.id, p.nombre, c.id, d.cantidad, d.precioUnitario " +
+            "FROM DetalleVenta d JOIN d.venta v JOIN d.producto p LEFT JOIN p.categoria c " +
+            "WHERE v.fechaVenta >= :desde ORDER BY v.id ASC")
+    Stream<Object[]> streamLineasVendidasDesde(@Param("desde") LocalDateTime desde);
+
+    /**
+     * Suma de los totales en [desde, hasta); cubierta por el índice (fecha_venta, total)
+     */
+    @Query("SELECT COALESCE(SUM(v.total), 0) FROM Venta v WHERE v.fechaVenta >= :desde AND v.fechaVenta < :hasta")
+    BigDecimal sumarTotalEntre(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+    /**
+     * Primera fase del listado: cabeceras [id, fechaVenta, total] en [desde, hasta)
+     * posteriores al cursor (fechaCursor, idCursor) en orden (fecha_venta, id) descendente.
+     * Con idCursor null se empieza por la venta más reciente. No carga detalles ni ejecuta COUNT.
+     */
+    @Query("SELECT v.id, v.fechaVenta, v.total FROM Venta v WHERE " +
+            "v.fechaVenta >= :desde AND v.fechaVenta < :hasta AND " +
+            // fecha <= cursor como primer término para que MySQL haga un rango sobre (fecha_venta, id)
+            "(:idCursor IS NULL OR (v.fechaVenta <= :fechaCursor AND (v.fechaVenta < :fechaCursor OR v.id < :idCursor))) " +
+            "ORDER BY v.fechaVenta DESC, v.id DESC")
+    List<Object[]> buscarCabecerasAntesDeCursor(@Param("desde") LocalDateTime desde,
+                                                @Param("hasta") LocalDateTime hasta,
+                                                @Param("fechaCursor") LocalDateTime fechaCursor,
+                                                @Param("idCursor") Long idCursor,
+                                                Limit limit);
+
+    /**
+     * Segunda fase: todas las líneas de varias ventas en una consulta, sin cargar entidades.
+     * Cada fila: [ventaId, productoId, productoNombre, cantidad, precioUnitario]
+     */
+    @Query("SELECT d.venta.id, p.id, p.nombre, d.cantidad, d.precioUnitario " +
+            "FROM DetalleVenta d JOIN d.producto p " +
+            "WHERE d.venta.id IN :ventaIds ORDER BY d.venta.id ASC, d.id ASC")
+    List<Object[]> findLineasDeVentas(@Param("ventaIds") Collection<Long> ventaIds);
+
+    /**
+     * Recorrer las líneas de las ventas en [desde, hasta) como stream de solo avance,
+     * en orden (fecha_venta, venta, línea): las líneas de cada venta llegan seguidas.
+     * Igual que streamCatalogo: proyección a DTO y lectura de a 1000 filas con el cursor
+     * del servidor (useCursorFetch=true en MySQL). Debe consumirse dentro de una
+     * transacción y cerrarse al terminar.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT new com.alexis.sprintboot.app.DTO.LineaVentaExportacionDTO(" +
+            "v.id, v.fechaVenta, v.total, p.id, p.nombre, d.cantidad, d.precioUnitario) " +
+            "FROM Venta v JOIN v.detalles d JOIN d.producto p " +
+            "WHERE v.fechaVenta >= :desde AND v.fechaVenta < :hasta " +
+            "ORDER BY v.fechaVenta ASC, v.id ASC, d.id ASC")
+    Stream<LineaVentaExportacionDTO> streamLineasEntre(@Param("desde") LocalDateTime desde,
+                                                       @Param("hasta") LocalDateTime hasta);
 }
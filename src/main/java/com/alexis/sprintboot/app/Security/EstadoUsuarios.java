@@ -0,0 +1,59 @@
+package com.alexis.sprintboot.app.Security;
+
+import com.alexis.sprintboot.app.Event.UsuarioEstadoCambiadoEvent;
+import com.alexis.sprintboot.app.Model.Usuario;
+import com.alexis.sprintboot.app.Repository.UsuarioRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+/**
+ * Estado activo/inactivo de los usuarios autenticados por JWT.
+ *
+ * El token lleva rol y estado como claims, así el filtro no consulta la tabla
+ * de usuarios en cada petición. Esta caché de TTL corto es la que hace cumplir
+ * una desactivación: en este nodo se aplica al confirmar el cambio y en los
+ * demás nodos como máximo después de ttl-segundos.
+ */
+@Component
+public class EstadoUsuarios {
+
+    private final UsuarioRepository usuarioRepository;
+    private final Cache<String, Boolean> activos;
+
+    public EstadoUsuarios(
+            UsuarioRepository usuarioRepository,
+            @Value("${jwt.estado-usuario.ttl-segundos:30}") long ttlSegundos,
+            @Value("${jwt.estado-usuario.tamanio-maximo:100000}") long tamanioMaximo,
+            MeterRegistry meterRegistry) {
+        this.usuarioRepository = usuarioRepository;
+        this.activos = Caffeine.newBuilder()
+                .maximumSize(tamanioMaximo)
+                .expireAfterWrite(Duration.ofSeconds(ttlSegundos))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, activos, "usuarios.activos");
+    }
+
+    /**
+     * Indica si el usuario sigue activo (consulta la base de datos como máximo una vez por TTL)
+     */
+    public boolean isActivo(String email) {
+        return activos.get(email, e -> usuarioRepository.findByEmail(e)
+                .map(Usuario::getActivo)
+                .map(Boolean.TRUE::equals)
+                .orElse(false));
+    }
+
+    @TransactionalEventListener
+    public void onUsuarioEstadoCambiado(UsuarioEstadoCambiadoEvent event) {
+        activos.put(event.getEmail(), event.isActivo());
+    }
+}
@@ -1,9 +1,11 @@
 package com.alexis.sprintboot.app.Security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -18,10 +20,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final EstadoUsuarios estadoUsuarios;
 
-    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtService jwtService,
+                                   UserDetailsService userDetailsService,
+                                   EstadoUsuarios estadoUsuarios) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.estadoUsuarios = estadoUsuarios;
     }
 
     @Override
@@ -39,12 +45,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         final String jwt = authHeader.substring(7);
-        final String username = jwtService.extractUsername(jwt);
+        // Una sola verificación por petición (o acierto de caché si el token ya se verificó)
+        final Claims claims = jwtService.extractAllClaims(jwt);
+        final String username = claims.getSubject();
 
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+            // Rol y estado salen del token; solo los tokens sin esos claims consultan la base de datos
+            UserDetails userDetails = jwtService.extractUserDetails(claims);
+            if (userDetails == null) {
+                userDetails = this.userDetailsService.loadUserByUsername(username);
+            }
 
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+            if (userDetails.isEnabled()
+                    && estadoUsuarios.isActivo(username)
+                    && jwtService.isTokenValid(claims, userDetails)) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
@@ -1,28 +1,79 @@
 package com.alexis.sprintboot.app.Security;
 
+import com.alexis.sprintboot.app.Model.Usuario;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import java.security.Key;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
+import javax.crypto.SecretKey;
+
 @Service
 public class JwtService {
 
+    // Claims con los que el filtro reconstruye el usuario sin consultar la base de datos
+    public static final String CLAIM_ROL = "rol";
+    public static final String CLAIM_ACTIVO = "activo";
+
     @Value("${jwt.secret}")
     private String secretKey;
 
     @Value("${jwt.expiration}")
     private long jwtExpiration;
 
+    // Tokens verificados en memoria (máximo de entradas)
+    @Value("${jwt.cache.tamanio-maximo:100000}")
+    private long tamanioMaximoCache;
+
+    private final MeterRegistry meterRegistry;
+
+    // Clave y parser se construyen una sola vez
+    private SecretKey signInKey;
+    private JwtParser parser;
+
+    // hash SHA-256 del token -> claims ya verificados; cada entrada expira con el exp del token
+    private Cache<String, Claims> tokensVerificados;
+
+    public JwtService(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void inicializar() {
+        signInKey = Keys.hmacShaKeyFor(secretKey.getBytes());
+        parser = Jwts
+                .parser()
+                .verifyWith(signInKey)
+                .build();
+        tokensVerificados = Caffeine.newBuilder()
+                .maximumSize(tamanioMaximoCache)
+                .expireAfter(new ExpiracionDelToken())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, tokensVerificados, "jwt.verificados");
+    }
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -33,7 +84,12 @@ public class JwtService {
     }
 
     public String generateToken(UserDetails userDetails) {
-        return generateToken(new HashMap<>(), userDetails);
+        Map<String, Object> claims = new HashMap<>();
+        if (userDetails instanceof Usuario usuario) {
+            claims.put(CLAIM_ROL, usuario.getRol().name());
+            claims.put(CLAIM_ACTIVO, Boolean.TRUE.equals(usuario.getActivo()));
+        }
+        return generateToken(claims, userDetails);
     }
 
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
@@ -43,34 +99,85 @@ public class JwtService {
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .signWith(signInKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+        return isTokenValid(extractAllClaims(token), userDetails);
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    /**
+     * Validar claims ya verificados contra el usuario (sin volver a parsear el token)
+     */
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername()) && !isTokenExpired(claims);
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    /**
+     * Verificar firma y expiración del token y devolver sus claims.
+     * Un token ya verificado se resuelve desde la caché con solo calcular su hash;
+     * los tokens inválidos lanzan JwtException y no se guardan.
+     */
+    public Claims extractAllClaims(String token) {
+        String hash = hashToken(token);
+        Claims claims = tokensVerificados.getIfPresent(hash);
+        if (claims == null) {
+            claims = parser.parseSignedClaims(token).getPayload();
+            tokensVerificados.put(hash, claims);
+        }
+        return claims;
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Reconstruir el usuario autenticado desde los claims verificados.
+     * Devuelve null si el token no trae el rol (tokens emitidos antes de incluirlo).
+     */
+    public UserDetails extractUserDetails(Claims claims) {
+        String rol = claims.get(CLAIM_ROL, String.class);
+        if (rol == null) {
+            return null;
+        }
+        Boolean activo = claims.get(CLAIM_ACTIVO, Boolean.class);
+        return User.withUsername(claims.getSubject())
+                .password("")
+                .roles(rol)
+                .disabled(!Boolean.TRUE.equals(activo))
+                .build();
     }
 
-    private Key getSignInKey() {
-        byte[] keyBytes = secretKey.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+    private boolean isTokenExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
+    }
+
+    private static String hashToken(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Cada token verificado vive en la caché hasta su propio exp
+     */
+    private static class ExpiracionDelToken implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String hash, Claims claims, long currentTime) {
+            long restanteMs = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(restanteMs, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String hash, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String hash, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
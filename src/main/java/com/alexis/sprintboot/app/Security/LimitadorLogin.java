@@ -0,0 +1,100 @@
+package com.alexis.sprintboot.app.Security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Limitador de intentos de login con cubetas de tokens por email y por IP.
+ *
+ * Cada intento consume un token de la cubeta de la IP y otro de la del email;
+ * las cubetas se recargan de forma continua. Así una ráfaga (o un ataque de
+ * fuerza bruta) se corta antes de llegar al hash de la contraseña.
+ * Los rechazos se cuentan en auth.login.rechazados.
+ */
+@Component
+public class LimitadorLogin {
+
+    private final Cache<String, CubetaTokens> cubetas;
+    private final Counter rechazadosPorEmail;
+    private final Counter rechazadosPorIp;
+
+    @Value("${seguridad.login.por-email.capacidad:5}")
+    private int capacidadEmail;
+
+    @Value("${seguridad.login.por-email.recarga-por-minuto:5}")
+    private int recargaEmail;
+
+    @Value("${seguridad.login.por-ip.capacidad:600}")
+    private int capacidadIp;
+
+    @Value("${seguridad.login.por-ip.recarga-por-minuto:300}")
+    private int recargaIp;
+
+    public LimitadorLogin(MeterRegistry meterRegistry) {
+        this.cubetas = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+        this.rechazadosPorEmail = Counter.builder("auth.login.rechazados")
+                .tag("limite", "email")
+                .register(meterRegistry);
+        this.rechazadosPorIp = Counter.builder("auth.login.rechazados")
+                .tag("limite", "ip")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Consumir un intento para la IP y el email; false si alguno agotó su cubeta
+     */
+    public boolean permitir(String email, String ip) {
+        if (!cubetas.get("ip:" + ip, k -> new CubetaTokens(capacidadIp, recargaIp)).consumir()) {
+            rechazadosPorIp.increment();
+            return false;
+        }
+        String clave = "email:" + (email != null ? email.trim().toLowerCase() : "");
+        if (!cubetas.get(clave, k -> new CubetaTokens(capacidadEmail, recargaEmail)).consumir()) {
+            rechazadosPorEmail.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Segundos sugeridos para Retry-After (tiempo de recarga de un token de email)
+     */
+    public long getSegundosReintento() {
+        return Math.max(1, (60 + recargaEmail - 1) / Math.max(recargaEmail, 1));
+    }
+
+    private static class CubetaTokens {
+
+        private final int capacidad;
+        private final double tokensPorNano;
+        private double tokens;
+        private long ultimaRecarga;
+
+        CubetaTokens(int capacidad, int recargaPorMinuto) {
+            this.capacidad = capacidad;
+            this.tokensPorNano = recargaPorMinuto / (double) Duration.ofMinutes(1).toNanos();
+            this.tokens = capacidad;
+            this.ultimaRecarga = System.nanoTime();
+        }
+
+        synchronized boolean consumir() {
+            long ahora = System.nanoTime();
+            tokens = Math.min(capacidad, tokens + (ahora - ultimaRecarga) * tokensPorNano);
+            ultimaRecarga = ahora;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.alexis.sprintboot.app.Security;
+
+import com.alexis.sprintboot.app.Exception.ServicioSaturadoException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PasswordEncoder que ejecuta el hash (BCrypt) en un pool propio y acotado.
+ *
+ * Los hilos de Tomcat solo esperan el resultado: como mucho "hilos" núcleos
+ * calculan hashes a la vez y el resto de la CPU queda para las ventas. Si la
+ * cola está llena o la espera supera el máximo se responde 503 en lugar de
+ * acumular peticiones de login.
+ *
+ * Métricas en Micrometer como executor.* con la etiqueta name=hashing.contrasenas
+ * (executor.queued, executor.active, executor.queue.remaining).
+ */
+public class PasswordEncoderAcotado implements PasswordEncoder, AutoCloseable {
+
+    private static final long SEGUNDOS_REINTENTO = 1;
+
+    private final PasswordEncoder delegado;
+    private final ThreadPoolExecutor pool;
+    private final ExecutorService ejecutor;
+    private final long esperaMaximaMs;
+
+    public PasswordEncoderAcotado(PasswordEncoder delegado, int hilos, int capacidadCola,
+                                  long esperaMaximaMs, MeterRegistry meterRegistry) {
+        this.delegado = delegado;
+        this.esperaMaximaMs = esperaMaximaMs;
+
+        AtomicInteger contador = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadCola),
+                tarea -> {
+                    Thread hilo = new Thread(tarea, "hashing-" + contador.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.ejecutor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "hashing.contrasenas");
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return ejecutar(() -> delegado.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return ejecutar(() -> delegado.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegado.upgradeEncoding(encodedPassword);
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    private <T> T ejecutar(Callable<T> tarea) {
+        Future<T> resultado;
+        try {
+            resultado = ejecutor.submit(tarea);
+        } catch (RejectedExecutionException e) {
+            throw new ServicioSaturadoException(
+                    "Demasiadas autenticaciones simultáneas, intente nuevamente", SEGUNDOS_REINTENTO, e);
+        }
+
+        try {
+            return resultado.get(esperaMaximaMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Ya se responde 503: si el hash sigue en cola ya no se calcula
+            // (uno en curso termina igual, BCrypt no atiende la interrupción)
+            resultado.cancel(true);
+            throw new ServicioSaturadoException(
+                    "Demasiadas autenticaciones simultáneas, intente nuevamente", SEGUNDOS_REINTENTO, e);
+        } catch (InterruptedException e) {
+            resultado.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServicioSaturadoException("Autenticación interrumpida", SEGUNDOS_REINTENTO, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Error al procesar la contraseña", e.getCause());
+        }
+    }
+}
@@ -3,10 +3,12 @@ package com.alexis.sprintboot.app.Service;
 import com.alexis.sprintboot.app.DTO.auth.LoginRequest;
 import com.alexis.sprintboot.app.DTO.auth.LoginResponse;
 import com.alexis.sprintboot.app.DTO.auth.RegisterRequest;
+import com.alexis.sprintboot.app.Event.UsuarioEstadoCambiadoEvent;
 import com.alexis.sprintboot.app.Model.Rol;
 import com.alexis.sprintboot.app.Model.Usuario;
 import com.alexis.sprintboot.app.Repository.UsuarioRepository;
 import com.alexis.sprintboot.app.Security.JwtService;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -14,6 +16,9 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 @Service
 public class AuthService {
 
@@ -21,16 +26,19 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
+    private final ApplicationEventPublisher eventPublisher;
 
     public AuthService(
             UsuarioRepository usuarioRepository,
             PasswordEncoder passwordEncoder,
             JwtService jwtService,
-            AuthenticationManager authenticationManager) {
+            AuthenticationManager authenticationManager,
+            ApplicationEventPublisher eventPublisher) {
         this.usuarioRepository = usuarioRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtService = jwtService;
         this.authenticationManager = authenticationManager;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -207,6 +215,9 @@ public class AuthService {
 
         usuario.setActivo(false);
         usuarioRepository.save(usuario);
+
+        // Los tokens ya emitidos dejan de aceptarse (o vuelven a aceptarse) tras el commit
+        eventPublisher.publishEvent(new UsuarioEstadoCambiadoEvent(email, false));
     }
 
     /**
@@ -219,6 +230,9 @@ public class AuthService {
 
         usuario.setActivo(true);
         usuarioRepository.save(usuario);
+
+        // Los tokens ya emitidos dejan de aceptarse (o vuelven a aceptarse) tras el commit
+        eventPublisher.publishEvent(new UsuarioEstadoCambiadoEvent(email, true));
     }
 
     /**
@@ -0,0 +1,102 @@
+package com.alexis.sprintboot.app.Service;
+
+import com.alexis.sprintboot.app.DTO.ProductoDTO;
+import com.alexis.sprintboot.app.DTO.VentaResponseDTO;
+import com.alexis.sprintboot.app.Event.ProductoEliminadoEvent;
+import com.alexis.sprintboot.app.Event.ProductoGuardadoEvent;
+import com.alexis.sprintboot.app.Event.VentaRegistradaEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Caché local de ProductoDTO por ID y por SKU (consultas de los terminales POS).
+ *
+ * El DTO se guarda una sola vez por ID; el SKU solo apunta al ID, así una
+ * invalidación por ID basta para cualquier cambio de stock o de datos.
+ * Las invalidaciones se hacen después del commit de cada escritura; el TTL
+ * acota la ventana en la que una lectura concurrente pudo guardar un valor viejo.
+ *
+ * Las estadísticas (aciertos, fallos, desalojos) se publican en Micrometer
+ * como cache.* con las etiquetas cache=productos.id y cache=productos.sku.
+ */
+@Component
+public class CacheProductos {
+
+    private final Cache<Long, ProductoDTO> porId;
+    private final Cache<String, Long> idPorSku;
+
+    public CacheProductos(
+            @Value("${inventario.cache.productos.tamanio-maximo:50000}") long tamanioMaximo,
+            @Value("${inventario.cache.productos.ttl-segundos:60}") long ttlSegundos,
+            MeterRegistry meterRegistry) {
+        this.porId = Caffeine.newBuilder()
+                .maximumSize(tamanioMaximo)
+                .expireAfterWrite(Duration.ofSeconds(ttlSegundos))
+                .recordStats()
+                .build();
+        this.idPorSku = Caffeine.newBuilder()
+                .maximumSize(tamanioMaximo)
+                .expireAfterWrite(Duration.ofSeconds(ttlSegundos))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, porId, "productos.id");
+        CaffeineCacheMetrics.monitor(meterRegistry, idPorSku, "productos.sku");
+    }
+
+    /**
+     * Obtener por ID; si no está en caché se usa el cargador (null si no existe)
+     */
+    public ProductoDTO obtenerPorId(Long id, Function<Long, ProductoDTO> cargador) {
+        return porId.get(id, cargador);
+    }
+
+    /**
+     * Obtener por SKU; si no está en caché se usa el cargador (null si no existe)
+     */
+    public ProductoDTO obtenerPorSku(String sku, Function<String, ProductoDTO> cargador) {
+        Long id = idPorSku.getIfPresent(sku);
+        if (id != null) {
+            ProductoDTO producto = porId.getIfPresent(id);
+            if (producto != null && sku.equals(producto.getSku())) {
+                return producto;
+            }
+        }
+
+        ProductoDTO producto = cargador.apply(sku);
+        if (producto != null) {
+            porId.put(producto.getId(), producto);
+            idPorSku.put(sku, producto.getId());
+        }
+        return producto;
+    }
+
+    @TransactionalEventListener
+    public void onProductoGuardado(ProductoGuardadoEvent event) {
+        porId.invalidate(event.getProducto().getId());
+        if (event.getAnterior() != null && !event.getAnterior().getSku().equals(event.getProducto().getSku())) {
+            idPorSku.invalidate(event.getAnterior().getSku());
+        }
+    }
+
+    @TransactionalEventListener
+    public void onProductoEliminado(ProductoEliminadoEvent event) {
+        porId.invalidate(event.getProductoId());
+        idPorSku.invalidate(event.getProducto().getSku());
+    }
+
+    @TransactionalEventListener
+    public void onVentaRegistrada(VentaRegistradaEvent event) {
+        for (VentaResponseDTO.ItemVentaResponseDTO item : event.getVenta().getItems()) {
+            porId.invalidate(item.getProductoId());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.alexis.sprintboot.app.Service;
+
+import com.alexis.sprintboot.app.DTO.FormatoExportacion;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Escribe registros uno a uno en NDJSON o CSV sobre un stream de salida.
+ *
+ * No acumula filas: cada registro se serializa al buffer y se hace flush
+ * cada cierta cantidad de filas para que el cliente reciba datos mientras
+ * la consulta sigue leyendo.
+ */
+class EscritorExportacion implements AutoCloseable {
+
+    private static final int FILAS_POR_FLUSH = 500;
+
+    private final FormatoExportacion formato;
+    private final Writer writer;
+    private final JsonGenerator generador;
+    private long filas;
+
+    EscritorExportacion(OutputStream salida, FormatoExportacion formato,
+                        ObjectMapper objectMapper, List<String> columnas) throws IOException {
+        this.formato = formato;
+        this.writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+
+        if (formato == FormatoExportacion.NDJSON) {
+            this.generador = objectMapper.getFactory().createGenerator(writer);
+            this.generador.setRootValueSeparator(new SerializedString("\n"));
+        } else {
+            this.generador = null;
+            escribirLineaCsv(columnas);
+        }
+    }
+
+    /**
+     * Escribir un registro: el objeto completo en NDJSON o los valores de las columnas en CSV
+     */
+    void escribir(Object registro, List<?> valoresCsv) {
+        try {
+            if (formato == FormatoExportacion.NDJSON) {
+                generador.writeObject(registro);
+            } else {
+                escribirLineaCsv(valoresCsv);
+            }
+
+            if (++filas % FILAS_POR_FLUSH == 0) {
+                flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al escribir la exportación", e);
+        }
+    }
+
+    long getFilas() {
+        return filas;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (generador != null) {
+            generador.writeRaw('\n');
+            generador.flush();
+        }
+        writer.flush();
+    }
+
+    private void flush() throws IOException {
+        if (generador != null) {
+            generador.flush();
+        }
+        writer.flush();
+    }
+
+    private void escribirLineaCsv(List<?> valores) throws IOException {
+        for (int i = 0; i < valores.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escaparCsv(valores.get(i)));
+        }
+        writer.write('\n');
+    }
+
+    private static String escaparCsv(Object valor) {
+        if (valor == null) {
+            return "";
+        }
+        String texto = valor.toString();
+        if (texto.indexOf(',') >= 0 || texto.indexOf('"') >= 0
+                || texto.indexOf('\n') >= 0 || texto.indexOf('\r') >= 0) {
+            return '"' + texto.replace("\"", "\"\"") + '"';
+        }
+        return texto;
+    }
+}
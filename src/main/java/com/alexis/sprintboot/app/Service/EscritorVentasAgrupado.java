@@ -0,0 +1,287 @@
+package com.alexis.sprintboot.app.Service;
+
+import com.alexis.sprintboot.app.DTO.VentaRequestDTO;
+import com.alexis.sprintboot.app.DTO.VentaResponseDTO;
+import com.alexis.sprintboot.app.Exception.ServicioSaturadoException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Escritura agrupada de ventas (group commit).
+ *
+ * Las ventas que llegan dentro de una ventana de pocos milisegundos se registran
+ * juntas en una sola transacción (VentaService.registrarVentasAgrupadas): un commit
+ * por lote en lugar de uno por venta y un UPDATE por producto.
+ * Una venta sin stock se rechaza sola; si falla el lote completo, cada venta se
+ * reintenta en su propia transacción. Cualquier error del escritor completa las
+ * solicitudes del lote con ese error, así ninguna petición queda esperando.
+ *
+ * Deshabilitada, cada venta se registra por separado como antes.
+ */
+@Component
+public class EscritorVentasAgrupado {
+
+    private static final long SEGUNDOS_REINTENTO = 1;
+    private static final long ESPERA_COLA_MS = 200;
+
+    /**
+     * Resultado de una venta del lote: la venta confirmada o el motivo del rechazo
+     */
+    public record Resultado(VentaResponseDTO venta, RuntimeException error) {
+
+        public static Resultado confirmada(VentaResponseDTO venta) {
+            return new Resultado(venta, null);
+        }
+
+        public static Resultado rechazada(RuntimeException error) {
+            return new Resultado(null, error);
+        }
+
+        public boolean isConfirmada() {
+            return error == null;
+        }
+    }
+
+    private record Solicitud(VentaRequestDTO venta, CompletableFuture<VentaResponseDTO> respuesta) {
+    }
+
+    private final VentaService ventaService;
+    private final ReintentoVentaService reintentoVentaService;
+    private final BlockingQueue<Solicitud> cola;
+    private final DistributionSummary tamanioLotes;
+    private final Counter contadorLotesFallidos;
+
+    private final boolean habilitada;
+    private final long ventanaNanos;
+    private final int tamanioLote;
+    private final long esperaMaximaMs;
+    private Thread escritor;
+    private volatile boolean activo;
+
+    public EscritorVentasAgrupado(VentaService ventaService,
+                                  ReintentoVentaService reintentoVentaService,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${inventario.ventas.escritura-agrupada.habilitada:false}") boolean habilitada,
+                                  @Value("${inventario.ventas.escritura-agrupada.ventana-ms:2}") long ventanaMs,
+                                  @Value("${inventario.ventas.escritura-agrupada.tamanio-lote:100}") int tamanioLote,
+                                  @Value("${inventario.ventas.escritura-agrupada.capacidad-cola:10000}") int capacidadCola,
+                                  @Value("${inventario.ventas.escritura-agrupada.espera-maxima-ms:5000}") long esperaMaximaMs) {
+        this.ventaService = ventaService;
+        this.reintentoVentaService = reintentoVentaService;
+        this.habilitada = habilitada;
+        this.ventanaNanos = TimeUnit.MILLISECONDS.toNanos(ventanaMs);
+        this.tamanioLote = tamanioLote;
+        this.esperaMaximaMs = esperaMaximaMs;
+        this.cola = new LinkedBlockingQueue<>(capacidadCola);
+
+        Gauge.builder("ventas.agrupadas.cola", cola, BlockingQueue::size)
+                .description("Ventas esperando la siguiente transacción agrupada")
+                .register(meterRegistry);
+        this.tamanioLotes = DistributionSummary.builder("ventas.agrupadas.lote")
+                .description("Ventas registradas por transacción agrupada")
+                .register(meterRegistry);
+        this.contadorLotesFallidos = Counter.builder("ventas.agrupadas.lotes.fallidos")
+                .description("Lotes que fallaron completos y se registraron venta por venta")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        if (!habilitada) {
+            return;
+        }
+        activo = true;
+        escritor = new Thread(this::escribir, "ventas-escritor-agrupado");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    /**
+     * Dejar de aceptar ventas y registrar las que quedan en la cola
+     */
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        if (escritor == null) {
+            return;
+        }
+        activo = false;
+        escritor.join();
+
+        List<Solicitud> restantes = new ArrayList<>();
+        cola.drainTo(restantes);
+        registrarSolicitudes(restantes);
+    }
+
+    /**
+     * Registrar una venta: junto con las que llegan al mismo tiempo si la escritura
+     * agrupada está habilitada, o en su propia transacción si no
+     */
+    public VentaResponseDTO procesarVenta(VentaRequestDTO ventaRequest) {
+        if (!activo) {
+            return reintentoVentaService.procesarVenta(ventaRequest);
+        }
+
+        Solicitud solicitud = new Solicitud(ventaRequest, new CompletableFuture<>());
+        if (!cola.offer(solicitud)) {
+            throw new ServicioSaturadoException("Demasiadas ventas en espera, intente nuevamente", SEGUNDOS_REINTENTO);
+        }
+        if (!activo && cola.remove(solicitud)) {
+            // Encolada después de que el escritor terminó la cola
+            return reintentoVentaService.procesarVenta(ventaRequest);
+        }
+
+        try {
+            return esperarRespuesta(solicitud);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException("Error al procesar venta", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Espera de venta interrumpida", e);
+        }
+    }
+
+    /**
+     * Esperar hasta espera-maxima-ms; si la venta sigue en la cola se retira (no se
+     * registró) y se responde 503. Si el escritor ya la tomó, se espera a que la
+     * complete: siempre lo hace, y abandonarla dejaría al cliente sin saber si la
+     * venta se registró.
+     */
+    private VentaResponseDTO esperarRespuesta(Solicitud solicitud) throws ExecutionException, InterruptedException {
+        try {
+            return solicitud.respuesta().get(esperaMaximaMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (cola.remove(solicitud)) {
+                throw new ServicioSaturadoException("Demasiadas ventas en espera, intente nuevamente", SEGUNDOS_REINTENTO);
+            }
+            return solicitud.respuesta().get();
+        }
+    }
+
+    /**
+     * Registrar un lote ya formado.
+     * Devuelve un resultado por venta, en el mismo orden.
+     */
+    private List<Resultado> registrar(List<VentaRequestDTO> ventas) {
+        if (!habilitada || ventas.size() == 1) {
+            return registrarPorSeparado(ventas);
+        }
+
+        try {
+            List<Resultado> resultados = reintentoVentaService.ejecutarConReintentos(
+                    () -> ventaService.registrarVentasAgrupadas(ventas));
+            tamanioLotes.record(ventas.size());
+            return resultados;
+        } catch (RuntimeException e) {
+            // Falló el lote completo (no una venta puntual): nada se confirmó,
+            // cada venta se intenta en su propia transacción
+            System.err.println("Error en escritura agrupada de " + ventas.size()
+                    + " ventas, se registran por separado: " + e.getMessage());
+            contadorLotesFallidos.increment();
+            return registrarPorSeparado(ventas);
+        }
+    }
+
+    /**
+     * Bucle del escritor: toma la primera venta y espera hasta ventana-ms a las que
+     * llegan detrás (o hasta completar tamanioLote) antes de registrarlas juntas
+     */
+    private void escribir() {
+        List<Solicitud> lote = new ArrayList<>(tamanioLote);
+        while (activo || !cola.isEmpty()) {
+            try {
+                Solicitud primera = cola.poll(ESPERA_COLA_MS, TimeUnit.MILLISECONDS);
+                if (primera == null) {
+                    continue;
+                }
+                lote.add(primera);
+
+                long limite = System.nanoTime() + ventanaNanos;
+                while (lote.size() < tamanioLote) {
+                    if (cola.drainTo(lote, tamanioLote - lote.size()) > 0) {
+                        continue;
+                    }
+                    long restante = limite - System.nanoTime();
+                    Solicitud siguiente = restante > 0 ? cola.poll(restante, TimeUnit.NANOSECONDS) : null;
+                    if (siguiente == null) {
+                        break;
+                    }
+                    lote.add(siguiente);
+                }
+
+                registrarSolicitudes(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                registrarSolicitudes(lote);
+                return;
+            } catch (Throwable e) {
+                // El escritor sigue vivo: las siguientes ventas no quedan sin procesar
+                fallar(lote, e);
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    private void registrarSolicitudes(List<Solicitud> solicitudes) {
+        if (solicitudes.isEmpty()) {
+            return;
+        }
+        List<VentaRequestDTO> ventas = new ArrayList<>(solicitudes.size());
+        for (Solicitud solicitud : solicitudes) {
+            ventas.add(solicitud.venta());
+        }
+
+        try {
+            List<Resultado> resultados = registrar(ventas);
+            for (int i = 0; i < solicitudes.size(); i++) {
+                Resultado resultado = resultados.get(i);
+                if (resultado.isConfirmada()) {
+                    solicitudes.get(i).respuesta().complete(resultado.venta());
+                } else {
+                    solicitudes.get(i).respuesta().completeExceptionally(resultado.error());
+                }
+            }
+        } catch (Throwable e) {
+            fallar(solicitudes, e);
+        }
+    }
+
+    /**
+     * Completar con el error las solicitudes que todavía no tienen respuesta
+     */
+    private void fallar(List<Solicitud> solicitudes, Throwable error) {
+        for (Solicitud solicitud : solicitudes) {
+            solicitud.respuesta().completeExceptionally(error);
+        }
+    }
+
+    private List<Resultado> registrarPorSeparado(List<VentaRequestDTO> ventas) {
+        List<Resultado> resultados = new ArrayList<>(ventas.size());
+        for (VentaRequestDTO venta : ventas) {
+            try {
+                resultados.add(Resultado.confirmada(reintentoVentaService.procesarVenta(venta)));
+            } catch (RuntimeException e) {
+                resultados.add(Resultado.rechazada(e));
+            }
+        }
+        return resultados;
+    }
+}
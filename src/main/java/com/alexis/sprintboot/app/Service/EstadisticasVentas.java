@@ -0,0 +1,443 @@
+package com.alexis.sprintboot.app.Service;
+
+import com.alexis.sprintboot.app.DTO.EstadisticasVentasDTO;
+import com.alexis.sprintboot.app.DTO.VentaResponseDTO;
+import com.alexis.sprintboot.app.Event.VentaRegistradaEvent;
+import com.alexis.sprintboot.app.Model.Categoria;
+import com.alexis.sprintboot.app.Model.ResumenVentas;
+import com.alexis.sprintboot.app.Model.ResumenVentas.Granularidad;
+import com.alexis.sprintboot.app.Model.ResumenVentasProducto;
+import com.alexis.sprintboot.app.Repository.CategoriaRepository;
+import com.alexis.sprintboot.app.Repository.ResumenVentasProductoRepository;
+import com.alexis.sprintboot.app.Repository.ResumenVentasRepository;
+import com.alexis.sprintboot.app.Repository.VentaRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Resúmenes de ventas por minuto, hora y día (tickets, unidades, ingresos)
+ * y ranking diario de productos y categorías.
+ *
+ * Cada venta confirmada se suma en memoria y queda como incremento pendiente;
+ * los incrementos se escriben periódicamente en resumen_ventas y
+ * resumen_ventas_productos con INSERT ... ON DUPLICATE KEY UPDATE, así las ventas
+ * no compiten por la fila del minuto actual. Las estadísticas se responden desde
+ * memoria, con ventanas de tamaño fijo que no dependen del histórico de ventas.
+ *
+ * Al arrancar y periódicamente se reconstruyen el día anterior y el actual desde
+ * ventas y detalle_ventas, lo que corrige incrementos perdidos por una caída o una
+ * venta contada dos veces por confirmarse durante la propia reconstrucción. Así los
+ * días cerrados de resumen_ventas quedan completos desde el primer día resumido.
+ * Con varios nodos, cada uno ve las ventas de los demás desde la siguiente reconciliación.
+ */
+@Component
+public class EstadisticasVentas {
+
+    private static final int MINUTOS_VENTANA = 60;
+    private static final int HORAS_VENTANA = 24;
+
+    // Orden fijo de escritura: dos nodos no se bloquean mutuamente sobre las mismas filas
+    private static final Comparator<ClavePeriodo> ORDEN_PERIODOS =
+            Comparator.comparing(ClavePeriodo::granularidad).thenComparing(ClavePeriodo::periodo);
+    private static final Comparator<ClaveProducto> ORDEN_PRODUCTOS =
+            Comparator.comparing(ClaveProducto::fecha).thenComparing(ClaveProducto::productoId);
+
+    private final ResumenVentasRepository resumenVentasRepository;
+    private final ResumenVentasProductoRepository resumenProductoRepository;
+    private final VentaRepository ventaRepository;
+    private final CategoriaRepository categoriaRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate lecturaTemplate;
+
+    // Inicio del periodo -> acumulado, por granularidad (solo la ventana reciente)
+    private final Map<Granularidad, TreeMap<LocalDateTime, Acumulado>> series = new EnumMap<>(Granularidad.class);
+
+    // productoId -> acumulado del día fechaProductos
+    private final Map<Long, AcumuladoProducto> productosDelDia = new HashMap<>();
+    private LocalDate fechaProductos = LocalDate.now();
+
+    // Incrementos todavía no escritos en las tablas de resumen
+    private TreeMap<ClavePeriodo, Acumulado> periodosPendientes = new TreeMap<>(ORDEN_PERIODOS);
+    private TreeMap<ClaveProducto, AcumuladoProducto> productosPendientes = new TreeMap<>(ORDEN_PRODUCTOS);
+
+    // Serializa escrituras y reconstrucciones (un incremento no se suma sobre una reconstrucción a medias)
+    private final ReentrantLock escritura = new ReentrantLock();
+
+    private volatile boolean inicializada;
+
+    @Value("${inventario.estadisticas.dias:30}")
+    private int dias;
+
+    @Value("${inventario.estadisticas.top:10}")
+    private int top;
+
+    public EstadisticasVentas(ResumenVentasRepository resumenVentasRepository,
+                              ResumenVentasProductoRepository resumenProductoRepository,
+                              VentaRepository ventaRepository,
+                              CategoriaRepository categoriaRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.resumenVentasRepository = resumenVentasRepository;
+        this.resumenProductoRepository = resumenProductoRepository;
+        this.ventaRepository = ventaRepository;
+        this.categoriaRepository = categoriaRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.lecturaTemplate = new TransactionTemplate(transactionManager);
+        this.lecturaTemplate.setReadOnly(true);
+        for (Granularidad granularidad : Granularidad.values()) {
+            series.put(granularidad, new TreeMap<>());
+        }
+    }
+
+    public boolean isInicializada() {
+        return inicializada;
+    }
+
+    /**
+     * Estadísticas actuales: hoy, última hora, series por hora y por día y rankings del día
+     */
+    public EstadisticasVentasDTO obtenerEstadisticas() {
+        EstadisticasVentasDTO estadisticas = new EstadisticasVentasDTO();
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDateTime hoy = Granularidad.DIA.truncar(ahora);
+        estadisticas.setGeneradoEn(ahora);
+
+        Map<Long, Acumulado> porCategoria = new HashMap<>();
+        synchronized (this) {
+            podar(ahora);
+
+            estadisticas.setHoy(aResumen(hoy, series.get(Granularidad.DIA).get(hoy)));
+
+            Acumulado ultimaHora = new Acumulado();
+            series.get(Granularidad.MINUTO).values().forEach(ultimaHora::sumar);
+            estadisticas.setUltimaHora(aResumen(inicioVentana(Granularidad.MINUTO, ahora), ultimaHora));
+
+            series.get(Granularidad.HORA).forEach((periodo, acumulado) ->
+                    estadisticas.getPorHora().add(aResumen(periodo, acumulado)));
+            series.get(Granularidad.DIA).forEach((periodo, acumulado) ->
+                    estadisticas.getPorDia().add(aResumen(periodo, acumulado)));
+
+            if (fechaProductos.equals(hoy.toLocalDate())) {
+                productosDelDia.entrySet().stream()
+                        .sorted(Map.Entry.comparingByValue(Acumulado.POR_INGRESOS))
+                        .limit(top)
+                        .forEach(entry -> estadisticas.getTopProductos().add(new EstadisticasVentasDTO.RankingDTO(
+                                entry.getKey(), entry.getValue().nombre,
+                                entry.getValue().unidades, entry.getValue().ingresos)));
+
+                for (AcumuladoProducto producto : productosDelDia.values()) {
+                    if (producto.categoriaId != null) {
+                        porCategoria.computeIfAbsent(producto.categoriaId, id -> new Acumulado()).sumar(producto);
+                    }
+                }
+            }
+        }
+
+        // Nombres de categoría fuera del bloqueo: solo las del ranking
+        List<Map.Entry<Long, Acumulado>> topCategorias = porCategoria.entrySet().stream()
+                .sorted(Map.Entry.comparingByValue(Acumulado.POR_INGRESOS))
+                .limit(top)
+                .toList();
+        Map<Long, String> nombres = new HashMap<>();
+        if (!topCategorias.isEmpty()) {
+            for (Categoria categoria : categoriaRepository.findAllById(
+                    topCategorias.stream().map(Map.Entry::getKey).toList())) {
+                nombres.put(categoria.getId(), categoria.getNombre());
+            }
+        }
+        for (Map.Entry<Long, Acumulado> entry : topCategorias) {
+            estadisticas.getTopCategorias().add(new EstadisticasVentasDTO.RankingDTO(
+                    entry.getKey(), nombres.get(entry.getKey()),
+                    entry.getValue().unidades, entry.getValue().ingresos));
+        }
+
+        return estadisticas;
+    }
+
+    @TransactionalEventListener
+    public void onVentaRegistrada(VentaRegistradaEvent event) {
+        VentaResponseDTO venta = event.getVenta();
+        LocalDateTime fecha = venta.getFechaVenta();
+        LocalDate dia = fecha.toLocalDate();
+        long unidades = venta.getCantidadTotalProductos();
+
+        synchronized (this) {
+            for (Granularidad granularidad : Granularidad.values()) {
+                LocalDateTime periodo = granularidad.truncar(fecha);
+                series.get(granularidad).computeIfAbsent(periodo, p -> new Acumulado())
+                        .sumar(1, unidades, venta.getTotal());
+                periodosPendientes.computeIfAbsent(new ClavePeriodo(granularidad, periodo), c -> new Acumulado())
+                        .sumar(1, unidades, venta.getTotal());
+            }
+
+            if (dia.isAfter(fechaProductos)) {
+                productosDelDia.clear();
+                fechaProductos = dia;
+            }
+            for (VentaResponseDTO.ItemVentaResponseDTO item : venta.getItems()) {
+                Long categoriaId = event.getCategoriaId(item.getProductoId());
+                if (dia.equals(fechaProductos)) {
+                    productosDelDia.computeIfAbsent(item.getProductoId(), id -> new AcumuladoProducto())
+                            .sumar(item.getProductoNombre(), categoriaId, item.getCantidad(), item.getSubtotal());
+                }
+                productosPendientes.computeIfAbsent(new ClaveProducto(dia, item.getProductoId()), c -> new AcumuladoProducto())
+                        .sumar(item.getProductoNombre(), categoriaId, item.getCantidad(), item.getSubtotal());
+            }
+
+            podar(LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Escribir los incrementos pendientes en las tablas de resumen
+     */
+    @Scheduled(
+            initialDelayString = "${inventario.estadisticas.escritura-ms:5000}",
+            fixedDelayString = "${inventario.estadisticas.escritura-ms:5000}"
+    )
+    public void escribirPendientes() {
+        escritura.lock();
+        try {
+            escribirPendientesBloqueado();
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        escribirPendientes();
+    }
+
+    /**
+     * Reconstruir ayer y hoy desde las ventas y recargar las ventanas desde las tablas
+     * (arranque y reconciliación periódica)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+            initialDelayString = "${inventario.estadisticas.reconciliacion-ms:3600000}",
+            fixedDelayString = "${inventario.estadisticas.reconciliacion-ms:3600000}"
+    )
+    public void reconciliar() {
+        escritura.lock();
+        try {
+            escribirPendientesBloqueado();
+
+            LocalDateTime ahora = LocalDateTime.now();
+            LocalDate hoy = ahora.toLocalDate();
+
+            Map<ClavePeriodo, Acumulado> periodosReconstruidos = new TreeMap<>(ORDEN_PERIODOS);
+            Map<ClaveProducto, AcumuladoProducto> productosReconstruidos = new TreeMap<>(ORDEN_PRODUCTOS);
+            // Las líneas se recorren con el cursor abierto: no se cargan todas en memoria
+            lecturaTemplate.executeWithoutResult(estado -> reconstruirDesde(
+                    hoy.minusDays(1).atStartOfDay(), periodosReconstruidos, productosReconstruidos));
+
+            transactionTemplate.executeWithoutResult(estado -> {
+                periodosReconstruidos.forEach((clave, acumulado) -> resumenVentasRepository.reemplazar(
+                        clave.granularidad().name(), clave.periodo(),
+                        acumulado.tickets, acumulado.unidades, acumulado.ingresos));
+                productosReconstruidos.forEach((clave, acumulado) -> resumenProductoRepository.reemplazar(
+                        clave.fecha(), clave.productoId(), acumulado.nombre, acumulado.categoriaId,
+                        acumulado.unidades, acumulado.ingresos));
+            });
+
+            Map<Granularidad, TreeMap<LocalDateTime, Acumulado>> cargadas = new EnumMap<>(Granularidad.class);
+            for (Granularidad granularidad : Granularidad.values()) {
+                TreeMap<LocalDateTime, Acumulado> serie = new TreeMap<>();
+                for (ResumenVentas resumen : resumenVentasRepository
+                        .findByGranularidadAndPeriodoGreaterThanEqualOrderByPeriodoAsc(
+                                granularidad, inicioVentana(granularidad, ahora))) {
+                    serie.computeIfAbsent(resumen.getPeriodo(), p -> new Acumulado())
+                            .sumar(resumen.getTickets(), resumen.getUnidades(), resumen.getIngresos());
+                }
+                cargadas.put(granularidad, serie);
+            }
+            Map<Long, AcumuladoProducto> productosCargados = new HashMap<>();
+            for (ResumenVentasProducto resumen : resumenProductoRepository.findByFecha(hoy)) {
+                productosCargados.computeIfAbsent(resumen.getProductoId(), id -> new AcumuladoProducto())
+                        .sumar(resumen.getProductoNombre(), resumen.getCategoriaId(),
+                                resumen.getUnidades(), resumen.getIngresos());
+            }
+
+            synchronized (this) {
+                // Las ventas confirmadas durante la recarga siguen pendientes: se suman encima
+                periodosPendientes.forEach((clave, acumulado) -> cargadas.get(clave.granularidad())
+                        .computeIfAbsent(clave.periodo(), p -> new Acumulado()).sumar(acumulado));
+                productosPendientes.forEach((clave, acumulado) -> {
+                    if (clave.fecha().equals(hoy)) {
+                        productosCargados.computeIfAbsent(clave.productoId(), id -> new AcumuladoProducto())
+                                .sumar(acumulado.nombre, acumulado.categoriaId, acumulado.unidades, acumulado.ingresos);
+                    }
+                });
+
+                series.putAll(cargadas);
+                productosDelDia.clear();
+                productosDelDia.putAll(productosCargados);
+                fechaProductos = hoy;
+                podar(LocalDateTime.now());
+            }
+            inicializada = true;
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    private void escribirPendientesBloqueado() {
+        TreeMap<ClavePeriodo, Acumulado> periodos;
+        TreeMap<ClaveProducto, AcumuladoProducto> productos;
+        synchronized (this) {
+            if (periodosPendientes.isEmpty() && productosPendientes.isEmpty()) {
+                return;
+            }
+            periodos = periodosPendientes;
+            productos = productosPendientes;
+            periodosPendientes = new TreeMap<>(ORDEN_PERIODOS);
+            productosPendientes = new TreeMap<>(ORDEN_PRODUCTOS);
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(estado -> {
+                periodos.forEach((clave, acumulado) -> resumenVentasRepository.acumular(
+                        clave.granularidad().name(), clave.periodo(),
+                        acumulado.tickets, acumulado.unidades, acumulado.ingresos));
+                productos.forEach((clave, acumulado) -> resumenProductoRepository.acumular(
+                        clave.fecha(), clave.productoId(), acumulado.nombre, acumulado.categoriaId,
+                        acumulado.unidades, acumulado.ingresos));
+            });
+        } catch (DataAccessException | TransactionException e) {
+            // La transacción se deshizo: los incrementos vuelven a pendientes para el siguiente intento
+            synchronized (this) {
+                periodos.forEach((clave, acumulado) ->
+                        periodosPendientes.computeIfAbsent(clave, c -> new Acumulado()).sumar(acumulado));
+                productos.forEach((clave, acumulado) ->
+                        productosPendientes.computeIfAbsent(clave, c -> new AcumuladoProducto())
+                                .sumar(acumulado.nombre, acumulado.categoriaId, acumulado.unidades, acumulado.ingresos));
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Acumular las líneas vendidas desde una fecha (una fila por línea, ordenadas por venta).
+     * Debe llamarse dentro de una transacción: el stream se consume y se cierra aquí.
+     */
+    private void reconstruirDesde(LocalDateTime desde,
+                                  Map<ClavePeriodo, Acumulado> periodos,
+                                  Map<ClaveProducto, AcumuladoProducto> productos) {
+        Long ventaAnterior = null;
+        try (Stream<Object[]> lineas = ventaRepository.streamLineasVendidasDesde(desde)) {
+            Iterator<Object[]> iterador = lineas.iterator();
+            while (iterador.hasNext()) {
+                Object[] fila = iterador.next();
+                LocalDateTime fecha = (LocalDateTime) fila[0];
+                Long ventaId = (Long) fila[1];
+                long cantidad = (Integer) fila[5];
+                BigDecimal subtotal = ((BigDecimal) fila[6]).multiply(BigDecimal.valueOf(cantidad));
+
+                // El ticket se cuenta en la primera línea de cada venta
+                long tickets = ventaId.equals(ventaAnterior) ? 0 : 1;
+                ventaAnterior = ventaId;
+
+                for (Granularidad granularidad : Granularidad.values()) {
+                    periodos.computeIfAbsent(new ClavePeriodo(granularidad, granularidad.truncar(fecha)), c -> new Acumulado())
+                            .sumar(tickets, cantidad, subtotal);
+                }
+                productos.computeIfAbsent(new ClaveProducto(fecha.toLocalDate(), (Long) fila[2]), c -> new AcumuladoProducto())
+                        .sumar((String) fila[3], (Long) fila[4], cantidad, subtotal);
+            }
+        }
+    }
+
+    /**
+     * Descartar los periodos que quedaron fuera de la ventana de cada serie
+     */
+    private void podar(LocalDateTime ahora) {
+        for (Granularidad granularidad : Granularidad.values()) {
+            series.get(granularidad).headMap(inicioVentana(granularidad, ahora)).clear();
+        }
+    }
+
+    /**
+     * Primer periodo que se conserva: 60 minutos, 24 horas o los días configurados
+     */
+    private LocalDateTime inicioVentana(Granularidad granularidad, LocalDateTime ahora) {
+        int periodos = switch (granularidad) {
+            case MINUTO -> MINUTOS_VENTANA;
+            case HORA -> HORAS_VENTANA;
+            case DIA -> dias;
+        };
+        return granularidad.truncar(ahora).minus(periodos - 1, granularidad.getUnidad());
+    }
+
+    private EstadisticasVentasDTO.ResumenPeriodoDTO aResumen(LocalDateTime periodo, Acumulado acumulado) {
+        if (acumulado == null) {
+            return new EstadisticasVentasDTO.ResumenPeriodoDTO(periodo, 0, 0, BigDecimal.ZERO);
+        }
+        return new EstadisticasVentasDTO.ResumenPeriodoDTO(
+                periodo, acumulado.tickets, acumulado.unidades, acumulado.ingresos);
+    }
+
+    private record ClavePeriodo(Granularidad granularidad, LocalDateTime periodo) {
+    }
+
+    private record ClaveProducto(LocalDate fecha, Long productoId) {
+    }
+
+    private static class Acumulado {
+
+        // Mayor ingreso primero
+        static final Comparator<Acumulado> POR_INGRESOS =
+                Comparator.comparing((Acumulado acumulado) -> acumulado.ingresos).reversed();
+
+        long tickets;
+        long unidades;
+        BigDecimal ingresos = BigDecimal.ZERO;
+
+        void sumar(long tickets, long unidades, BigDecimal ingresos) {
+            this.tickets += tickets;
+            this.unidades += unidades;
+            if (ingresos != null) {
+                this.ingresos = this.ingresos.add(ingresos);
+            }
+        }
+
+        void sumar(Acumulado otro) {
+            sumar(otro.tickets, otro.unidades, otro.ingresos);
+        }
+    }
+
+    private static class AcumuladoProducto extends Acumulado {
+
+        String nombre;
+        Long categoriaId;
+
+        void sumar(String nombre, Long categoriaId, long unidades, BigDecimal ingresos) {
+            if (nombre != null) {
+                this.nombre = nombre;
+            }
+            this.categoriaId = categoriaId;
+            sumar(0, unidades, ingresos);
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.alexis.sprintboot.app.Service;
+
+import com.alexis.sprintboot.app.DTO.VentaRequestDTO;
+import com.alexis.sprintboot.app.Exception.ClaveIdempotenciaReutilizadaException;
+import com.alexis.sprintboot.app.Exception.ServicioSaturadoException;
+import com.alexis.sprintboot.app.Model.VentaIdempotente;
+import com.alexis.sprintboot.app.Repository.VentaIdempotenteRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Idempotency-Key para POST /api/ventas.
+ *
+ * La primera venta confirmada con una clave guarda su JSON en ventas_idempotencia
+ * (en la misma transacción) y durante la ventana configurada cualquier repetición
+ * recibe exactamente esos bytes sin volver a ejecutar la venta:
+ * - en memoria, una caché de respuestas confirmadas responde sin ir a la base de datos;
+ * - las repeticiones concurrentes en este nodo esperan el resultado de la petición en curso;
+ * - entre nodos, la fila reservada al inicio de la transacción bloquea a la segunda
+ *   petición, que al fallar por clave duplicada lee y repite la respuesta guardada.
+ *
+ * Las ventas que fallan no se registran: un reintento posterior se ejecuta de nuevo.
+ */
+@Component
+public class IdempotenciaVentas {
+
+    /**
+     * Respuesta a enviar: el JSON de la venta y si es la repetición de una anterior
+     */
+    public record Resultado(byte[] cuerpo, boolean repetido) {
+    }
+
+    private record RespuestaGuardada(String huella, byte[] cuerpo, LocalDateTime expiraEn) {
+    }
+
+    private final VentaService ventaService;
+    private final ReintentoVentaService reintentoVentaService;
+    private final VentaIdempotenteRepository ventaIdempotenteRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter contadorRepetidas;
+
+    // Respuestas confirmadas (cada una expira con su fila)
+    private final Cache<String, RespuestaGuardada> respuestas;
+
+    // Peticiones en curso en este nodo: las repeticiones esperan el mismo resultado
+    private final ConcurrentHashMap<String, CompletableFuture<RespuestaGuardada>> enCurso = new ConcurrentHashMap<>();
+
+    private final Duration ventana;
+    private final long esperaMaximaMs;
+
+    public IdempotenciaVentas(VentaService ventaService,
+                              ReintentoVentaService reintentoVentaService,
+                              VentaIdempotenteRepository ventaIdempotenteRepository,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${inventario.ventas.idempotencia.ventana-horas:24}") long ventanaHoras,
+                              @Value("${inventario.ventas.idempotencia.tamanio-cache:100000}") long tamanioCache,
+                              @Value("${inventario.ventas.idempotencia.espera-maxima-ms:30000}") long esperaMaximaMs) {
+        this.ventaService = ventaService;
+        this.reintentoVentaService = reintentoVentaService;
+        this.ventaIdempotenteRepository = ventaIdempotenteRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ventana = Duration.ofHours(ventanaHoras);
+        this.esperaMaximaMs = esperaMaximaMs;
+
+        this.respuestas = Caffeine.newBuilder()
+                .maximumSize(tamanioCache)
+                .expireAfter(new ExpiracionDeLaClave())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, respuestas, "ventas.idempotencia");
+
+        this.contadorRepetidas = Counter.builder("ventas.idempotencia.repetidas")
+                .description("Peticiones de venta respondidas con la respuesta de una clave ya usada")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Procesar la venta una sola vez por clave y devolver siempre la misma respuesta
+     */
+    public Resultado procesar(String clave, VentaRequestDTO ventaRequest) {
+        String huella = calcularHuella(ventaRequest);
+
+        RespuestaGuardada guardada = respuestas.getIfPresent(clave);
+        if (guardada != null) {
+            return repetir(guardada, huella);
+        }
+
+        CompletableFuture<RespuestaGuardada> propia = new CompletableFuture<>();
+        CompletableFuture<RespuestaGuardada> existente = enCurso.putIfAbsent(clave, propia);
+        if (existente != null) {
+            return repetir(esperar(existente), huella);
+        }
+
+        try {
+            return ejecutarUnaVez(clave, huella, ventaRequest, propia);
+        } catch (RuntimeException e) {
+            propia.completeExceptionally(e);
+            throw e;
+        } finally {
+            enCurso.remove(clave, propia);
+        }
+    }
+
+    /**
+     * Purgar las claves vencidas de la tabla
+     */
+    @Scheduled(
+            initialDelayString = "${inventario.ventas.idempotencia.purga-ms:3600000}",
+            fixedDelayString = "${inventario.ventas.idempotencia.purga-ms:3600000}"
+    )
+    public void purgarVencidas() {
+        transactionTemplate.executeWithoutResult(estado ->
+                ventaIdempotenteRepository.eliminarVencidas(LocalDateTime.now()));
+    }
+
+    private Resultado ejecutarUnaVez(String clave, String huella, VentaRequestDTO ventaRequest,
+                                     CompletableFuture<RespuestaGuardada> propia) {
+        LocalDateTime ahora = LocalDateTime.now();
+
+        // Confirmada antes (otro nodo o antes de un reinicio)
+        Optional<VentaIdempotente> registrada = ventaIdempotenteRepository.findById(clave);
+        if (registrada.isPresent()) {
+            if (!registrada.get().isVencida(ahora)) {
+                RespuestaGuardada guardada = guardar(clave, registrada.get());
+                propia.complete(guardada);
+                return repetir(guardada, huella);
+            }
+            transactionTemplate.executeWithoutResult(estado ->
+                    ventaIdempotenteRepository.eliminarSiVencida(clave, ahora));
+        }
+
+        LocalDateTime expiraEn = ahora.plus(ventana);
+        String respuesta;
+        try {
+            respuesta = reintentoVentaService.ejecutarConReintentos(
+                    () -> ventaService.procesarVentaIdempotente(ventaRequest, clave, huella, expiraEn));
+        } catch (DataIntegrityViolationException e) {
+            // Otra transacción confirmó la misma clave mientras esta esperaba la fila
+            VentaIdempotente otra = ventaIdempotenteRepository.findById(clave).orElseThrow(() -> e);
+            RespuestaGuardada guardada = guardar(clave, otra);
+            propia.complete(guardada);
+            return repetir(guardada, huella);
+        }
+
+        RespuestaGuardada guardada = new RespuestaGuardada(
+                huella, respuesta.getBytes(StandardCharsets.UTF_8), expiraEn);
+        respuestas.put(clave, guardada);
+        propia.complete(guardada);
+        return new Resultado(guardada.cuerpo(), false);
+    }
+
+    private RespuestaGuardada guardar(String clave, VentaIdempotente registrada) {
+        RespuestaGuardada guardada = new RespuestaGuardada(
+                registrada.getHuella(),
+                registrada.getRespuesta().getBytes(StandardCharsets.UTF_8),
+                registrada.getExpiraEn());
+        respuestas.put(clave, guardada);
+        return guardada;
+    }
+
+    private Resultado repetir(RespuestaGuardada guardada, String huella) {
+        if (!guardada.huella().equals(huella)) {
+            throw new ClaveIdempotenciaReutilizadaException("La Idempotency-Key ya se usó con otra venta");
+        }
+        contadorRepetidas.increment();
+        return new Resultado(guardada.cuerpo(), true);
+    }
+
+    private RespuestaGuardada esperar(CompletableFuture<RespuestaGuardada> enProceso) {
+        try {
+            return enProceso.get(esperaMaximaMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // La venta original falló: la repetición recibe el mismo error
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException("Error al procesar venta", e.getCause());
+        } catch (TimeoutException e) {
+            throw new ServicioSaturadoException("La venta con esta Idempotency-Key sigue en proceso",
+                    Math.max(1, TimeUnit.MILLISECONDS.toSeconds(esperaMaximaMs)), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Espera de venta interrumpida", e);
+        }
+    }
+
+    /**
+     * SHA-256 (hex) del cuerpo de la petición serializado
+     */
+    private String calcularHuella(VentaRequestDTO ventaRequest) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(ventaRequest)));
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo calcular la huella de la venta", e);
+        }
+    }
+
+    /**
+     * Cada respuesta expira de la caché cuando vence su clave
+     */
+    private static class ExpiracionDeLaClave implements Expiry<String, RespuestaGuardada> {
+
+        @Override
+        public long expireAfterCreate(String clave, RespuestaGuardada respuesta, long currentTime) {
+            long restanteMs = Duration.between(LocalDateTime.now(), respuesta.expiraEn()).toMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(restanteMs, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String clave, RespuestaGuardada respuesta, long currentTime, long currentDuration) {
+            return expireAfterCreate(clave, respuesta, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String clave, RespuestaGuardada respuesta, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
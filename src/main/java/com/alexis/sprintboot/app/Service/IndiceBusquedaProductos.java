@@ -0,0 +1,343 @@
+package com.alexis.sprintboot.app.Service;
+
+import com.alexis.sprintboot.app.DTO.ProductoDTO;
+import com.alexis.sprintboot.app.Event.ProductoEliminadoEvent;
+import com.alexis.sprintboot.app.Event.ProductoGuardadoEvent;
+import com.alexis.sprintboot.app.Event.VentaRegistradaEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice de trigramas en memoria sobre el nombre de los productos.
+ *
+ * Los nombres se normalizan (minúsculas, sin acentos) y se indexan por trigramas.
+ * Cada producto recibe un número de documento creciente, así las listas de
+ * documentos quedan ordenadas y se intersectan sin ordenar.
+ * Al final del nombre se agrega un terminador para que las búsquedas de
+ * dos caracteres también se resuelvan con prefijos de trigramas.
+ *
+ * Se mantiene al día con los eventos de producto y de venta después del commit.
+ */
+@Component
+public class IndiceBusquedaProductos {
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final char TERMINADOR = '\u0000';
+    private static final int MIN_DOCUMENTOS_COMPACTAR = 10_000;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final TreeMap<String, ListaDocumentos> trigramas = new TreeMap<>();
+    private final Map<Long, Integer> documentoPorProducto = new HashMap<>();
+    private final List<ProductoDTO> productos = new ArrayList<>();
+    private final List<String> nombres = new ArrayList<>();
+    private int documentosEliminados;
+
+    // Productos eliminados mientras se cargaba el índice (para no reinsertarlos)
+    private final Set<Long> eliminadosDuranteCarga = new HashSet<>();
+    private volatile boolean cargando;
+    private volatile boolean listo;
+
+    /**
+     * Indica si el índice terminó la carga inicial y puede responder búsquedas
+     */
+    public boolean isListo() {
+        return listo;
+    }
+
+    /**
+     * Buscar productos cuyo nombre contenga el texto (sin distinguir mayúsculas ni acentos)
+     */
+    public List<ProductoDTO> buscar(String texto, int limite) {
+        String consulta = normalizar(texto);
+        if (consulta.length() < 2) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            return consulta.length() == 2
+                    ? buscarPorPrefijo(consulta, limite)
+                    : buscarPorTrigramas(consulta, limite);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Inicio de la carga completa del índice
+     */
+    public void iniciarCarga() {
+        lock.writeLock().lock();
+        try {
+            cargando = true;
+            listo = false;
+            eliminadosDuranteCarga.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Agregar un bloque de la carga inicial.
+     * Los productos que ya llegaron por eventos tienen datos más nuevos y no se pisan.
+     */
+    public void cargarBloque(Collection<ProductoDTO> bloque) {
+        lock.writeLock().lock();
+        try {
+            for (ProductoDTO producto : bloque) {
+                if (!documentoPorProducto.containsKey(producto.getId())
+                        && !eliminadosDuranteCarga.contains(producto.getId())) {
+                    indexar(producto);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Fin de la carga completa del índice
+     */
+    public void finalizarCarga() {
+        lock.writeLock().lock();
+        try {
+            cargando = false;
+            eliminadosDuranteCarga.clear();
+            listo = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onProductoGuardado(ProductoGuardadoEvent event) {
+        lock.writeLock().lock();
+        try {
+            ProductoDTO producto = event.getProducto();
+            Integer documento = documentoPorProducto.get(producto.getId());
+
+            if (documento != null && producto.getNombre().equals(productos.get(documento).getNombre())) {
+                // El nombre no cambió: basta con reemplazar los datos
+                productos.set(documento, producto);
+            } else {
+                eliminar(producto.getId());
+                indexar(producto);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onProductoEliminado(ProductoEliminadoEvent event) {
+        lock.writeLock().lock();
+        try {
+            eliminar(event.getProductoId());
+            if (cargando) {
+                eliminadosDuranteCarga.add(event.getProductoId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Guardar el stock posterior que informa la venta (valor absoluto, no se resta lo vendido):
+     * aplicar el mismo evento dos veces o después de otro no acumula descuentos
+     */
+    @TransactionalEventListener
+    public void onVentaRegistrada(VentaRegistradaEvent event) {
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<Long, Integer> entry : event.getStockPosteriorPorProducto().entrySet()) {
+                Integer documento = documentoPorProducto.get(entry.getKey());
+                if (documento == null || entry.getValue() == null) {
+                    continue;
+                }
+                ProductoDTO actual = productos.get(documento);
+                ProductoDTO copia = new ProductoDTO(actual.getId(), actual.getSku(), actual.getNombre(),
+                        actual.getPrecio(), entry.getValue(),
+                        actual.getCategoriaId(), actual.getCategoriaNombre());
+                productos.set(documento, copia);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Normalizar texto: sin acentos, en minúsculas y sin espacios en los extremos
+     */
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinAcentos = MARCAS_DIACRITICAS
+                .matcher(Normalizer.normalize(texto.trim(), Normalizer.Form.NFD))
+                .replaceAll("");
+        return sinAcentos.toLowerCase(Locale.ROOT);
+    }
+
+    // Búsqueda (requiere el bloqueo de lectura)
+
+    private List<ProductoDTO> buscarPorTrigramas(String consulta, int limite) {
+        List<ListaDocumentos> listas = new ArrayList<>();
+        for (String trigrama : trigramasDe(consulta, false)) {
+            ListaDocumentos lista = trigramas.get(trigrama);
+            if (lista == null) {
+                return List.of();
+            }
+            listas.add(lista);
+        }
+        listas.sort((a, b) -> Integer.compare(a.tamanio, b.tamanio));
+
+        int[] candidatos = Arrays.copyOf(listas.get(0).documentos, listas.get(0).tamanio);
+        int totalCandidatos = candidatos.length;
+        for (int i = 1; i < listas.size() && totalCandidatos > 0; i++) {
+            totalCandidatos = intersectar(candidatos, totalCandidatos, listas.get(i));
+        }
+
+        // Los trigramas no garantizan el orden: se verifica la subcadena completa
+        List<ProductoDTO> resultado = new ArrayList<>();
+        for (int i = 0; i < totalCandidatos && resultado.size() < limite; i++) {
+            int documento = candidatos[i];
+            ProductoDTO producto = productos.get(documento);
+            if (producto != null && nombres.get(documento).contains(consulta)) {
+                resultado.add(producto);
+            }
+        }
+        return resultado;
+    }
+
+    private List<ProductoDTO> buscarPorPrefijo(String consulta, int limite) {
+        BitSet candidatos = new BitSet(productos.size());
+        for (ListaDocumentos lista : trigramas.subMap(consulta, consulta + Character.MAX_VALUE).values()) {
+            for (int i = 0; i < lista.tamanio; i++) {
+                candidatos.set(lista.documentos[i]);
+            }
+        }
+
+        List<ProductoDTO> resultado = new ArrayList<>();
+        for (int documento = candidatos.nextSetBit(0);
+             documento >= 0 && resultado.size() < limite;
+             documento = candidatos.nextSetBit(documento + 1)) {
+            ProductoDTO producto = productos.get(documento);
+            if (producto != null) {
+                resultado.add(producto);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Intersección en sitio de dos listas ordenadas; devuelve el nuevo tamaño
+     */
+    private int intersectar(int[] candidatos, int totalCandidatos, ListaDocumentos lista) {
+        int i = 0;
+        int j = 0;
+        int total = 0;
+        while (i < totalCandidatos && j < lista.tamanio) {
+            int a = candidatos[i];
+            int b = lista.documentos[j];
+            if (a == b) {
+                candidatos[total++] = a;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return total;
+    }
+
+    // Mantenimiento (requiere el bloqueo de escritura)
+
+    private void indexar(ProductoDTO producto) {
+        int documento = productos.size();
+        String nombre = normalizar(producto.getNombre());
+
+        productos.add(producto);
+        nombres.add(nombre);
+        documentoPorProducto.put(producto.getId(), documento);
+
+        for (String trigrama : trigramasDe(nombre, true)) {
+            trigramas.computeIfAbsent(trigrama, t -> new ListaDocumentos()).agregar(documento);
+        }
+    }
+
+    private void eliminar(Long productoId) {
+        Integer documento = documentoPorProducto.remove(productoId);
+        if (documento == null) {
+            return;
+        }
+
+        // Borrado lógico: las listas se limpian al compactar
+        productos.set(documento, null);
+        documentosEliminados++;
+
+        if (documentosEliminados >= MIN_DOCUMENTOS_COMPACTAR && documentosEliminados > documentoPorProducto.size()) {
+            compactar();
+        }
+    }
+
+    private void compactar() {
+        List<ProductoDTO> vigentes = new ArrayList<>(documentoPorProducto.size());
+        for (ProductoDTO producto : productos) {
+            if (producto != null) {
+                vigentes.add(producto);
+            }
+        }
+
+        trigramas.clear();
+        documentoPorProducto.clear();
+        productos.clear();
+        nombres.clear();
+        documentosEliminados = 0;
+
+        for (ProductoDTO producto : vigentes) {
+            indexar(producto);
+        }
+    }
+
+    private static Set<String> trigramasDe(String texto, boolean conTerminador) {
+        String base = conTerminador ? texto + TERMINADOR : texto;
+        Set<String> resultado = new HashSet<>();
+        for (int i = 0; i + 3 <= base.length(); i++) {
+            resultado.add(base.substring(i, i + 3));
+        }
+        return resultado;
+    }
+
+    /**
+     * Lista creciente de números de documento (siempre ordenada)
+     */
+    private static final class ListaDocumentos {
+        private int[] documentos = new int[4];
+        private int tamanio;
+
+        void agregar(int documento) {
+            if (tamanio == documentos.length) {
+                documentos = Arrays.copyOf(documentos, tamanio * 2);
+            }
+            documentos[tamanio++] = documento;
+        }
+    }
+}
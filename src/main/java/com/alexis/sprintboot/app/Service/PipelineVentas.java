@@ -0,0 +1,381 @@
+package com.alexis.sprintboot.app.Service;
+
+import com.alexis.sprintboot.app.DTO.ProductoDTO;
+import com.alexis.sprintboot.app.DTO.TicketVentaDTO;
+import com.alexis.sprintboot.app.DTO.VentaRequestDTO;
+import com.alexis.sprintboot.app.Exception.ServicioSaturadoException;
+import com.alexis.sprintboot.app.Exception.StockInsuficienteException;
+import com.alexis.sprintboot.app.Model.VentaPendiente;
+import com.alexis.sprintboot.app.Repository.VentaPendienteRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registro asíncrono de ventas (POST /api/ventas/async).
+ *
+ * La petición valida el carrito contra la caché de productos (un fallo de caché lee
+ * el producto) y guarda la venta en ventas_pendientes, todo en una transacción corta;
+ * solo entonces responde 202 con un ticket. Unos pocos hilos escritores toman las
+ * ventas en lotes, las registran con VentaService.registrarVentasAgrupadas y resuelven
+ * cada fila en la misma transacción; el cliente consulta el ticket hasta que queda
+ * CONFIRMADA o RECHAZADA.
+ *
+ * Una venta aceptada no se pierde: la cola en memoria solo lleva los IDs de las filas.
+ * Si la aplicación se cae, al arrancar (y periódicamente) se vuelven a encolar las
+ * filas sin resolver; una fila ya resuelta no se registra dos veces porque cada
+ * escritor la bloquea y la vuelve a comprobar antes de vender.
+ */
+@Component
+public class PipelineVentas {
+
+    private static final long SEGUNDOS_REINTENTO = 1;
+    private static final long ESPERA_COLA_MS = 200;
+
+    private final ProductoService productoService;
+    private final VentaService ventaService;
+    private final ReintentoVentaService reintentoVentaService;
+    private final VentaPendienteRepository ventaPendienteRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    private final BlockingQueue<Long> cola;
+    private final Cache<String, TicketVentaDTO> resueltos;
+    private final Counter contadorConfirmadas;
+    private final Counter contadorRechazadas;
+    private final Counter contadorColaLlena;
+
+    private final int hilos;
+    private final int tamanioLote;
+    private final Duration retencion;
+    private final Duration antiguedadRecuperacion;
+    private final List<Thread> escritores = new ArrayList<>();
+    private volatile boolean activo;
+
+    public PipelineVentas(ProductoService productoService,
+                          VentaService ventaService,
+                          ReintentoVentaService reintentoVentaService,
+                          VentaPendienteRepository ventaPendienteRepository,
+                          ObjectMapper objectMapper,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          @Value("${inventario.ventas.async.capacidad-cola:10000}") int capacidadCola,
+                          @Value("${inventario.ventas.async.hilos:2}") int hilos,
+                          @Value("${inventario.ventas.async.tamanio-lote:50}") int tamanioLote,
+                          @Value("${inventario.ventas.async.retencion-minutos:60}") long retencionMinutos,
+                          @Value("${inventario.ventas.async.recuperacion-ms:60000}") long recuperacionMs) {
+        this.productoService = productoService;
+        this.ventaService = ventaService;
+        this.reintentoVentaService = reintentoVentaService;
+        this.ventaPendienteRepository = ventaPendienteRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cola = new ArrayBlockingQueue<>(capacidadCola);
+        this.hilos = hilos;
+        this.tamanioLote = tamanioLote;
+        this.retencion = Duration.ofMinutes(retencionMinutos);
+        this.antiguedadRecuperacion = Duration.ofMillis(recuperacionMs);
+        this.resueltos = Caffeine.newBuilder()
+                .maximumSize(capacidadCola * 10L)
+                .expireAfterWrite(retencion)
+                .build();
+
+        Gauge.builder("ventas.async.cola", cola, BlockingQueue::size)
+                .description("Ventas aceptadas esperando a los escritores")
+                .register(meterRegistry);
+        this.contadorConfirmadas = Counter.builder("ventas.async.resueltas")
+                .tag("estado", "confirmada")
+                .register(meterRegistry);
+        this.contadorRechazadas = Counter.builder("ventas.async.resueltas")
+                .tag("estado", "rechazada")
+                .register(meterRegistry);
+        this.contadorColaLlena = Counter.builder("ventas.async.cola.llena")
+                .description("Ventas no aceptadas por cola llena (503)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Volver a encolar lo que quedó sin resolver en la ejecución anterior y arrancar los escritores
+     */
+    @PostConstruct
+    public void iniciar() {
+        encolarSinResolver(LocalDateTime.now());
+        activo = true;
+        for (int i = 1; i <= hilos; i++) {
+            Thread escritor = new Thread(this::escribir, "ventas-escritor-" + i);
+            escritor.setDaemon(true);
+            escritor.start();
+            escritores.add(escritor);
+        }
+    }
+
+    /**
+     * Dejar de aceptar ventas y esperar a que los escritores vacíen la cola.
+     * Lo que no alcance a registrarse sigue en ventas_pendientes para el próximo arranque.
+     */
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        activo = false;
+        for (Thread escritor : escritores) {
+            escritor.join();
+        }
+
+        // Ventas encoladas justo mientras se detenían los escritores
+        List<Long> restantes = new ArrayList<>();
+        cola.drainTo(restantes);
+        registrarLote(restantes);
+    }
+
+    /**
+     * Validar el carrito y guardar la venta; devuelve el ticket PENDIENTE.
+     * Cuando responde, la venta ya está guardada en ventas_pendientes.
+     */
+    public TicketVentaDTO encolar(VentaRequestDTO ventaRequest) {
+        if (!activo) {
+            throw new ServicioSaturadoException("El registro de ventas se está deteniendo", SEGUNDOS_REINTENTO);
+        }
+        if (cola.remainingCapacity() == 0) {
+            contadorColaLlena.increment();
+            throw new ServicioSaturadoException("Demasiadas ventas en espera, intente nuevamente", SEGUNDOS_REINTENTO);
+        }
+
+        TicketVentaDTO ticket = new TicketVentaDTO(UUID.randomUUID().toString(), LocalDateTime.now());
+        String carrito = aJson(ventaRequest);
+        Long id = transactionTemplate.execute(estado -> {
+            validarCarrito(ventaRequest);
+            return ventaPendienteRepository.save(
+                    new VentaPendiente(ticket.getTicket(), carrito, ticket.getRecibidoEn())).getId();
+        });
+
+        // Si otra petición llenó la cola mientras tanto, la fila la encola la recuperación
+        cola.offer(id);
+        return ticket;
+    }
+
+    /**
+     * Estado actual de un ticket (null si no existe o ya venció su retención)
+     */
+    public TicketVentaDTO obtenerTicket(String ticket) {
+        TicketVentaDTO resuelto = resueltos.getIfPresent(ticket);
+        if (resuelto != null) {
+            return resuelto;
+        }
+
+        VentaPendiente fila = ventaPendienteRepository.findByTicket(ticket).orElse(null);
+        if (fila == null) {
+            return null;
+        }
+        if (fila.getRespuesta() == null) {
+            return new TicketVentaDTO(fila.getTicket(), fila.getRecibidaEn());
+        }
+        resuelto = desdeJson(fila.getRespuesta(), TicketVentaDTO.class);
+        resueltos.put(ticket, resuelto);
+        return resuelto;
+    }
+
+    /**
+     * Encolar las filas que siguen sin resolver después de recuperacion-ms
+     * (por ejemplo, si la cola estaba llena cuando se aceptaron)
+     */
+    @Scheduled(
+            initialDelayString = "${inventario.ventas.async.recuperacion-ms:60000}",
+            fixedDelayString = "${inventario.ventas.async.recuperacion-ms:60000}"
+    )
+    public void recuperarSinResolver() {
+        encolarSinResolver(LocalDateTime.now().minus(antiguedadRecuperacion));
+    }
+
+    /**
+     * Borrar las filas resueltas que ya superaron la retención de tickets
+     */
+    @Scheduled(
+            initialDelayString = "${inventario.ventas.async.recuperacion-ms:60000}",
+            fixedDelayString = "${inventario.ventas.async.recuperacion-ms:60000}"
+    )
+    public void purgarResueltas() {
+        transactionTemplate.executeWithoutResult(estado ->
+                ventaPendienteRepository.eliminarResueltasAntesDe(LocalDateTime.now().minus(retencion)));
+    }
+
+    private void encolarSinResolver(LocalDateTime antesDe) {
+        int capacidad = cola.remainingCapacity();
+        if (capacidad == 0) {
+            return;
+        }
+        for (Long id : ventaPendienteRepository.buscarSinResolverAntesDe(antesDe, Limit.of(capacidad))) {
+            if (!cola.offer(id)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Validación previa con la caché de productos: existencia y stock visible.
+     * El descuento definitivo lo valida la transacción de venta.
+     */
+    private void validarCarrito(VentaRequestDTO ventaRequest) {
+        Map<Long, Integer> cantidades = new TreeMap<>();
+        for (VentaRequestDTO.ItemVentaDTO item : ventaRequest.getItems()) {
+            cantidades.merge(item.getProductoId(), item.getCantidad(), Integer::sum);
+        }
+        for (Map.Entry<Long, Integer> entry : cantidades.entrySet()) {
+            ProductoDTO producto = productoService.obtenerProductoPorId(entry.getKey());
+            if (producto.getStockActual() < entry.getValue()) {
+                throw StockInsuficienteException.crearConDetalles(
+                        producto.getSku(), producto.getNombre(), producto.getStockActual(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Bucle de cada escritor: toma la primera venta disponible y las que ya esperan
+     * detrás (hasta tamanioLote) y las registra juntas
+     */
+    private void escribir() {
+        List<Long> lote = new ArrayList<>(tamanioLote);
+        while (activo || !cola.isEmpty()) {
+            try {
+                Long primero = cola.poll(ESPERA_COLA_MS, TimeUnit.MILLISECONDS);
+                if (primero == null) {
+                    continue;
+                }
+                lote.add(primero);
+                cola.drainTo(lote, tamanioLote - 1);
+                registrarLote(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // Las filas siguen sin resolver: las vuelve a encolar la recuperación
+                System.err.println("Error al registrar ventas asíncronas: " + e.getMessage());
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    /**
+     * Registrar el lote en una transacción (reintentando ante conflictos). Si falla el
+     * lote completo, nada se confirmó y cada venta se intenta en su propia transacción;
+     * la que vuelve a fallar por stock o por un producto inexistente se resuelve como
+     * rechazada. Cualquier otro error (base caída, timeout) deja la fila sin resolver
+     * para que la recuperación la vuelva a intentar.
+     */
+    private void registrarLote(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<TicketVentaDTO> tickets;
+        try {
+            tickets = reintentoVentaService.ejecutarConReintentos(
+                    () -> transactionTemplate.execute(estado -> registrarSinResolver(ids)));
+        } catch (RuntimeException e) {
+            if (ids.size() > 1) {
+                for (Long id : ids) {
+                    registrarLote(List.of(id));
+                }
+                return;
+            }
+            if (!(e instanceof StockInsuficienteException || e instanceof EntityNotFoundException)) {
+                System.err.println("Venta asíncrona " + ids.get(0) + " sin resolver: " + e.getMessage());
+                return;
+            }
+            tickets = transactionTemplate.execute(estado -> rechazarSinResolver(ids.get(0), e.getMessage()));
+        }
+        for (TicketVentaDTO ticket : tickets) {
+            resolver(ticket);
+        }
+    }
+
+    /**
+     * Dentro de la transacción: bloquear las filas que siguen sin resolver, registrar
+     * sus ventas juntas y guardar en cada fila el ticket resuelto
+     */
+    private List<TicketVentaDTO> registrarSinResolver(List<Long> ids) {
+        List<VentaPendiente> filas = ventaPendienteRepository.bloquearSinResolver(ids);
+        if (filas.isEmpty()) {
+            return List.of();
+        }
+
+        List<VentaRequestDTO> ventas = new ArrayList<>(filas.size());
+        for (VentaPendiente fila : filas) {
+            ventas.add(desdeJson(fila.getCarrito(), VentaRequestDTO.class));
+        }
+        List<EscritorVentasAgrupado.Resultado> resultados = ventaService.registrarVentasAgrupadas(ventas);
+
+        List<TicketVentaDTO> tickets = new ArrayList<>(filas.size());
+        for (int i = 0; i < filas.size(); i++) {
+            VentaPendiente fila = filas.get(i);
+            EscritorVentasAgrupado.Resultado resultado = resultados.get(i);
+            TicketVentaDTO ticket = new TicketVentaDTO(fila.getTicket(), fila.getRecibidaEn());
+            tickets.add(guardarResuelto(fila, resultado.isConfirmada()
+                    ? ticket.confirmar(resultado.venta())
+                    : ticket.rechazar(resultado.error().getMessage())));
+        }
+        return tickets;
+    }
+
+    private List<TicketVentaDTO> rechazarSinResolver(Long id, String mensaje) {
+        List<TicketVentaDTO> tickets = new ArrayList<>(1);
+        for (VentaPendiente fila : ventaPendienteRepository.bloquearSinResolver(List.of(id))) {
+            TicketVentaDTO ticket = new TicketVentaDTO(fila.getTicket(), fila.getRecibidaEn());
+            tickets.add(guardarResuelto(fila, ticket.rechazar(mensaje)));
+        }
+        return tickets;
+    }
+
+    private TicketVentaDTO guardarResuelto(VentaPendiente fila, TicketVentaDTO resuelto) {
+        fila.setRespuesta(aJson(resuelto));
+        fila.setResueltaEn(resuelto.getResueltoEn());
+        return resuelto;
+    }
+
+    private void resolver(TicketVentaDTO ticket) {
+        resueltos.put(ticket.getTicket(), ticket);
+        if (ticket.getEstado() == TicketVentaDTO.Estado.CONFIRMADA) {
+            contadorConfirmadas.increment();
+        } else {
+            contadorRechazadas.increment();
+        }
+    }
+
+    private String aJson(Object valor) {
+        try {
+            return objectMapper.writeValueAsString(valor);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la venta asíncrona", e);
+        }
+    }
+
+    private <T> T desdeJson(String json, Class<T> tipo) {
+        try {
+            return objectMapper.readValue(json, tipo);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo leer la venta asíncrona", e);
+        }
+    }
+}
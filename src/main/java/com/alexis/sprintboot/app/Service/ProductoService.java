@@ -1,24 +1,65 @@
 package com.alexis.sprintboot.app.Service;
 
 
+import com.alexis.sprintboot.app.DTO.CargaMasivaResponseDTO;
+import com.alexis.sprintboot.app.DTO.CargaMasivaResponseDTO.Resultado;
+import com.alexis.sprintboot.app.DTO.CargaMasivaResponseDTO.ResultadoFilaDTO;
+import com.alexis.sprintboot.app.DTO.CursorPageDTO;
+import com.alexis.sprintboot.app.DTO.FormatoExportacion;
 import com.alexis.sprintboot.app.DTO.ProductoDTO;
 import com.alexis.sprintboot.app.DTO.ProductoFilterDTO;
+import com.alexis.sprintboot.app.Event.ProductoEliminadoEvent;
+import com.alexis.sprintboot.app.Event.ProductoGuardadoEvent;
+import com.alexis.sprintboot.app.Exception.StockInsuficienteException;
 import com.alexis.sprintboot.app.Model.Categoria;
 import com.alexis.sprintboot.app.Model.Producto;
 import com.alexis.sprintboot.app.Repository.CategoriaRepository;
 import com.alexis.sprintboot.app.Repository.ProductoRepository;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -26,11 +67,53 @@ public class ProductoService {
 
     private final ProductoRepository productoRepository;
     private final CategoriaRepository categoriaRepository;
+    private final IndiceBusquedaProductos indiceBusqueda;
+    private final ValoracionInventario valoracionInventario;
+    private final CacheProductos cacheProductos;
+    private final StockCaliente stockCaliente;
+    private final ReservasStock reservasStock;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final List<String> COLUMNAS_EXPORTACION = List.of(
+            "id", "sku", "nombre", "precio", "stockActual", "categoriaId", "categoriaNombre");
+
+    private static final int LIMITE_AUTOCOMPLETADO = 10;
+    private static final int TAMANIO_BLOQUE_INDICE = 1000;
+
+    private static final String INSERTAR_PRODUCTO = "INSERT INTO productos " +
+            "(sku, nombre, precio, stock_actual, categoria_id, version) VALUES (?, ?, ?, ?, ?, 0)";
+
+    @Value("${inventario.stock.actualizacion-atomica:true}")
+    private boolean actualizacionAtomica;
+
+    @Value("${inventario.productos.carga-masiva.tamanio-bloque:500}")
+    private int tamanioBloqueCarga;
 
     public ProductoService(ProductoRepository productoRepository,
-                           CategoriaRepository categoriaRepository) {
+                           CategoriaRepository categoriaRepository,
+                           IndiceBusquedaProductos indiceBusqueda,
+                           ValoracionInventario valoracionInventario,
+                           CacheProductos cacheProductos,
+                           StockCaliente stockCaliente,
+                           ReservasStock reservasStock,
+                           ApplicationEventPublisher eventPublisher,
+                           ObjectMapper objectMapper,
+                           PlatformTransactionManager transactionManager,
+                           JdbcTemplate jdbcTemplate) {
         this.productoRepository = productoRepository;
         this.categoriaRepository = categoriaRepository;
+        this.indiceBusqueda = indiceBusqueda;
+        this.valoracionInventario = valoracionInventario;
+        this.cacheProductos = cacheProductos;
+        this.stockCaliente = stockCaliente;
+        this.reservasStock = reservasStock;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     /**
@@ -57,31 +140,68 @@ public class ProductoService {
         producto.setCategoria(categoria);
 
         Producto productoGuardado = productoRepository.save(producto);
-        return convertirADTO(productoGuardado);
+        return notificarGuardado(null, productoGuardado);
     }
 
     /**
-     * Obtener producto por ID
+     * Crear o actualizar productos en bloque (por SKU) desde un arreglo JSON o NDJSON.
+     *
+     * La entrada se lee de forma incremental y se procesa en bloques, cada uno en su
+     * propia transacción: SKU y categorías se resuelven con una consulta por bloque y
+     * tanto las altas como las actualizaciones salen en lotes JDBC. Un error de datos en una fila
+     * solo afecta a esa fila; un error de base de datos marca todo su bloque como fallido.
+     * Los bloques anteriores a un error de formato en la entrada quedan guardados.
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CargaMasivaResponseDTO cargarProductosMasivo(InputStream entrada) throws IOException {
+        CargaMasivaResponseDTO respuesta = new CargaMasivaResponseDTO();
+
+        try (MappingIterator<ProductoDTO> filas = objectMapper.readerFor(ProductoDTO.class).readValues(entrada)) {
+            List<ProductoDTO> bloque = new ArrayList<>(tamanioBloqueCarga);
+            while (filas.hasNextValue()) {
+                bloque.add(filas.nextValue());
+                if (bloque.size() == tamanioBloqueCarga) {
+                    procesarBloqueCarga(bloque, respuesta);
+                    bloque.clear();
+                }
+            }
+            if (!bloque.isEmpty()) {
+                procesarBloqueCarga(bloque, respuesta);
+            }
+        }
+
+        return respuesta;
+    }
+
+    /**
+     * Obtener producto por ID (desde la caché si está disponible).
+     * Sin transacción propia: un acierto de caché no toma conexión del pool.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public ProductoDTO obtenerProductoPorId(Long id) {
-        Producto producto = productoRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(
-                        "Producto no encontrado con ID: " + id
-                ));
-        return convertirADTO(producto);
+        ProductoDTO producto = cacheProductos.obtenerPorId(id, productoId -> productoRepository.findById(productoId)
+                .map(this::convertirADTO)
+                .orElse(null));
+
+        if (producto == null) {
+            throw new EntityNotFoundException("Producto no encontrado con ID: " + id);
+        }
+        return producto;
     }
 
     /**
-     * Obtener producto por SKU
+     * Obtener producto por SKU (desde la caché si está disponible)
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public ProductoDTO obtenerProductoPorSku(String sku) {
-        Producto producto = productoRepository.findBySku(sku)
-                .orElseThrow(() -> new EntityNotFoundException(
-                        "Producto no encontrado con SKU: " + sku
-                ));
-        return convertirADTO(producto);
+        ProductoDTO producto = cacheProductos.obtenerPorSku(sku, skuBuscado -> productoRepository.findBySku(skuBuscado)
+                .map(this::convertirADTO)
+                .orElse(null));
+
+        if (producto == null) {
+            throw new EntityNotFoundException("Producto no encontrado con SKU: " + sku);
+        }
+        return producto;
     }
 
     /**
@@ -92,6 +212,7 @@ public class ProductoService {
                 .orElseThrow(() -> new EntityNotFoundException(
                         "Producto no encontrado con ID: " + id
                 ));
+        ProductoDTO anterior = convertirADTO(producto);
 
         // Validar SKU único si se cambia
         if (productoDTO.getSku() != null && !productoDTO.getSku().equals(producto.getSku())) {
@@ -111,6 +232,7 @@ public class ProductoService {
         }
 
         if (productoDTO.getStockActual() != null) {
+            ajustarStockCaliente(producto, productoDTO.getStockActual() - producto.getStockActual());
             producto.setStockActual(productoDTO.getStockActual());
         }
 
@@ -124,17 +246,19 @@ public class ProductoService {
         }
 
         Producto productoActualizado = productoRepository.save(producto);
-        return convertirADTO(productoActualizado);
+        return notificarGuardado(anterior, productoActualizado);
     }
 
     /**
      * Eliminar producto por ID
      */
     public void eliminarProducto(Long id) {
-        if (!productoRepository.existsById(id)) {
-            throw new EntityNotFoundException("Producto no encontrado con ID: " + id);
-        }
-        productoRepository.deleteById(id);
+        Producto producto = productoRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException(
+                        "Producto no encontrado con ID: " + id
+                ));
+        productoRepository.delete(producto);
+        eventPublisher.publishEvent(new ProductoEliminadoEvent(convertirADTO(producto)));
     }
 
     /**
@@ -177,6 +301,71 @@ public class ProductoService {
         return productos.map(this::convertirADTO);
     }
 
+    /**
+     * Listar productos por cursor (orden nombre, id) sin OFFSET ni COUNT.
+     * El costo de cada página es constante sin importar cuán profundo se recorra el catálogo.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ProductoDTO> listarProductosPorCursor(ProductoFilterDTO filtro, String cursor) {
+        if (!filtro.isPrecioFilterValid()) {
+            throw new IllegalArgumentException("El precio mínimo no puede ser mayor al precio máximo");
+        }
+        if (filtro.getSize() <= 0 || filtro.getSize() > 100) {
+            throw new IllegalArgumentException("El tamaño de página debe estar entre 1 y 100");
+        }
+
+        String nombreCursor = null;
+        Long idCursor = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] partes = decodificarCursor(cursor);
+            idCursor = Long.valueOf(partes[0]);
+            nombreCursor = partes[1];
+        }
+
+        // Se pide un elemento extra para saber si hay página siguiente
+        int size = filtro.getSize();
+        List<Producto> productos = productoRepository.buscarDespuesDeCursor(
+                nombreCursor,
+                idCursor,
+                filtro.hasNombreFilter() ? filtro.getNombre() : null,
+                filtro.getPrecioMin(),
+                filtro.getPrecioMax(),
+                filtro.getCategoriaId(),
+                Limit.of(size + 1)
+        );
+
+        boolean hasNext = productos.size() > size;
+        if (hasNext) {
+            productos = productos.subList(0, size);
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            Producto ultimo = productos.get(productos.size() - 1);
+            nextCursor = codificarCursor(ultimo.getId(), ultimo.getNombre());
+        }
+
+        List<ProductoDTO> contenido = productos.stream()
+                .map(this::convertirADTO)
+                .collect(Collectors.toList());
+
+        return new CursorPageDTO<>(contenido, size, hasNext, nextCursor);
+    }
+
+    /**
+     * Obtener productos con stock por debajo del umbral (consulta paginada sobre el índice de stock)
+     */
+    @Transactional(readOnly = true)
+    public Page<ProductoDTO> obtenerProductosBajoStock(Integer umbral, int page, int size) {
+        if (umbral == null || umbral < 0) {
+            throw new IllegalArgumentException("El umbral debe ser mayor o igual a 0");
+        }
+
+        Page<Producto> productos = productoRepository.findByStockActualLessThanOrderByStockActualAscIdAsc(
+                umbral, PageRequest.of(page, size));
+        return productos.map(this::convertirADTO);
+    }
+
     /**
      * Buscar productos por nombre (para autocompletado)
      */
@@ -186,10 +375,15 @@ public class ProductoService {
             return List.of();
         }
 
+        // Responder desde el índice en memoria cuando ya está cargado
+        if (indiceBusqueda.isListo()) {
+            return indiceBusqueda.buscar(nombre, LIMITE_AUTOCOMPLETADO);
+        }
+
         List<Producto> productos = productoRepository.findAll()
                 .stream()
                 .filter(p -> p.getNombre().toLowerCase().contains(nombre.toLowerCase()))
-                .limit(10) // Limitar resultados para autocompletado
+                .limit(LIMITE_AUTOCOMPLETADO)
                 .collect(Collectors.toList());
 
         return productos.stream()
@@ -205,14 +399,20 @@ public class ProductoService {
             throw new IllegalArgumentException("La cantidad debe ser mayor a 0");
         }
 
+        if (actualizacionAtomica) {
+            return aumentarStockAtomico(productoId, cantidad);
+        }
+
         Producto producto = productoRepository.findById(productoId)
                 .orElseThrow(() -> new EntityNotFoundException(
                         "Producto no encontrado con ID: " + productoId
                 ));
+        ProductoDTO anterior = convertirADTO(producto);
 
+        ajustarStockCaliente(producto, cantidad);
         producto.setStockActual(producto.getStockActual() + cantidad);
         Producto productoActualizado = productoRepository.save(producto);
-        return convertirADTO(productoActualizado);
+        return notificarGuardado(anterior, productoActualizado);
     }
 
     /**
@@ -223,6 +423,10 @@ public class ProductoService {
             throw new IllegalArgumentException("La cantidad debe ser mayor a 0");
         }
 
+        if (actualizacionAtomica) {
+            return disminuirStockAtomico(productoId, cantidad);
+        }
+
         Producto producto = productoRepository.findById(productoId)
                 .orElseThrow(() -> new EntityNotFoundException(
                         "Producto no encontrado con ID: " + productoId
@@ -235,36 +439,385 @@ public class ProductoService {
             );
         }
 
+        ProductoDTO anterior = convertirADTO(producto);
+        ajustarStockCaliente(producto, -cantidad);
         producto.setStockActual(producto.getStockActual() - cantidad);
         Producto productoActualizado = productoRepository.save(producto);
-        return convertirADTO(productoActualizado);
+        return notificarGuardado(anterior, productoActualizado);
     }
 
     /**
-     * Verificar disponibilidad de stock
+     * Aumentar stock con un UPDATE en la base de datos: una reposición concurrente con
+     * ventas no falla por @Version, porque el UPDATE suma sobre el valor vigente.
      */
-    @Transactional(readOnly = true)
-    public boolean verificarStockDisponible(Long productoId, Integer cantidad) {
+    private ProductoDTO aumentarStockAtomico(Long productoId, Integer cantidad) {
+        int filasAfectadas = productoRepository.sumarStock(productoId, cantidad);
+        if (filasAfectadas == 0) {
+            throw new EntityNotFoundException("Producto no encontrado con ID: " + productoId);
+        }
+
+        // Se lee después del UPDATE para devolver el stock ya sumado
         Producto producto = productoRepository.findById(productoId)
                 .orElseThrow(() -> new EntityNotFoundException(
                         "Producto no encontrado con ID: " + productoId
                 ));
 
-        return producto.getStockActual() >= cantidad;
+        ajustarStockCaliente(producto, cantidad);
+
+        // El estado anterior es el leído menos la cantidad sumada por el UPDATE
+        ProductoDTO anterior = convertirADTO(producto);
+        anterior.setStockActual(producto.getStockActual() - cantidad);
+        return notificarGuardado(anterior, producto);
     }
 
     /**
-     * Obtener valor total del inventario
+     * Disminuir stock con un UPDATE condicionado en la base de datos.
+     * El resultado se decide por el número de filas afectadas, sin conflictos de @Version.
      */
-    @Transactional(readOnly = true)
+    private ProductoDTO disminuirStockAtomico(Long productoId, Integer cantidad) {
+        // Ajuste manual de stock: no es una venta, no descuenta lo retenido por reservas.
+        // En un producto caliente la fila va por detrás de las ventas: decide el libro (abajo)
+        int filasAfectadas = productoRepository.descontarStockSiDisponible(productoId, cantidad, 0);
+
+        // Se lee después del UPDATE para devolver el stock ya descontado
+        Producto producto = productoRepository.findById(productoId)
+                .orElseThrow(() -> new EntityNotFoundException(
+                        "Producto no encontrado con ID: " + productoId
+                ));
+
+        if (filasAfectadas == 0) {
+            throw new IllegalArgumentException(
+                    "Stock insuficiente. Disponible: " + producto.getStockActual() +
+                            ", Solicitado: " + cantidad
+            );
+        }
+
+        // Si el libro no cubre la baja, la excepción deshace el UPDATE
+        ajustarStockCaliente(producto, -cantidad);
+
+        // El estado anterior es el leído más la cantidad descontada por el UPDATE
+        ProductoDTO anterior = convertirADTO(producto);
+        anterior.setStockActual(producto.getStockActual() + cantidad);
+        return notificarGuardado(anterior, producto);
+    }
+
+    /**
+     * Verificar disponibilidad de stock
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public boolean verificarStockDisponible(Long productoId, Integer cantidad) {
+        return obtenerStockDisponible(productoId) >= cantidad;
+    }
+
+    /**
+     * Stock que se puede vender ahora: stock actual menos lo retenido por reservas activas.
+     * Sale de la caché de productos (o del stock caliente, que va por delante de la tabla)
+     * y del contador de reservas, sin consultar la base de datos en un acierto de caché.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public int obtenerStockDisponible(Long productoId) {
+        ProductoDTO producto = obtenerProductoPorId(productoId);
+        Integer enMemoria = stockCaliente.obtenerDisponible(productoId);
+        int stock = enMemoria != null ? enMemoria : producto.getStockActual();
+        return stock - reservasStock.obtenerRetenido(productoId);
+    }
+
+    /**
+     * Obtener valor total del inventario (de memoria: no abre transacción ni toma conexión)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public BigDecimal calcularValorTotalInventario() {
-        List<Producto> productos = productoRepository.findAll();
-        return productos.stream()
-                .filter(p -> p.getPrecio() != null && p.getStockActual() != null)
-                .map(p -> p.getPrecio().multiply(new BigDecimal(p.getStockActual())))
+        if (valoracionInventario.isInicializada()) {
+            return valoracionInventario.getValorTotal();
+        }
+
+        // Antes de la primera reconciliación se suma en la base de datos
+        return productoRepository.sumarValorInventarioPorCategoria()
+                .stream()
+                .filter(fila -> fila[1] != null)
+                .map(fila -> (BigDecimal) fila[1])
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
 
+    /**
+     * Obtener valor del inventario por categoría
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Map<Long, BigDecimal> calcularValorInventarioPorCategoria() {
+        if (!valoracionInventario.isInicializada()) {
+            valoracionInventario.reconciliar();
+        }
+        return valoracionInventario.getValorPorCategoria();
+    }
+
+    /**
+     * Exportar el catálogo completo en NDJSON o CSV escribiendo fila por fila en la salida.
+     * La memoria usada no depende del tamaño del catálogo: las filas llegan del stream
+     * de la base de datos y se escriben sin acumularse. Devuelve la cantidad de filas.
+     */
+    @Transactional(readOnly = true)
+    public long exportarCatalogo(OutputStream salida, FormatoExportacion formato) throws IOException {
+        try (Stream<ProductoDTO> productos = productoRepository.streamCatalogo();
+             EscritorExportacion escritor = new EscritorExportacion(salida, formato, objectMapper, COLUMNAS_EXPORTACION)) {
+            productos.forEach(p -> escritor.escribir(p, List.of(
+                    p.getId(), p.getSku(), p.getNombre(), p.getPrecio(), p.getStockActual(),
+                    p.getCategoriaId() != null ? p.getCategoriaId() : "",
+                    p.getCategoriaNombre() != null ? p.getCategoriaNombre() : "")));
+            return escritor.getFilas();
+        }
+    }
+
+    /**
+     * Cargar el índice de búsqueda al arrancar, recorriendo el catálogo por bloques de ID.
+     * Sin transacción envolvente para no acumular entidades en un solo contexto.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void cargarIndiceBusqueda() {
+        indiceBusqueda.iniciarCarga();
+
+        long ultimoId = 0L;
+        Slice<Producto> bloque;
+        do {
+            bloque = productoRepository.findByIdGreaterThanOrderByIdAsc(
+                    ultimoId, PageRequest.of(0, TAMANIO_BLOQUE_INDICE));
+            indiceBusqueda.cargarBloque(bloque.getContent()
+                    .stream()
+                    .map(this::convertirADTO)
+                    .collect(Collectors.toList()));
+
+            if (bloque.hasContent()) {
+                ultimoId = bloque.getContent().get(bloque.getNumberOfElements() - 1).getId();
+            }
+        } while (bloque.hasNext());
+
+        indiceBusqueda.finalizarCarga();
+    }
+
+    /**
+     * Cursor opaco: Base64 URL de "id:nombre" del último producto devuelto
+     */
+    private String codificarCursor(Long id, String nombre) {
+        String valor = id + ":" + nombre;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodificarCursor(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = valor.split(":", 2);
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            Long.parseLong(partes[0]);
+            return partes;
+        } catch (IllegalArgumentException e) {
+            // Incluye NumberFormatException y errores de Base64
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+
+    /**
+     * Llevar al stock caliente el cambio que se escribe en la fila del producto
+     * (no hace nada si el producto no es caliente)
+     */
+    private void ajustarStockCaliente(Producto producto, int diferencia) {
+        stockCaliente.ajustar(Map.of(producto.getId(), diferencia), Map.of(producto.getId(), producto));
+    }
+
+    /**
+     * Convertir a DTO y avisar del cambio (índices y cachés se actualizan tras el commit)
+     */
+    private ProductoDTO notificarGuardado(ProductoDTO anterior, Producto producto) {
+        ProductoDTO dto = convertirADTO(producto);
+        eventPublisher.publishEvent(new ProductoGuardadoEvent(anterior, dto));
+        return dto;
+    }
+
+    private void procesarBloqueCarga(List<ProductoDTO> bloque, CargaMasivaResponseDTO respuesta) {
+        int primeraFila = respuesta.getTotal() + 1;
+        List<ResultadoFilaDTO> resultados;
+        try {
+            resultados = transactionTemplate.execute(estado -> guardarBloqueCarga(bloque, primeraFila));
+        } catch (DataAccessException | TransactionException e) {
+            resultados = filasConError(bloque, primeraFila, "Bloque no guardado: " + e.getMostSpecificCause().getMessage());
+        } catch (StockInsuficienteException e) {
+            resultados = filasConError(bloque, primeraFila, "Bloque no guardado: " + e.getMessage());
+        }
+        resultados.forEach(respuesta::addFila);
+    }
+
+    private List<ResultadoFilaDTO> filasConError(List<ProductoDTO> bloque, int primeraFila, String mensaje) {
+        List<ResultadoFilaDTO> resultados = new ArrayList<>(bloque.size());
+        for (int i = 0; i < bloque.size(); i++) {
+            resultados.add(new ResultadoFilaDTO(primeraFila + i, bloque.get(i).getSku(), null, Resultado.ERROR, mensaje));
+        }
+        return resultados;
+    }
+
+    private List<ResultadoFilaDTO> guardarBloqueCarga(List<ProductoDTO> bloque, int primeraFila) {
+        // Resolver SKU y categorías del bloque con una consulta cada uno
+        Set<String> skus = bloque.stream()
+                .map(ProductoDTO::getSku)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<Long> categoriaIds = bloque.stream()
+                .map(ProductoDTO::getCategoriaId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Map<String, Producto> productosPorSku = new HashMap<>(productoRepository.findBySkuIn(skus)
+                .stream()
+                .collect(Collectors.toMap(Producto::getSku, Function.identity())));
+        Map<Long, Categoria> categorias = categoriaRepository.findAllById(categoriaIds)
+                .stream()
+                .collect(Collectors.toMap(Categoria::getId, Function.identity()));
+
+        // Estado previo de cada SKU tocado (null si se crea en este bloque), en orden de llegada
+        Map<String, ProductoDTO> anteriores = new LinkedHashMap<>();
+        List<Producto> productoPorFila = new ArrayList<>(bloque.size());
+        List<ResultadoFilaDTO> resultados = new ArrayList<>(bloque.size());
+
+        for (int i = 0; i < bloque.size(); i++) {
+            ProductoDTO fila = bloque.get(i);
+            String error = validarFilaCarga(fila, categorias);
+            if (error != null) {
+                productoPorFila.add(null);
+                resultados.add(new ResultadoFilaDTO(primeraFila + i, fila.getSku(), null, Resultado.ERROR, error));
+                continue;
+            }
+
+            Producto producto = productosPorSku.get(fila.getSku());
+            if (producto == null) {
+                producto = new Producto();
+                producto.setSku(fila.getSku());
+                producto.setStockActual(0);
+                productosPorSku.put(fila.getSku(), producto);
+            }
+            boolean primeraVezEnBloque = !anteriores.containsKey(fila.getSku());
+            if (primeraVezEnBloque) {
+                anteriores.put(fila.getSku(), producto.getId() != null ? convertirADTO(producto) : null);
+            }
+            Resultado resultado = primeraVezEnBloque && anteriores.get(fila.getSku()) == null
+                    ? Resultado.CREADO : Resultado.ACTUALIZADO;
+
+            producto.setNombre(fila.getNombre());
+            producto.setPrecio(fila.getPrecio());
+            if (fila.getStockActual() != null) {
+                producto.setStockActual(fila.getStockActual());
+            }
+            producto.setCategoria(categorias.get(fila.getCategoriaId()));
+
+            productoPorFila.add(producto);
+            resultados.add(new ResultadoFilaDTO(primeraFila + i, fila.getSku(), null, resultado, null));
+        }
+
+        // Altas en un lote JDBC con las claves generadas (Hibernate inserta de a una con IDENTITY)
+        // y actualizaciones en lotes JDBC de Hibernate
+        List<Producto> guardados = anteriores.keySet().stream().map(productosPorSku::get).collect(Collectors.toList());
+
+        // Productos calientes: el libro aparta las bajas antes de escribir (sin stock, falla el bloque)
+        Map<Long, Integer> diferencias = new HashMap<>();
+        Map<Long, Producto> existentes = new HashMap<>();
+        for (Map.Entry<String, ProductoDTO> entry : anteriores.entrySet()) {
+            if (entry.getValue() != null) {
+                Producto producto = productosPorSku.get(entry.getKey());
+                diferencias.put(producto.getId(), producto.getStockActual() - entry.getValue().getStockActual());
+                existentes.put(producto.getId(), producto);
+            }
+        }
+        stockCaliente.ajustar(diferencias, existentes);
+
+        Map<Boolean, List<Producto>> porExistencia = guardados.stream()
+                .collect(Collectors.partitioningBy(producto -> producto.getId() != null));
+        insertarNuevos(porExistencia.get(false));
+        productoRepository.saveAll(porExistencia.get(true));
+        productoRepository.flush();
+
+        for (int i = 0; i < resultados.size(); i++) {
+            if (productoPorFila.get(i) != null) {
+                resultados.get(i).setId(productoPorFila.get(i).getId());
+            }
+        }
+        for (Producto producto : guardados) {
+            notificarGuardado(anteriores.get(producto.getSku()), producto);
+        }
+
+        return resultados;
+    }
+
+    /**
+     * Insertar productos nuevos en un solo lote (un INSERT de varias filas con
+     * rewriteBatchedStatements en MySQL) y asignarles el ID generado.
+     * Usa la conexión de la transacción en curso; los productos no quedan administrados.
+     */
+    private void insertarNuevos(List<Producto> nuevos) {
+        if (nuevos.isEmpty()) {
+            return;
+        }
+
+        GeneratedKeyHolder claves = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERTAR_PRODUCTO, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Producto producto = nuevos.get(i);
+                        ps.setString(1, producto.getSku());
+                        ps.setString(2, producto.getNombre());
+                        ps.setBigDecimal(3, producto.getPrecio());
+                        ps.setInt(4, producto.getStockActual());
+                        if (producto.getCategoria() != null) {
+                            ps.setLong(5, producto.getCategoria().getId());
+                        } else {
+                            ps.setNull(5, Types.BIGINT);
+                        }
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return nuevos.size();
+                    }
+                }, claves);
+
+        List<Map<String, Object>> filas = claves.getKeyList();
+        if (filas.size() != nuevos.size()) {
+            throw new IncorrectResultSizeDataAccessException(
+                    "El lote de altas no devolvió una clave por producto", nuevos.size(), filas.size());
+        }
+        for (int i = 0; i < nuevos.size(); i++) {
+            nuevos.get(i).setId(((Number) filas.get(i).values().iterator().next()).longValue());
+            nuevos.get(i).setVersion(0L);
+        }
+    }
+
+    private String validarFilaCarga(ProductoDTO fila, Map<Long, Categoria> categorias) {
+        if (fila.getSku() == null || fila.getSku().isBlank()) {
+            return "El SKU es requerido";
+        }
+        if (fila.getSku().length() > 50) {
+            return "El SKU no puede superar 50 caracteres";
+        }
+        if (fila.getNombre() == null || fila.getNombre().isBlank()) {
+            return "El nombre es requerido";
+        }
+        if (fila.getNombre().length() > 200) {
+            return "El nombre no puede superar 200 caracteres";
+        }
+        if (fila.getPrecio() == null || fila.getPrecio().signum() < 0) {
+            return "El precio es requerido y no puede ser negativo";
+        }
+        if (fila.getStockActual() != null && fila.getStockActual() < 0) {
+            return "El stock no puede ser negativo";
+        }
+        if (fila.getCategoriaId() == null) {
+            return "La categoría es requerida";
+        }
+        if (!categorias.containsKey(fila.getCategoriaId())) {
+            return "Categoría no encontrada con ID: " + fila.getCategoriaId();
+        }
+        return null;
+    }
+
     /**
      * Convertir Producto a ProductoDTO
      */
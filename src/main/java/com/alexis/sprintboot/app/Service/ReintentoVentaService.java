@@ -0,0 +1,112 @@
+package com.alexis.sprintboot.app.Service;
+
+import com.alexis.sprintboot.app.DTO.VentaRequestDTO;
+import com.alexis.sprintboot.app.DTO.VentaResponseDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Reintenta la transacción de venta cuando falla por concurrencia
+ * (conflicto de @Version, deadlock o timeout de bloqueo).
+ *
+ * Cada reintento abre una transacción nueva a través del proxy de VentaService.
+ * La espera usa backoff exponencial con jitter completo para no sincronizar a los
+ * clientes que chocaron en la misma fila.
+ */
+@Service
+public class ReintentoVentaService {
+
+    private final VentaService ventaService;
+    private final MeterRegistry meterRegistry;
+    private final Counter contadorReintentos;
+    private final Counter contadorAgotados;
+
+    @Value("${inventario.ventas.reintentos.max-intentos:4}")
+    private int maxIntentos;
+
+    @Value("${inventario.ventas.reintentos.backoff-inicial-ms:10}")
+    private long backoffInicialMs;
+
+    @Value("${inventario.ventas.reintentos.backoff-maximo-ms:200}")
+    private long backoffMaximoMs;
+
+    public ReintentoVentaService(VentaService ventaService, MeterRegistry meterRegistry) {
+        this.ventaService = ventaService;
+        this.meterRegistry = meterRegistry;
+        this.contadorReintentos = Counter.builder("ventas.reintentos")
+                .description("Reintentos de venta por conflicto de concurrencia")
+                .register(meterRegistry);
+        this.contadorAgotados = Counter.builder("ventas.reintentos.agotados")
+                .description("Ventas que fallaron tras agotar los reintentos")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Procesar una venta reintentando ante conflictos de concurrencia
+     */
+    public VentaResponseDTO procesarVenta(VentaRequestDTO ventaRequest) {
+        return ejecutarConReintentos(() -> ventaService.procesarVenta(ventaRequest));
+    }
+
+    /**
+     * Ejecutar una transacción de venta de VentaService reintentando ante conflictos de concurrencia
+     */
+    public <T> T ejecutarConReintentos(Supplier<T> transaccion) {
+        int intento = 1;
+        while (true) {
+            long inicio = System.nanoTime();
+            try {
+                T resultado = transaccion.get();
+                registrarIntento(intento, "ok", inicio);
+                return resultado;
+
+            } catch (ConcurrencyFailureException e) {
+                registrarIntento(intento, "conflicto", inicio);
+
+                if (intento >= maxIntentos) {
+                    contadorAgotados.increment();
+                    throw e;
+                }
+
+                contadorReintentos.increment();
+                esperar(intento);
+                intento++;
+
+            } catch (RuntimeException e) {
+                registrarIntento(intento, "error", inicio);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Backoff exponencial con jitter completo: espera aleatoria en [0, min(maximo, inicial * 2^(intento-1))]
+     */
+    private void esperar(int intento) {
+        long techo = Math.min(backoffMaximoMs, backoffInicialMs << Math.min(intento - 1, 20));
+        long espera = ThreadLocalRandom.current().nextLong(techo + 1);
+        try {
+            Thread.sleep(espera);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reintento de venta interrumpido", e);
+        }
+    }
+
+    private void registrarIntento(int intento, String resultado, long inicioNanos) {
+        Timer.builder("ventas.intento")
+                .description("Duración de cada intento de la transacción de venta")
+                .tag("intento", String.valueOf(intento))
+                .tag("resultado", resultado)
+                .register(meterRegistry)
+                .record(System.nanoTime() - inicioNanos, TimeUnit.NANOSECONDS);
+    }
+}
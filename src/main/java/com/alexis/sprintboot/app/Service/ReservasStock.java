@@ -0,0 +1,269 @@
+package com.alexis.sprintboot.app.Service;
+
+import com.alexis.sprintboot.app.Exception.StockInsuficienteException;
+import com.alexis.sprintboot.app.Model.Producto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reservas de stock con vencimiento para carritos en curso.
+ *
+ * Cada reserva retiene cantidades por producto hasta que se confirma como venta,
+ * se libera o vence. Lo retenido se lleva en un contador por producto, así el stock
+ * disponible (stock menos reservas activas) se calcula en O(1) sin consultar la base.
+ * Los vencimientos los dispara una rueda temporal en memoria (un hilo, una ranura por
+ * tick) en lugar de buscar reservas vencidas en una tabla.
+ *
+ * Reservas y ventas se ordenan con el bloqueo de la fila del producto: la reserva se
+ * crea con la fila bloqueada y la venta vuelve a comparar lo retenido con el stock
+ * después de su UPDATE, antes de soltar la fila. Las cantidades de productos calientes
+ * no usan el contador: se apartan directamente en StockCaliente, del que venden las ventas.
+ *
+ * Las reservas viven en memoria: al reiniciar la aplicación se pierden y el stock
+ * retenido vuelve a estar disponible.
+ */
+@Component
+public class ReservasStock {
+
+    /**
+     * Reserva activa: cantidades por producto (ordenadas por ID), las que se apartaron
+     * en StockCaliente y su vencimiento
+     */
+    public record Reserva(String id, SortedMap<Long, Integer> cantidades, SortedMap<Long, Integer> calientes,
+                          LocalDateTime creadaEn, LocalDateTime expiraEn) {
+
+        /**
+         * Cantidad que esta reserva suma al contador de lo retenido de un producto
+         */
+        public int cantidad(Long productoId) {
+            return calientes.containsKey(productoId) ? 0 : cantidades.getOrDefault(productoId, 0);
+        }
+    }
+
+    private final StockCaliente stockCaliente;
+
+    private final Map<String, Reserva> activas = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicInteger> retenidoPorProducto = new ConcurrentHashMap<>();
+    private final RuedaTemporal<Reserva> rueda;
+    private final Duration ttl;
+
+    private final Counter contadorCreadas;
+    private final Counter contadorConfirmadas;
+    private final Counter contadorVencidas;
+
+    public ReservasStock(StockCaliente stockCaliente,
+                         MeterRegistry meterRegistry,
+                         @Value("${inventario.reservas.ttl-segundos:600}") long ttlSegundos,
+                         @Value("${inventario.reservas.tick-ms:100}") long tickMs,
+                         @Value("${inventario.reservas.ranuras:512}") int ranuras) {
+        this.stockCaliente = stockCaliente;
+        this.ttl = Duration.ofSeconds(ttlSegundos);
+        this.rueda = new RuedaTemporal<>("reservas-rueda", tickMs, ranuras, this::vencer);
+
+        Gauge.builder("reservas.activas", activas, Map::size)
+                .description("Reservas de stock activas")
+                .register(meterRegistry);
+        this.contadorCreadas = Counter.builder("reservas.resueltas")
+                .tag("resultado", "creada")
+                .register(meterRegistry);
+        this.contadorConfirmadas = Counter.builder("reservas.resueltas")
+                .tag("resultado", "confirmada")
+                .register(meterRegistry);
+        this.contadorVencidas = Counter.builder("reservas.resueltas")
+                .tag("resultado", "vencida")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        rueda.iniciar();
+    }
+
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        rueda.detener();
+    }
+
+    /**
+     * Cantidad retenida por reservas activas de un producto (O(1)).
+     * No incluye lo apartado en StockCaliente, que ya no figura como disponible allí.
+     */
+    public int obtenerRetenido(Long productoId) {
+        AtomicInteger retenido = retenidoPorProducto.get(productoId);
+        return retenido != null ? retenido.get() : 0;
+    }
+
+    /**
+     * Retener todas las cantidades o ninguna. Debe llamarse con las filas de los productos
+     * no calientes bloqueadas en la transacción actual (stockPorProducto es su stock
+     * vigente): cada uno se retiene solo si stock - retenido alcanza. Las cantidades
+     * calientes se apartan en StockCaliente. Si la transacción no confirma, la reserva
+     * se libera.
+     */
+    public Reserva crear(SortedMap<Long, Integer> cantidades, SortedMap<Long, Integer> calientes,
+                         Map<Long, Producto> productos, Map<Long, Integer> stockPorProducto) {
+        SortedMap<Long, Integer> retenidas = new TreeMap<>();
+        for (Map.Entry<Long, Integer> entry : cantidades.entrySet()) {
+            AtomicInteger retenido = retenidoPorProducto.computeIfAbsent(entry.getKey(), id -> new AtomicInteger());
+            int stock = stockPorProducto.get(entry.getKey());
+            int actual;
+            boolean retenida = false;
+            while ((actual = retenido.get()) + entry.getValue() <= stock) {
+                if (retenido.compareAndSet(actual, actual + entry.getValue())) {
+                    retenida = true;
+                    break;
+                }
+            }
+            if (!retenida) {
+                soltar(retenidas);
+                Producto producto = productos.get(entry.getKey());
+                throw StockInsuficienteException.crearConDetalles(
+                        producto.getSku(), producto.getNombre(), Math.max(stock - actual, 0), entry.getValue());
+            }
+            retenidas.put(entry.getKey(), entry.getValue());
+        }
+        try {
+            stockCaliente.retener(calientes, productos);
+        } catch (RuntimeException e) {
+            soltar(retenidas);
+            throw e;
+        }
+
+        SortedMap<Long, Integer> todas = new TreeMap<>(retenidas);
+        todas.putAll(calientes);
+        LocalDateTime ahora = LocalDateTime.now();
+        Reserva reserva = new Reserva(UUID.randomUUID().toString(),
+                Collections.unmodifiableSortedMap(todas), Collections.unmodifiableSortedMap(new TreeMap<>(calientes)),
+                ahora, ahora.plus(ttl));
+        activas.put(reserva.id(), reserva);
+        rueda.agendar(reserva, ttl.toMillis());
+        contadorCreadas.increment();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        liberar(reserva.id());
+                    }
+                }
+            });
+        }
+        return reserva;
+    }
+
+    /**
+     * Reserva activa (null si no existe, venció o ya se confirmó)
+     */
+    public Reserva obtener(String id) {
+        return activas.get(id);
+    }
+
+    /**
+     * Liberar una reserva antes de su vencimiento
+     */
+    public boolean liberar(String id) {
+        Reserva reserva = activas.remove(id);
+        if (reserva == null) {
+            return false;
+        }
+        devolver(reserva);
+        return true;
+    }
+
+    /**
+     * Tomar la reserva para confirmarla como venta en la transacción actual.
+     * Deja de estar activa (no vence ni se puede tomar dos veces) pero sus cantidades
+     * siguen retenidas hasta el commit; si la transacción no confirma, vuelve a estar activa.
+     * Las cantidades calientes se venden con StockCaliente.registrarRetenido.
+     */
+    public Reserva tomarParaVenta(String id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Confirmar una reserva requiere una transacción");
+        }
+        Reserva reserva = activas.remove(id);
+        if (reserva == null) {
+            throw new EntityNotFoundException("Reserva no encontrada o vencida: " + id);
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    // El stock ya se descontó: la retención deja de hacer falta
+                    soltarRetenido(reserva);
+                    contadorConfirmadas.increment();
+                } else {
+                    restaurar(reserva);
+                }
+            }
+        });
+        return reserva;
+    }
+
+    private void restaurar(Reserva reserva) {
+        long restanteMs = Duration.between(LocalDateTime.now(), reserva.expiraEn()).toMillis();
+        if (restanteMs <= 0) {
+            devolver(reserva);
+            contadorVencidas.increment();
+            return;
+        }
+        activas.put(reserva.id(), reserva);
+        rueda.agendar(reserva, restanteMs);
+    }
+
+    /**
+     * Llamado por la rueda al vencer el plazo; si la reserva ya se liberó o se tomó no hace nada
+     */
+    private void vencer(Reserva reserva) {
+        if (activas.remove(reserva.id(), reserva)) {
+            devolver(reserva);
+            contadorVencidas.increment();
+        }
+    }
+
+    /**
+     * Reserva que no se vendió: baja lo retenido y devuelve lo apartado en StockCaliente
+     */
+    private void devolver(Reserva reserva) {
+        soltarRetenido(reserva);
+        stockCaliente.devolver(reserva.calientes());
+    }
+
+    private void soltarRetenido(Reserva reserva) {
+        for (Long productoId : reserva.cantidades().keySet()) {
+            int cantidad = reserva.cantidad(productoId);
+            AtomicInteger retenido = retenidoPorProducto.get(productoId);
+            if (cantidad > 0 && retenido != null) {
+                retenido.addAndGet(-cantidad);
+            }
+        }
+    }
+
+    private void soltar(Map<Long, Integer> cantidades) {
+        for (Map.Entry<Long, Integer> entry : cantidades.entrySet()) {
+            AtomicInteger retenido = retenidoPorProducto.get(entry.getKey());
+            if (retenido != null) {
+                retenido.addAndGet(-entry.getValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.alexis.sprintboot.app.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Rueda temporal de vencimientos: un arreglo circular de ranuras de tickMs cada una.
+ * Agendar es O(1) (la ranura es el tick de vencimiento módulo la cantidad de ranuras);
+ * en cada tick el hilo recorre solo su ranura y dispara lo vencido. Los plazos más
+ * largos que una vuelta completa esperan en su ranura las vueltas que les faltan.
+ *
+ * Agendar y avanzar el tick comparten un bloqueo corto: una entrada nunca cae en la
+ * ranura que el hilo acaba de recorrer (esperaría una vuelta entera). Lo vencido se
+ * dispara fuera del bloqueo.
+ */
+final class RuedaTemporal<T> {
+
+    private record Entrada<T>(T elemento, long tickVencimiento) {
+    }
+
+    private final long tickNanos;
+    private final Queue<Entrada<T>>[] ranuras;
+    private final Consumer<T> alVencer;
+    private final String nombreHilo;
+    private final long inicioNanos = System.nanoTime();
+    private final ReentrantLock bloqueo = new ReentrantLock();
+    private long tickActual;
+    private volatile boolean activa;
+    private Thread hilo;
+
+    @SuppressWarnings("unchecked")
+    RuedaTemporal(String nombreHilo, long tickMs, int cantidadRanuras, Consumer<T> alVencer) {
+        this.nombreHilo = nombreHilo;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMs);
+        this.ranuras = new Queue[cantidadRanuras];
+        for (int i = 0; i < cantidadRanuras; i++) {
+            ranuras[i] = new ArrayDeque<>();
+        }
+        this.alVencer = alVencer;
+    }
+
+    void iniciar() {
+        activa = true;
+        hilo = new Thread(this::girar, nombreHilo);
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    void detener() throws InterruptedException {
+        activa = false;
+        hilo.interrupt();
+        hilo.join();
+    }
+
+    void agendar(T elemento, long plazoMs) {
+        long tick = (System.nanoTime() - inicioNanos + TimeUnit.MILLISECONDS.toNanos(plazoMs)) / tickNanos;
+        bloqueo.lock();
+        try {
+            // Nunca en una ranura que el hilo ya procesó
+            tick = Math.max(tick, tickActual + 1);
+            ranuras[(int) (tick % ranuras.length)].add(new Entrada<>(elemento, tick));
+        } finally {
+            bloqueo.unlock();
+        }
+    }
+
+    private void girar() {
+        while (activa) {
+            long siguiente = tickActual + 1;
+            long esperaNanos = inicioNanos + siguiente * tickNanos - System.nanoTime();
+            if (esperaNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(esperaNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+
+            List<T> vencidos = new ArrayList<>();
+            bloqueo.lock();
+            try {
+                // Desde aquí lo que se agende cae en ranuras posteriores
+                tickActual = siguiente;
+                Iterator<Entrada<T>> iterador = ranuras[(int) (siguiente % ranuras.length)].iterator();
+                while (iterador.hasNext()) {
+                    Entrada<T> entrada = iterador.next();
+                    if (entrada.tickVencimiento() <= siguiente) {
+                        iterador.remove();
+                        vencidos.add(entrada.elemento());
+                    }
+                }
+            } finally {
+                bloqueo.unlock();
+            }
+
+            for (T elemento : vencidos) {
+                try {
+                    alVencer.accept(elemento);
+                } catch (RuntimeException e) {
+                    System.err.println("Error al vencer en " + nombreHilo + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package com.alexis.sprintboot.app.Service;
+
+import com.alexis.sprintboot.app.DTO.ProductoDTO;
+import com.alexis.sprintboot.app.Event.ProductoEliminadoEvent;
+import com.alexis.sprintboot.app.Event.StockCalienteVolcadoEvent;
+import com.alexis.sprintboot.app.Exception.StockInsuficienteException;
+import com.alexis.sprintboot.app.Model.MovimientoStockPendiente;
+import com.alexis.sprintboot.app.Model.Producto;
+import com.alexis.sprintboot.app.Repository.MovimientoStockPendienteRepository;
+import com.alexis.sprintboot.app.Repository.ProductoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Stock en memoria de los productos calientes (promociones que concentran las ventas).
+ *
+ * Para los productos configurados, el stock disponible vive en este proceso repartido
+ * en franjas atómicas: una venta reserva sin bloqueos con compare-and-set y ninguna
+ * franja baja de cero, así que nunca se vende más de lo que hay. La venta no actualiza
+ * la fila del producto; inserta un movimiento pendiente en su propia transacción y un
+ * volcado periódico aplica un UPDATE por producto con la suma y borra esos movimientos.
+ *
+ * Al arrancar primero se vuelcan los movimientos que dejó la ejecución anterior y solo
+ * después se carga el stock desde productos; hasta entonces las ventas usan el camino
+ * normal contra la base de datos. El stock de un producto caliente pertenece a una sola
+ * instancia de la aplicación.
+ *
+ * Los cambios que escriben directamente la fila (reposición, ajuste manual, carga masiva)
+ * pasan por ajustar dentro de su transacción: así el libro y la tabla menos los movimientos
+ * pendientes nunca se separan, y el volcado no puede dejar la fila en negativo.
+ */
+@Component
+public class StockCaliente {
+
+    private static final int LOTE_VOLCADO = 1000;
+
+    private final ProductoRepository productoRepository;
+    private final MovimientoStockPendienteRepository movimientoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Counter contadorRechazadas;
+
+    private final Set<Long> productosConfigurados;
+    private final int franjas;
+    private final Map<Long, Cuenta> cuentas = new ConcurrentHashMap<>();
+
+    public StockCaliente(ProductoRepository productoRepository,
+                         MovimientoStockPendienteRepository movimientoRepository,
+                         PlatformTransactionManager transactionManager,
+                         ApplicationEventPublisher eventPublisher,
+                         MeterRegistry meterRegistry,
+                         @Value("${inventario.stock.caliente.productos:}") String productos,
+                         @Value("${inventario.stock.caliente.franjas:8}") int franjas) {
+        this.productoRepository = productoRepository;
+        this.movimientoRepository = movimientoRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // READ COMMITTED: el volcado no toma bloqueos de rango que frenen las ventas en curso
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.eventPublisher = eventPublisher;
+        this.franjas = franjas;
+
+        this.productosConfigurados = new TreeSet<>();
+        for (String id : productos.split(",")) {
+            if (!id.isBlank()) {
+                productosConfigurados.add(Long.valueOf(id.trim()));
+            }
+        }
+
+        this.contadorRechazadas = Counter.builder("stock.caliente.rechazadas")
+                .description("Reservas de productos calientes rechazadas por falta de stock")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Volcar lo pendiente de la ejecución anterior y cargar el stock de los productos calientes
+     */
+    @PostConstruct
+    public void iniciar() {
+        if (productosConfigurados.isEmpty()) {
+            return;
+        }
+        volcarPendientes();
+        for (Producto producto : productoRepository.findByIdInOrderByIdAsc(productosConfigurados)) {
+            cuentas.put(producto.getId(), new Cuenta(producto.getStockActual(), franjas));
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        volcarPendientes();
+    }
+
+    /**
+     * Si el stock del producto lo lleva este libro en memoria
+     */
+    public boolean esCaliente(Long productoId) {
+        return cuentas.containsKey(productoId);
+    }
+
+    /**
+     * Stock disponible en memoria (null si el producto no es caliente)
+     */
+    public Integer obtenerDisponible(Long productoId) {
+        Cuenta cuenta = cuentas.get(productoId);
+        return cuenta != null ? (int) cuenta.disponible() : null;
+    }
+
+    /**
+     * Reservar todas las líneas o ninguna y registrar los movimientos pendientes en la
+     * transacción actual. Si la transacción no confirma, las cantidades se devuelven.
+     * Devuelve el stock disponible de cada producto después de la reserva.
+     */
+    public Map<Long, Integer> reservar(SortedMap<Long, Integer> cantidades, Map<Long, Producto> productos) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("La reserva de stock caliente requiere una transacción");
+        }
+
+        retener(cantidades, productos);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    devolver(cantidades);
+                }
+            }
+        });
+        return registrarMovimientos(cantidades);
+    }
+
+    /**
+     * Apartar todas las cantidades o ninguna, sin registrar movimientos (reservas de
+     * carrito): lo apartado deja de estar disponible para las ventas hasta que se
+     * devuelve o se vende con registrarRetenido.
+     */
+    public void retener(SortedMap<Long, Integer> cantidades, Map<Long, Producto> productos) {
+        Map<Long, Integer> tomadas = new TreeMap<>();
+        for (Map.Entry<Long, Integer> entry : cantidades.entrySet()) {
+            Cuenta cuenta = cuentas.get(entry.getKey());
+            if (!cuenta.reservar(entry.getValue())) {
+                devolver(tomadas);
+                contadorRechazadas.increment();
+                Producto producto = productos.get(entry.getKey());
+                throw StockInsuficienteException.crearConDetalles(
+                        producto.getSku(), producto.getNombre(), (int) cuenta.disponible(), entry.getValue());
+            }
+            tomadas.put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Vender cantidades ya apartadas con retener: solo registra los movimientos pendientes
+     * en la transacción actual. Devuelve el stock disponible de cada producto.
+     */
+    public Map<Long, Integer> registrarRetenido(SortedMap<Long, Integer> cantidades) {
+        return registrarMovimientos(cantidades);
+    }
+
+    /**
+     * Aplicar al libro, dentro de la transacción que escribe la fila, los cambios de stock
+     * hechos directamente sobre productos (diferencia por producto; se ignoran los que no
+     * son calientes). Las bajas se apartan ya, todas o ninguna: si el libro no las cubre
+     * falla con StockInsuficienteException antes de tocar la fila. Si la transacción no
+     * confirma las bajas se devuelven; las subas se suman al libro al confirmar.
+     */
+    public void ajustar(Map<Long, Integer> diferencias, Map<Long, Producto> productos) {
+        SortedMap<Long, Integer> bajas = new TreeMap<>();
+        Map<Long, Integer> subas = new HashMap<>();
+        for (Map.Entry<Long, Integer> entry : diferencias.entrySet()) {
+            if (!esCaliente(entry.getKey()) || entry.getValue() == 0) {
+                continue;
+            }
+            if (entry.getValue() < 0) {
+                bajas.put(entry.getKey(), -entry.getValue());
+            } else {
+                subas.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (bajas.isEmpty() && subas.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("El ajuste de stock caliente requiere una transacción");
+        }
+
+        retener(bajas, productos);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                devolver(status == STATUS_COMMITTED ? subas : bajas);
+            }
+        });
+    }
+
+    /**
+     * Devolver cantidades apartadas que no se vendieron
+     */
+    public void devolver(Map<Long, Integer> cantidades) {
+        for (Map.Entry<Long, Integer> entry : cantidades.entrySet()) {
+            Cuenta cuenta = cuentas.get(entry.getKey());
+            if (cuenta != null) {
+                cuenta.liberar(entry.getValue());
+            }
+        }
+    }
+
+    private Map<Long, Integer> registrarMovimientos(SortedMap<Long, Integer> cantidades) {
+        LocalDateTime ahora = LocalDateTime.now();
+        Map<Long, Integer> stockPosterior = new HashMap<>();
+        for (Map.Entry<Long, Integer> entry : cantidades.entrySet()) {
+            movimientoRepository.registrar(entry.getKey(), entry.getValue(), ahora);
+            Cuenta cuenta = cuentas.get(entry.getKey());
+            stockPosterior.put(entry.getKey(), cuenta != null ? (int) cuenta.disponible() : 0);
+        }
+        return stockPosterior;
+    }
+
+    /**
+     * Aplicar a productos los movimientos pendientes: un UPDATE por producto con la suma
+     * y el borrado de esos movimientos en la misma transacción. Al confirmar se publica
+     * StockCalienteVolcadoEvent (lo que sigue el valor de la tabla se entera del cambio).
+     */
+    @Scheduled(
+            initialDelayString = "${inventario.stock.caliente.volcado-ms:500}",
+            fixedDelayString = "${inventario.stock.caliente.volcado-ms:500}"
+    )
+    public void volcarPendientes() {
+        Integer volcados;
+        do {
+            volcados = transactionTemplate.execute(estado -> {
+                List<MovimientoStockPendiente> movimientos =
+                        movimientoRepository.findByOrderByIdAsc(Limit.of(LOTE_VOLCADO));
+                if (movimientos.isEmpty()) {
+                    return 0;
+                }
+
+                SortedMap<Long, Integer> porProducto = new TreeMap<>();
+                List<Long> ids = new ArrayList<>(movimientos.size());
+                for (MovimientoStockPendiente movimiento : movimientos) {
+                    porProducto.merge(movimiento.getProductoId(), movimiento.getCantidad(), Integer::sum);
+                    ids.add(movimiento.getId());
+                }
+                for (Map.Entry<Long, Integer> entry : porProducto.entrySet()) {
+                    productoRepository.aplicarDescuentoStock(entry.getKey(), entry.getValue());
+                }
+                movimientoRepository.eliminarPorIds(ids);
+
+                List<ProductoDTO> productos = new ArrayList<>(porProducto.size());
+                for (Producto producto : productoRepository.findByIdInOrderByIdAsc(porProducto.keySet())) {
+                    productos.add(new ProductoDTO(producto.getId(), producto.getSku(), producto.getNombre(),
+                            producto.getPrecio(), producto.getStockActual(),
+                            producto.getCategoria() != null ? producto.getCategoria().getId() : null,
+                            producto.getCategoria() != null ? producto.getCategoria().getNombre() : null));
+                }
+                eventPublisher.publishEvent(new StockCalienteVolcadoEvent(porProducto, productos));
+                return movimientos.size();
+            });
+        } while (volcados != null && volcados == LOTE_VOLCADO);
+    }
+
+    @TransactionalEventListener
+    public void onProductoEliminado(ProductoEliminadoEvent event) {
+        cuentas.remove(event.getProductoId());
+    }
+
+    /**
+     * Stock de un producto repartido en franjas (una AtomicLong por franja, separadas
+     * para no compartir línea de caché). Cada reserva empieza en una franja al azar,
+     * así los hilos concurrentes rara vez compiten por la misma.
+     */
+    private static final class Cuenta {
+
+        // 8 longs = 64 bytes entre franjas
+        private static final int SEPARACION = 8;
+
+        private final AtomicLongArray valores;
+        private final int franjas;
+
+        Cuenta(long stock, int franjas) {
+            this.franjas = franjas;
+            this.valores = new AtomicLongArray(franjas * SEPARACION);
+            for (int i = 0; i < franjas; i++) {
+                valores.set(i * SEPARACION, stock / franjas + (i < stock % franjas ? 1 : 0));
+            }
+        }
+
+        long disponible() {
+            long total = 0;
+            for (int i = 0; i < franjas; i++) {
+                total += valores.get(i * SEPARACION);
+            }
+            return total;
+        }
+
+        /**
+         * Descontar de una sola franja si alguna alcanza; si no, juntar de varias.
+         * Si ni sumando todas alcanza, se devuelve lo tomado y la reserva falla.
+         */
+        boolean reservar(long cantidad) {
+            int inicio = ThreadLocalRandom.current().nextInt(franjas);
+            for (int k = 0; k < franjas; k++) {
+                int i = ((inicio + k) % franjas) * SEPARACION;
+                long actual;
+                while ((actual = valores.get(i)) >= cantidad) {
+                    if (valores.compareAndSet(i, actual, actual - cantidad)) {
+                        return true;
+                    }
+                }
+            }
+
+            long tomado = retirarHasta(cantidad);
+            if (tomado < cantidad) {
+                liberar(tomado);
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * Retirar hasta la cantidad pedida recorriendo las franjas; devuelve lo retirado
+         */
+        long retirarHasta(long cantidad) {
+            long tomado = 0;
+            for (int k = 0; k < franjas && tomado < cantidad; k++) {
+                int i = k * SEPARACION;
+                long actual;
+                while ((actual = valores.get(i)) > 0) {
+                    long parte = Math.min(actual, cantidad - tomado);
+                    if (valores.compareAndSet(i, actual, actual - parte)) {
+                        tomado += parte;
+                        break;
+                    }
+                }
+            }
+            return tomado;
+        }
+
+        void liberar(long cantidad) {
+            valores.addAndGet(ThreadLocalRandom.current().nextInt(franjas) * SEPARACION, cantidad);
+        }
+    }
+}
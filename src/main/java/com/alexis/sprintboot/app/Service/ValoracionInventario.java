@@ -0,0 +1,164 @@
+package com.alexis.sprintboot.app.Service;
+
+import com.alexis.sprintboot.app.DTO.ProductoDTO;
+import com.alexis.sprintboot.app.DTO.VentaResponseDTO;
+import com.alexis.sprintboot.app.Event.ProductoEliminadoEvent;
+import com.alexis.sprintboot.app.Event.ProductoGuardadoEvent;
+import com.alexis.sprintboot.app.Event.StockCalienteVolcadoEvent;
+import com.alexis.sprintboot.app.Event.VentaRegistradaEvent;
+import com.alexis.sprintboot.app.Repository.ProductoRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Valor del inventario (precio * stock) mantenido en memoria, global y por categoría.
+ *
+ * Se inicializa con una consulta agregada y después se actualiza con la diferencia
+ * que produce cada cambio confirmado en la tabla (alta, modificación, baja, venta,
+ * volcado del stock caliente). Las ventas de productos calientes no cambian la fila
+ * hasta el volcado, así que se descuentan con StockCalienteVolcadoEvent y no al vender.
+ *
+ * Una reconciliación periódica contra la tabla corrige cualquier desvío, por ejemplo
+ * cambios de precio concurrentes con una venta. La consulta corre con el lock de los
+ * eventos tomado y su resultado reemplaza los valores: ningún evento se aplica entre
+ * la lectura y el reemplazo. Solo un cambio confirmado justo antes de la consulta cuyo
+ * evento todavía no llegó al lock puede contarse dos veces (hasta la próxima reconciliación).
+ */
+@Component
+public class ValoracionInventario {
+
+    private final ProductoRepository productoRepository;
+    private final StockCaliente stockCaliente;
+    private final TransactionTemplate transactionTemplate;
+
+    // Las lecturas no toman el lock (no esperan a una reconciliación en curso)
+    private volatile BigDecimal valorTotal = BigDecimal.ZERO;
+    private final Map<Long, BigDecimal> valorPorCategoria = new ConcurrentHashMap<>();
+    private volatile boolean inicializada;
+
+    public ValoracionInventario(ProductoRepository productoRepository,
+                                StockCaliente stockCaliente,
+                                PlatformTransactionManager transactionManager) {
+        this.productoRepository = productoRepository;
+        this.stockCaliente = stockCaliente;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Solo lectura: la conexión se toma al abrir la transacción, antes del lock
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    public boolean isInicializada() {
+        return inicializada;
+    }
+
+    /**
+     * Valor total del inventario (O(1))
+     */
+    public BigDecimal getValorTotal() {
+        return valorTotal;
+    }
+
+    /**
+     * Valor del inventario de una categoría (O(1))
+     */
+    public BigDecimal getValorCategoria(Long categoriaId) {
+        return valorPorCategoria.getOrDefault(categoriaId, BigDecimal.ZERO);
+    }
+
+    /**
+     * Copia del valor por categoría (productos sin categoría solo cuentan en el total)
+     */
+    public Map<Long, BigDecimal> getValorPorCategoria() {
+        return new HashMap<>(valorPorCategoria);
+    }
+
+    /**
+     * Recalcular los totales desde la base de datos (arranque y reconciliación periódica)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+            initialDelayString = "${inventario.valoracion.reconciliacion-ms:300000}",
+            fixedDelayString = "${inventario.valoracion.reconciliacion-ms:300000}"
+    )
+    public void reconciliar() {
+        // Los eventos llegan después del commit con la conexión de su transacción todavía
+        // tomada: el lock se pide con la conexión de la consulta ya obtenida, si no, los
+        // eventos en espera podrían dejar el pool sin conexiones para la consulta
+        transactionTemplate.executeWithoutResult(estado -> {
+            synchronized (this) {
+                BigDecimal total = BigDecimal.ZERO;
+                Map<Long, BigDecimal> porCategoria = new HashMap<>();
+                for (Object[] fila : productoRepository.sumarValorInventarioPorCategoria()) {
+                    BigDecimal valor = fila[1] != null ? (BigDecimal) fila[1] : BigDecimal.ZERO;
+                    total = total.add(valor);
+                    if (fila[0] != null) {
+                        porCategoria.put((Long) fila[0], valor);
+                    }
+                }
+
+                valorPorCategoria.keySet().retainAll(porCategoria.keySet());
+                valorPorCategoria.putAll(porCategoria);
+                valorTotal = total;
+            }
+        });
+        inicializada = true;
+    }
+
+    @TransactionalEventListener
+    public void onProductoGuardado(ProductoGuardadoEvent event) {
+        if (event.getAnterior() != null) {
+            sumar(event.getAnterior().getCategoriaId(), valorDe(event.getAnterior()).negate());
+        }
+        sumar(event.getProducto().getCategoriaId(), valorDe(event.getProducto()));
+    }
+
+    @TransactionalEventListener
+    public void onProductoEliminado(ProductoEliminadoEvent event) {
+        sumar(event.getProducto().getCategoriaId(), valorDe(event.getProducto()).negate());
+    }
+
+    @TransactionalEventListener
+    public void onVentaRegistrada(VentaRegistradaEvent event) {
+        for (VentaResponseDTO.ItemVentaResponseDTO item : event.getVenta().getItems()) {
+            // Un producto caliente cambia en la tabla al volcarse (onStockCalienteVolcado)
+            if (stockCaliente.esCaliente(item.getProductoId())) {
+                continue;
+            }
+            sumar(event.getCategoriaId(item.getProductoId()), item.getSubtotal().negate());
+        }
+    }
+
+    @TransactionalEventListener
+    public void onStockCalienteVolcado(StockCalienteVolcadoEvent event) {
+        for (ProductoDTO producto : event.getProductos()) {
+            if (producto.getPrecio() == null) {
+                continue;
+            }
+            BigDecimal valor = producto.getPrecio().multiply(BigDecimal.valueOf(event.getCantidad(producto.getId())));
+            sumar(producto.getCategoriaId(), valor.negate());
+        }
+    }
+
+    private synchronized void sumar(Long categoriaId, BigDecimal delta) {
+        if (delta.signum() == 0) {
+            return;
+        }
+        valorTotal = valorTotal.add(delta);
+        if (categoriaId != null) {
+            valorPorCategoria.merge(categoriaId, delta, BigDecimal::add);
+        }
+    }
+
+    private BigDecimal valorDe(ProductoDTO producto) {
+        return producto.calcularValorInventario();
+    }
+}
@@ -1,5 +1,62 @@
 package com.alexis.sprintboot.app.Service;
 
+import com.alexis.sprintboot.app.DTO.CursorPageDTO;
+import com.alexis.sprintboot.app.DTO.EstadisticasVentasDTO;
+import com.alexis.sprintboot.app.DTO.FormatoExportacion;
+import com.alexis.sprintboot.app.DTO.LineaVentaExportacionDTO;
+import com.alexis.sprintboot.app.DTO.ReservaStockDTO;
+import com.alexis.sprintboot.app.DTO.VentaRequestDTO;
+import com.alexis.sprintboot.app.DTO.VentaResponseDTO;
+import com.alexis.sprintboot.app.Event.VentaRegistradaEvent;
+import com.alexis.sprintboot.app.Exception.StockInsuficienteException;
+import com.alexis.sprintboot.app.Model.DetalleVenta;
+import com.alexis.sprintboot.app.Model.Producto;
+import com.alexis.sprintboot.app.Model.ResumenVentas;
+import com.alexis.sprintboot.app.Model.Venta;
+import com.alexis.sprintboot.app.Repository.ProductoRepository;
+import com.alexis.sprintboot.app.Repository.ResumenVentasRepository;
+import com.alexis.sprintboot.app.Repository.VentaIdempotenteRepository;
+import com.alexis.sprintboot.app.Repository.VentaRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
 @Service
 @Transactional
 public class VentaService {
@@ -10,26 +67,377 @@ public class VentaService {
     @Autowired
     private VentaRepository ventaRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private EstadisticasVentas estadisticasVentas;
+
+    @Autowired
+    private ResumenVentasRepository resumenVentasRepository;
+
+    @Autowired
+    private VentaIdempotenteRepository ventaIdempotenteRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private StockCaliente stockCaliente;
+
+    @Autowired
+    private ReservasStock reservasStock;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${inventario.stock.actualizacion-atomica:true}")
+    private boolean actualizacionAtomica;
+
+    @Value("${inventario.ventas.total.usar-resumen-diario:true}")
+    private boolean totalDesdeResumenDiario;
+
+    private static final List<String> COLUMNAS_EXPORTACION = List.of(
+            "ventaId", "fechaVenta", "totalVenta", "productoId", "productoNombre",
+            "cantidad", "precioUnitario", "subtotal");
+
+    private static final String INSERTAR_VENTA = "INSERT INTO ventas (fecha_venta, total) VALUES (?, ?)";
+    private static final String INSERTAR_DETALLE = "INSERT INTO detalle_ventas " +
+            "(venta_id, producto_id, cantidad, precio_unitario) VALUES (?, ?, ?, ?)";
+
+    // Límites para rangos abiertos (dentro del rango de DATETIME de MySQL)
+    private static final LocalDateTime FECHA_MINIMA = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime FECHA_MAXIMA = LocalDateTime.of(9999, 1, 1, 0, 0);
+
     public VentaResponseDTO procesarVenta(VentaRequestDTO ventaRequest) {
+        return registrarVenta(ventaRequest, null);
+    }
+
+    /**
+     * Retener stock para un carrito en curso hasta que la reserva venza.
+     * Lo retenido se lleva en memoria (ReservasStock), pero se retiene con las filas de
+     * los productos bloqueadas en orden de ID: una venta concurrente que ya descontó
+     * se ve en el stock leído, y las que descuenten después ven la reserva.
+     * Las líneas de productos calientes se apartan en StockCaliente.
+     */
+    public ReservaStockDTO reservarStock(VentaRequestDTO ventaRequest) {
+        SortedMap<Long, Integer> cantidades = agruparCantidadesPorProducto(ventaRequest);
+        SortedMap<Long, Integer> calientes = separarCalientes(cantidades, null);
+
+        Map<Long, Producto> productos = new HashMap<>();
+        Map<Long, Integer> stockPorProducto = new HashMap<>();
+        if (!cantidades.isEmpty()) {
+            for (Producto producto : productoRepository.bloquearPorIdsEnOrden(cantidades.keySet())) {
+                productos.put(producto.getId(), producto);
+                stockPorProducto.put(producto.getId(), producto.getStockActual());
+            }
+        }
+        if (!calientes.isEmpty()) {
+            for (Producto producto : productoRepository.findByIdInOrderByIdAsc(calientes.keySet())) {
+                productos.put(producto.getId(), producto);
+            }
+        }
+        verificarExistentes(cantidades.keySet(), productos);
+        verificarExistentes(calientes.keySet(), productos);
+
+        return convertirAReservaStockDTO(reservasStock.crear(cantidades, calientes, productos, stockPorProducto));
+    }
+
+    /**
+     * Consultar una reserva activa
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public ReservaStockDTO obtenerReserva(String reservaId) {
+        ReservasStock.Reserva reserva = reservasStock.obtener(reservaId);
+        if (reserva == null) {
+            throw new EntityNotFoundException("Reserva no encontrada o vencida: " + reservaId);
+        }
+        return convertirAReservaStockDTO(reserva);
+    }
+
+    /**
+     * Liberar una reserva antes de su vencimiento
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void liberarReserva(String reservaId) {
+        if (!reservasStock.liberar(reservaId)) {
+            throw new EntityNotFoundException("Reserva no encontrada o vencida: " + reservaId);
+        }
+    }
+
+    /**
+     * Convertir una reserva en venta. Lo retenido por la propia reserva no cuenta como
+     * ocupado; si la venta no se confirma, la reserva vuelve a quedar activa.
+     */
+    public VentaResponseDTO confirmarReserva(String reservaId) {
+        ReservasStock.Reserva reserva = reservasStock.tomarParaVenta(reservaId);
+
+        VentaRequestDTO ventaRequest = new VentaRequestDTO();
+        for (Map.Entry<Long, Integer> entry : reserva.cantidades().entrySet()) {
+            ventaRequest.addItem(entry.getKey(), entry.getValue());
+        }
+        return registrarVenta(ventaRequest, reserva);
+    }
+
+    /**
+     * Procesar una venta con Idempotency-Key y devolver el JSON exacto de la respuesta.
+     * La clave se reserva antes de tocar el stock: una petición repetida que llegue
+     * mientras tanto (en este u otro nodo) queda esperando el bloqueo de la fila y
+     * falla por clave duplicada cuando esta transacción confirma, sin descontar stock.
+     */
+    public String procesarVentaIdempotente(VentaRequestDTO ventaRequest, String clave,
+                                           String huella, LocalDateTime expiraEn) {
+        ventaIdempotenteRepository.reservar(clave, huella, LocalDateTime.now(), expiraEn);
+
+        VentaResponseDTO venta = registrarVenta(ventaRequest, null);
+        String respuesta;
+        try {
+            respuesta = objectMapper.writeValueAsString(venta);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la venta", e);
+        }
+
+        ventaIdempotenteRepository.completar(clave, venta.getId(), respuesta);
+        return respuesta;
+    }
+
+    /**
+     * Registrar varias ventas en una sola transacción (escritura agrupada).
+     *
+     * Bloquea una vez, en orden de ID, todos los productos del lote y valida cada venta
+     * en orden de llegada contra el stock que dejaron las anteriores: la que no alcanza
+     * se rechaza sola sin afectar al resto. Cada producto recibe un único UPDATE con el
+     * total vendido y todo el lote se confirma con un solo commit. Los productos
+     * calientes no se bloquean: cada venta los reserva en StockCaliente.
+     * Devuelve un resultado por venta, en el mismo orden.
+     */
+    public List<EscritorVentasAgrupado.Resultado> registrarVentasAgrupadas(List<VentaRequestDTO> ventasRequest) {
+        SortedSet<Long> productoIds = new TreeSet<>();
+        for (VentaRequestDTO ventaRequest : ventasRequest) {
+            for (VentaRequestDTO.ItemVentaDTO item : ventaRequest.getItems()) {
+                productoIds.add(item.getProductoId());
+            }
+        }
+
+        // Los productos calientes se leen sin bloquear: su stock lo reserva StockCaliente
+        SortedSet<Long> calientesIds = new TreeSet<>();
+        for (Long productoId : productoIds) {
+            if (stockCaliente.esCaliente(productoId)) {
+                calientesIds.add(productoId);
+            }
+        }
+        productoIds.removeAll(calientesIds);
+
+        Map<Long, Producto> productos = new HashMap<>();
+        Map<Long, Integer> stockDisponible = new HashMap<>();
+        for (Producto producto : productoRepository.bloquearPorIdsEnOrden(productoIds)) {
+            productos.put(producto.getId(), producto);
+            stockDisponible.put(producto.getId(), producto.getStockActual());
+        }
+        if (!calientesIds.isEmpty()) {
+            for (Producto producto : productoRepository.findByIdInOrderByIdAsc(calientesIds)) {
+                productos.put(producto.getId(), producto);
+            }
+        }
+
+        EscritorVentasAgrupado.Resultado[] resultados = new EscritorVentasAgrupado.Resultado[ventasRequest.size()];
+        List<Integer> posiciones = new ArrayList<>();
+        List<Venta> aceptadas = new ArrayList<>();
+        List<Map<Long, Integer>> stockPosteriores = new ArrayList<>();
+        LocalDateTime fechaVenta = LocalDateTime.now();
+
+        for (int i = 0; i < ventasRequest.size(); i++) {
+            VentaRequestDTO ventaRequest = ventasRequest.get(i);
+            SortedMap<Long, Integer> cantidades = agruparCantidadesPorProducto(ventaRequest);
+            SortedMap<Long, Integer> calientes = separarCalientes(cantidades, null);
+
+            RuntimeException rechazo = validarContraStockDisponible(cantidades, productos, stockDisponible);
+            Map<Long, Integer> stockPosterior = new HashMap<>();
+            if (rechazo == null && !calientes.isEmpty()) {
+                try {
+                    stockPosterior.putAll(stockCaliente.reservar(calientes, productos));
+                } catch (StockInsuficienteException e) {
+                    rechazo = e;
+                }
+            }
+            if (rechazo != null) {
+                resultados[i] = EscritorVentasAgrupado.Resultado.rechazada(rechazo);
+                continue;
+            }
+
+            for (Map.Entry<Long, Integer> entry : cantidades.entrySet()) {
+                stockPosterior.put(entry.getKey(), stockDisponible.merge(entry.getKey(), -entry.getValue(), Integer::sum));
+            }
+
+            posiciones.add(i);
+            aceptadas.add(construirVenta(ventaRequest, productos, fechaVenta));
+            stockPosteriores.add(stockPosterior);
+        }
+
+        // Un UPDATE por producto con todo lo vendido en el lote (las filas siguen bloqueadas)
+        List<Producto> productosActualizados = new ArrayList<>();
+        for (Long productoId : productoIds) {
+            Integer restante = stockDisponible.get(productoId);
+            if (restante == null) {
+                continue;
+            }
+            Producto producto = productos.get(productoId);
+            int vendido = producto.getStockActual() - restante;
+            if (vendido > 0) {
+                producto.reducirStock(vendido);
+                productosActualizados.add(producto);
+            }
+        }
+        productoRepository.saveAll(productosActualizados);
+        insertarVentas(aceptadas);
+
+        for (int j = 0; j < aceptadas.size(); j++) {
+            VentaResponseDTO ventaResponse = convertirAVentaResponseDTO(aceptadas.get(j));
+            eventPublisher.publishEvent(new VentaRegistradaEvent(
+                    ventaResponse, categoriasDe(productos), stockPosteriores.get(j)));
+            resultados[posiciones.get(j)] = EscritorVentasAgrupado.Resultado.confirmada(ventaResponse);
+        }
+        return Arrays.asList(resultados);
+    }
+
+    /**
+     * Insertar las ventas del lote y sus detalles con dos lotes JDBC (con IDENTITY,
+     * saveAll haría un INSERT por fila) y asignarles los IDs generados.
+     * Usa la conexión de la transacción en curso; las ventas no quedan administradas.
+     */
+    private void insertarVentas(List<Venta> ventas) {
+        if (ventas.isEmpty()) {
+            return;
+        }
+
+        List<Long> ventaIds = insertarEnLote(INSERTAR_VENTA, ventas.size(), (ps, i) -> {
+            Venta venta = ventas.get(i);
+            ps.setTimestamp(1, Timestamp.valueOf(venta.getFechaVenta()));
+            ps.setBigDecimal(2, venta.getTotal());
+        });
+        List<DetalleVenta> detalles = new ArrayList<>();
+        for (int i = 0; i < ventas.size(); i++) {
+            ventas.get(i).setId(ventaIds.get(i));
+            detalles.addAll(ventas.get(i).getDetalles());
+        }
+
+        List<Long> detalleIds = insertarEnLote(INSERTAR_DETALLE, detalles.size(), (ps, i) -> {
+            DetalleVenta detalle = detalles.get(i);
+            ps.setLong(1, detalle.getVenta().getId());
+            ps.setLong(2, detalle.getProducto().getId());
+            ps.setInt(3, detalle.getCantidad());
+            ps.setBigDecimal(4, detalle.getPrecioUnitario());
+        });
+        for (int i = 0; i < detalles.size(); i++) {
+            detalles.get(i).setId(detalleIds.get(i));
+        }
+    }
+
+    private List<Long> insertarEnLote(String sql, int filas, FilaLote fila) {
+        GeneratedKeyHolder claves = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(sql, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        fila.asignar(ps, i);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return filas;
+                    }
+                }, claves);
+
+        List<Map<String, Object>> generadas = claves.getKeyList();
+        if (generadas.size() != filas) {
+            throw new IncorrectResultSizeDataAccessException(
+                    "El lote de ventas no devolvió una clave por fila", filas, generadas.size());
+        }
+        List<Long> ids = new ArrayList<>(filas);
+        for (Map<String, Object> generada : generadas) {
+            ids.add(((Number) generada.values().iterator().next()).longValue());
+        }
+        return ids;
+    }
+
+    @FunctionalInterface
+    private interface FilaLote {
+        void asignar(PreparedStatement ps, int i) throws SQLException;
+    }
+
+    /**
+     * Registrar una venta; con reserva, sus propias cantidades retenidas no cuentan como ocupadas.
+     *
+     * Lo retenido por otras reservas se descuenta del disponible en la validación (o en el
+     * propio UPDATE en modo atómico) y se vuelve a comparar con el stock resultante con la
+     * fila ya bloqueada por el UPDATE: una reserva creada entre la lectura y el UPDATE
+     * también queda cubierta.
+     */
+    private VentaResponseDTO registrarVenta(VentaRequestDTO ventaRequest, ReservasStock.Reserva reservaPropia) {
+        // Agrupar cantidades por producto, ordenadas por ID (orden fijo de bloqueo)
+        SortedMap<Long, Integer> cantidades = agruparCantidadesPorProducto(ventaRequest);
+
+        // Cargar todos los productos del carrito en una sola consulta
+        Map<Long, Producto> productos = cargarProductos(cantidades);
+
+        // Las líneas de productos calientes no tocan la fila del producto
+        SortedMap<Long, Integer> calientes = separarCalientes(cantidades, reservaPropia);
+
+        // Validar stock de todas las líneas antes de modificar nada
+        // (en modo atómico la validación la hace el propio UPDATE)
+        if (!actualizacionAtomica) {
+            for (Map.Entry<Long, Integer> entry : cantidades.entrySet()) {
+                Producto producto = productos.get(entry.getKey());
+                int disponible = producto.getStockActual() - retenidoAjeno(entry.getKey(), reservaPropia);
+                if (disponible < entry.getValue()) {
+                    throw crearStockInsuficiente(producto, Math.max(disponible, 0), entry.getValue());
+                }
+            }
+        }
+
+        // Las cantidades calientes de una reserva ya están apartadas en StockCaliente
+        Map<Long, Integer> stockCalientePosterior;
+        if (calientes.isEmpty()) {
+            stockCalientePosterior = Map.of();
+        } else if (reservaPropia != null) {
+            stockCalientePosterior = stockCaliente.registrarRetenido(calientes);
+        } else {
+            stockCalientePosterior = stockCaliente.reservar(calientes, productos);
+        }
+
+        Venta venta = construirVenta(ventaRequest, productos, LocalDateTime.now());
+
+        if (actualizacionAtomica) {
+            descontarStockAtomico(cantidades, productos, reservaPropia);
+        } else {
+            descontarStockOptimista(cantidades, productos);
+        }
+
+        Map<Long, Integer> stockPosterior = stockPosteriorDe(cantidades, productos);
+        validarRetenidoPosterior(cantidades, productos, stockPosterior, reservaPropia);
+
+        ventaRepository.save(venta);
+        stockPosterior.putAll(stockCalientePosterior);
+
+        VentaResponseDTO ventaResponse = convertirAVentaResponseDTO(venta);
+        eventPublisher.publishEvent(new VentaRegistradaEvent(
+                ventaResponse, categoriasDe(productos), stockPosterior));
+        return ventaResponse;
+    }
+
+    /**
+     * Armar la venta con sus detalles respetando el orden del carrito
+     */
+    private Venta construirVenta(VentaRequestDTO ventaRequest, Map<Long, Producto> productos,
+                                 LocalDateTime fechaVenta) {
         Venta venta = new Venta();
-        venta.setFechaVenta(LocalDateTime.now());
+        venta.setFechaVenta(fechaVenta);
         venta.setDetalles(new ArrayList<>());
 
         BigDecimal totalVenta = BigDecimal.ZERO;
-
-        // Validar stock y preparar detalles
         for (VentaRequestDTO.ItemVentaDTO item : ventaRequest.getItems()) {
-            Producto producto = productoRepository.findById(item.getProductoId())
-                    .orElseThrow(() -> new EntityNotFoundException("Producto no encontrado"));
+            Producto producto = productos.get(item.getProductoId());
 
-            // Verificar stock con bloqueo optimista
-            if (producto.getStockActual() < item.getCantidad()) {
-                throw new StockInsuficienteException(
-                        "Stock insuficiente para el producto: " + producto.getNombre()
-                );
-            }
-
-            // Crear detalle
             DetalleVenta detalle = new DetalleVenta();
             detalle.setProducto(producto);
             detalle.setCantidad(item.getCantidad());
@@ -39,18 +447,486 @@ public class VentaService {
             venta.getDetalles().add(detalle);
 
             // Calcular subtotal
-            BigDecimal subtotal = producto.getPrecio()
-                    .multiply(new BigDecimal(item.getCantidad()));
-            totalVenta = totalVenta.add(subtotal);
-
-            // Reducir stock (se actualizará automáticamente con @Version)
-            producto.setStockActual(producto.getStockActual() - item.getCantidad());
-            productoRepository.save(producto);
+            totalVenta = totalVenta.add(detalle.getSubtotal());
         }
 
         venta.setTotal(totalVenta);
-        ventaRepository.save(venta);
+        return venta;
+    }
+
+    /**
+     * Validar una venta del lote contra el stock que dejaron las anteriores.
+     * Devuelve el motivo del rechazo o null si la venta puede registrarse.
+     */
+    private RuntimeException validarContraStockDisponible(SortedMap<Long, Integer> cantidades,
+                                                          Map<Long, Producto> productos,
+                                                          Map<Long, Integer> stockDisponible) {
+        for (Map.Entry<Long, Integer> entry : cantidades.entrySet()) {
+            Producto producto = productos.get(entry.getKey());
+            if (producto == null) {
+                return new EntityNotFoundException("Producto no encontrado con ID: " + entry.getKey());
+            }
+            // Lo retenido por reservas activas no se puede vender
+            int disponible = stockDisponible.get(entry.getKey()) - reservasStock.obtenerRetenido(entry.getKey());
+            if (disponible < entry.getValue()) {
+                return StockInsuficienteException.crearConDetalles(
+                        producto.getSku(), producto.getNombre(), Math.max(disponible, 0), entry.getValue());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Obtener una venta con sus líneas (cabecera y líneas en dos consultas)
+     */
+    @Transactional(readOnly = true)
+    public VentaResponseDTO obtenerVentaPorId(Long id) {
+        Venta venta = ventaRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Venta no encontrada con ID: " + id));
+
+        Map<Long, VentaResponseDTO> ventas = new LinkedHashMap<>();
+        ventas.put(venta.getId(), new VentaResponseDTO(venta.getId(), venta.getFechaVenta(), venta.getTotal(), null));
+        agregarLineas(ventas);
+        return ventas.get(venta.getId());
+    }
+
+    /**
+     * Listar ventas por cursor, de la más reciente a la más antigua
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<VentaResponseDTO> listarVentas(String cursor, int size) {
+        return listarVentasPorCursor(FECHA_MINIMA, FECHA_MAXIMA, cursor, size);
+    }
+
+    /**
+     * Listar por cursor las ventas de un rango de fechas, de la más reciente a la más antigua
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<VentaResponseDTO> filtrarVentasPorFecha(String fechaInicio, String fechaFin,
+                                                                  String cursor, int size) {
+        validarRangoFechas(fechaInicio, fechaFin);
+        return listarVentasPorCursor(parsearInicio(fechaInicio), parsearFin(fechaFin), cursor, size);
+    }
+
+    /**
+     * Validar un rango de fechas (yyyy-MM-dd o fecha y hora ISO) antes de empezar a responder
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void validarRangoFechas(String fechaInicio, String fechaFin) {
+        if (!parsearInicio(fechaInicio).isBefore(parsearFin(fechaFin))) {
+            throw new IllegalArgumentException("La fecha de inicio debe ser anterior a la fecha de fin");
+        }
+    }
+
+    /**
+     * Exportar las ventas de un rango de fechas con sus líneas, leyendo con un cursor del servidor.
+     * NDJSON escribe una venta por línea con sus items (solo se retiene la venta en curso);
+     * CSV escribe una fila por línea de venta con los datos de la cabecera repetidos.
+     * Devuelve la cantidad de registros escritos.
+     */
+    @Transactional(readOnly = true)
+    public long exportarVentas(OutputStream salida, FormatoExportacion formato,
+                               String fechaInicio, String fechaFin) throws IOException {
+        validarRangoFechas(fechaInicio, fechaFin);
+
+        try (Stream<LineaVentaExportacionDTO> lineas = ventaRepository.streamLineasEntre(
+                parsearInicio(fechaInicio), parsearFin(fechaFin));
+             EscritorExportacion escritor = new EscritorExportacion(salida, formato, objectMapper, COLUMNAS_EXPORTACION)) {
+            if (formato == FormatoExportacion.CSV) {
+                lineas.forEach(l -> escritor.escribir(null, List.of(
+                        l.getVentaId(), l.getFechaVenta(), l.getTotalVenta(), l.getProductoId(),
+                        l.getProductoNombre() != null ? l.getProductoNombre() : "",
+                        l.getCantidad(), l.getPrecioUnitario(), l.getSubtotal())));
+            } else {
+                // Las líneas llegan agrupadas por venta: se escribe cada venta al cambiar de ID
+                VentaResponseDTO enCurso = null;
+                Iterator<LineaVentaExportacionDTO> iterador = lineas.iterator();
+                while (iterador.hasNext()) {
+                    LineaVentaExportacionDTO l = iterador.next();
+                    if (enCurso != null && !enCurso.getId().equals(l.getVentaId())) {
+                        escritor.escribir(enCurso, null);
+                        enCurso = null;
+                    }
+                    if (enCurso == null) {
+                        enCurso = new VentaResponseDTO(l.getVentaId(), l.getFechaVenta(), l.getTotalVenta(), null);
+                    }
+                    enCurso.addItem(new VentaResponseDTO.ItemVentaResponseDTO(
+                            l.getProductoId(), l.getProductoNombre(), l.getCantidad(),
+                            l.getPrecioUnitario(), l.getSubtotal()));
+                }
+                if (enCurso != null) {
+                    escritor.escribir(enCurso, null);
+                }
+            }
+            return escritor.getFilas();
+        }
+    }
+
+    /**
+     * Total vendido en un período; sin fechas, el total histórico.
+     *
+     * Los días completos anteriores a hoy salen de resumen_ventas (una fila por día)
+     * y solo los extremos parciales se suman sobre ventas con el índice
+     * (fecha_venta, total). Los días anteriores al primer día resumido también se
+     * suman sobre ventas.
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal calcularTotalVentas(String fechaInicio, String fechaFin) {
+        LocalDateTime desde = fechaInicio != null ? parsearInicio(fechaInicio) : FECHA_MINIMA;
+        LocalDateTime hasta = fechaFin != null ? parsearFin(fechaFin) : FECHA_MAXIMA;
+        if (!desde.isBefore(hasta)) {
+            throw new IllegalArgumentException("La fecha de inicio debe ser anterior a la fecha de fin");
+        }
+
+        if (totalDesdeResumenDiario) {
+            LocalDateTime primerDia = resumenVentasRepository.findPrimerPeriodo(ResumenVentas.Granularidad.DIA);
+            if (primerDia != null) {
+                // Días completos [diaInicio, diaFin): ni el día en curso ni los anteriores al resumen
+                LocalDateTime diaInicio = maximo(inicioDeDiaSiguienteSiParcial(desde), primerDia);
+                LocalDateTime diaFin = minimo(ResumenVentas.Granularidad.DIA.truncar(hasta),
+                        LocalDate.now().atStartOfDay());
+                if (diaInicio.isBefore(diaFin)) {
+                    return ventaRepository.sumarTotalEntre(desde, diaInicio)
+                            .add(resumenVentasRepository.sumarIngresos(
+                                    ResumenVentas.Granularidad.DIA, diaInicio, diaFin))
+                            .add(ventaRepository.sumarTotalEntre(diaFin, hasta));
+                }
+            }
+        }
+
+        return ventaRepository.sumarTotalEntre(desde, hasta);
+    }
+
+    /**
+     * Estadísticas de ventas desde los resúmenes precalculados (no recorre ventas)
+     */
+    @Transactional(readOnly = true)
+    public EstadisticasVentasDTO obtenerEstadisticasVentas() {
+        return estadisticasVentas.obtenerEstadisticas();
+    }
+
+    /**
+     * Reducir stock en orden de ID; Hibernate agrupa los UPDATE en un solo batch
+     * (order_updates + batch_versioned_data) y @Version sigue validando cada fila.
+     * Se envían enseguida para que las filas queden bloqueadas antes de revisar lo retenido.
+     */
+    private void descontarStockOptimista(SortedMap<Long, Integer> cantidades, Map<Long, Producto> productos) {
+        List<Producto> productosActualizados = new ArrayList<>(cantidades.size());
+        for (Map.Entry<Long, Integer> entry : cantidades.entrySet()) {
+            Producto producto = productos.get(entry.getKey());
+            producto.reducirStock(entry.getValue());
+            productosActualizados.add(producto);
+        }
+        productoRepository.saveAllAndFlush(productosActualizados);
+    }
+
+    /**
+     * Descontar stock con un UPDATE condicionado por producto, en orden de ID.
+     * Si alguna línea no afecta filas se lanza la excepción y la transacción
+     * deshace los descuentos anteriores.
+     */
+    private void descontarStockAtomico(SortedMap<Long, Integer> cantidades, Map<Long, Producto> productos,
+                                       ReservasStock.Reserva reservaPropia) {
+        for (Map.Entry<Long, Integer> entry : cantidades.entrySet()) {
+            Long productoId = entry.getKey();
+            int retenido = retenidoAjeno(productoId, reservaPropia);
+            int filasAfectadas = productoRepository.descontarStockSiDisponible(productoId, entry.getValue(), retenido);
+            if (filasAfectadas == 0) {
+                // La entidad tiene el stock leído antes del UPDATE: se informa el vigente
+                Integer stockVigente = leerStockActual(List.of(productoId)).get(productoId);
+                throw crearStockInsuficiente(productos.get(productoId),
+                        stockVigente != null ? Math.max(stockVigente - retenido, 0) : null, entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Volver a comparar lo retenido por otras reservas con el stock que dejó la venta.
+     * Las filas ya están bloqueadas por el UPDATE: una reserva creada entre la lectura de
+     * lo retenido y el UPDATE ya figura en el contador, y las siguientes esperan el commit.
+     */
+    private void validarRetenidoPosterior(SortedMap<Long, Integer> cantidades, Map<Long, Producto> productos,
+                                          Map<Long, Integer> stockPosterior, ReservasStock.Reserva reservaPropia) {
+        for (Map.Entry<Long, Integer> entry : cantidades.entrySet()) {
+            int retenido = retenidoAjeno(entry.getKey(), reservaPropia);
+            int restante = stockPosterior.get(entry.getKey());
+            if (restante < retenido) {
+                throw crearStockInsuficiente(productos.get(entry.getKey()),
+                        Math.max(restante + entry.getValue() - retenido, 0), entry.getValue());
+            }
+        }
+    }
+
+    private StockInsuficienteException crearStockInsuficiente(Producto producto, Integer stockActual,
+                                                              Integer cantidadSolicitada) {
+        return StockInsuficienteException.crearConDetalles(
+                producto.getSku(),
+                producto.getNombre(),
+                stockActual,
+                cantidadSolicitada
+        );
+    }
+
+    /**
+     * Stock de cada producto según la tabla, con una sola consulta
+     */
+    private Map<Long, Integer> leerStockActual(Collection<Long> productoIds) {
+        Map<Long, Integer> stock = new HashMap<>();
+        for (Object[] fila : productoRepository.leerStockActual(productoIds)) {
+            stock.put((Long) fila[0], (Integer) fila[1]);
+        }
+        return stock;
+    }
+
+    /**
+     * Sumar las cantidades de líneas repetidas y ordenar por ID de producto
+     */
+    private SortedMap<Long, Integer> agruparCantidadesPorProducto(VentaRequestDTO ventaRequest) {
+        SortedMap<Long, Integer> cantidades = new TreeMap<>();
+        for (VentaRequestDTO.ItemVentaDTO item : ventaRequest.getItems()) {
+            cantidades.merge(item.getProductoId(), item.getCantidad(), Integer::sum);
+        }
+        return cantidades;
+    }
+
+    /**
+     * Cantidad de un producto retenida por reservas de otros carritos
+     */
+    private int retenidoAjeno(Long productoId, ReservasStock.Reserva reservaPropia) {
+        int retenido = reservasStock.obtenerRetenido(productoId)
+                - (reservaPropia != null ? reservaPropia.cantidad(productoId) : 0);
+        return Math.max(retenido, 0);
+    }
+
+    /**
+     * Sacar de las cantidades las líneas de productos calientes (su stock lo lleva StockCaliente).
+     * Con reserva, son calientes las que la reserva apartó en StockCaliente.
+     */
+    private SortedMap<Long, Integer> separarCalientes(SortedMap<Long, Integer> cantidades,
+                                                      ReservasStock.Reserva reserva) {
+        SortedMap<Long, Integer> calientes = new TreeMap<>();
+        Iterator<Map.Entry<Long, Integer>> iterador = cantidades.entrySet().iterator();
+        while (iterador.hasNext()) {
+            Map.Entry<Long, Integer> entry = iterador.next();
+            boolean caliente = reserva != null
+                    ? reserva.calientes().containsKey(entry.getKey())
+                    : stockCaliente.esCaliente(entry.getKey());
+            if (caliente) {
+                calientes.put(entry.getKey(), entry.getValue());
+                iterador.remove();
+            }
+        }
+        return calientes;
+    }
+
+    /**
+     * Cargar los productos de la venta con una sola consulta IN
+     */
+    private Map<Long, Producto> cargarProductos(SortedMap<Long, Integer> cantidades) {
+        List<Producto> encontrados = productoRepository.findByIdInOrderByIdAsc(cantidades.keySet());
+
+        Map<Long, Producto> productos = new HashMap<>();
+        for (Producto producto : encontrados) {
+            productos.put(producto.getId(), producto);
+        }
+
+        verificarExistentes(cantidades.keySet(), productos);
+        return productos;
+    }
+
+    private void verificarExistentes(Collection<Long> productoIds, Map<Long, Producto> productos) {
+        for (Long productoId : productoIds) {
+            if (!productos.containsKey(productoId)) {
+                throw new EntityNotFoundException("Producto no encontrado con ID: " + productoId);
+            }
+        }
+    }
+
+    /**
+     * Categoría de cada producto vendido (para los listeners del evento de venta)
+     */
+    private Map<Long, Long> categoriasDe(Map<Long, Producto> productos) {
+        Map<Long, Long> categorias = new HashMap<>();
+        for (Producto producto : productos.values()) {
+            if (producto.getCategoria() != null) {
+                categorias.put(producto.getId(), producto.getCategoria().getId());
+            }
+        }
+        return categorias;
+    }
+
+    /**
+     * Stock de cada producto después de la venta.
+     * En modo atómico la entidad no se modificó: se lee el valor que dejó el UPDATE,
+     * que con ventas concurrentes no es el leído antes menos lo vendido.
+     */
+    private Map<Long, Integer> stockPosteriorDe(SortedMap<Long, Integer> cantidades, Map<Long, Producto> productos) {
+        if (cantidades.isEmpty()) {
+            return new HashMap<>();
+        }
+        if (actualizacionAtomica) {
+            return leerStockActual(cantidades.keySet());
+        }
+        Map<Long, Integer> stockPosterior = new HashMap<>();
+        for (Long productoId : cantidades.keySet()) {
+            stockPosterior.put(productoId, productos.get(productoId).getStockActual());
+        }
+        return stockPosterior;
+    }
+
+    /**
+     * Página de ventas en dos fases y sin OFFSET ni COUNT: primero las cabeceras
+     * posteriores al cursor (sobre el índice fecha_venta, id) y después las líneas
+     * y nombres de producto de toda la página en una sola consulta.
+     * Son dos consultas por página sin importar cuántas líneas tenga cada venta.
+     */
+    private CursorPageDTO<VentaResponseDTO> listarVentasPorCursor(LocalDateTime desde, LocalDateTime hasta,
+                                                                   String cursor, int size) {
+        if (size <= 0 || size > 100) {
+            throw new IllegalArgumentException("El tamaño de página debe estar entre 1 y 100");
+        }
+
+        LocalDateTime fechaCursor = null;
+        Long idCursor = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] partes = decodificarCursor(cursor);
+            idCursor = Long.valueOf(partes[0]);
+            fechaCursor = LocalDateTime.parse(partes[1]);
+        }
+
+        // Se pide un elemento extra para saber si hay página siguiente
+        List<Object[]> cabeceras = ventaRepository.buscarCabecerasAntesDeCursor(
+                desde, hasta, fechaCursor, idCursor, Limit.of(size + 1));
+
+        boolean hasNext = cabeceras.size() > size;
+        if (hasNext) {
+            cabeceras = cabeceras.subList(0, size);
+        }
+
+        Map<Long, VentaResponseDTO> ventas = new LinkedHashMap<>();
+        for (Object[] cabecera : cabeceras) {
+            Long id = (Long) cabecera[0];
+            ventas.put(id, new VentaResponseDTO(id, (LocalDateTime) cabecera[1], (BigDecimal) cabecera[2], null));
+        }
+        agregarLineas(ventas);
+
+        String nextCursor = null;
+        if (hasNext) {
+            Object[] ultima = cabeceras.get(cabeceras.size() - 1);
+            nextCursor = codificarCursor((Long) ultima[0], (LocalDateTime) ultima[1]);
+        }
+
+        return new CursorPageDTO<>(new ArrayList<>(ventas.values()), size, hasNext, nextCursor);
+    }
+
+    /**
+     * Cargar las líneas de varias ventas con una sola consulta (sin entidades Producto)
+     */
+    private void agregarLineas(Map<Long, VentaResponseDTO> ventas) {
+        if (ventas.isEmpty()) {
+            return;
+        }
+        for (Object[] linea : ventaRepository.findLineasDeVentas(ventas.keySet())) {
+            Integer cantidad = (Integer) linea[3];
+            BigDecimal precioUnitario = (BigDecimal) linea[4];
+            ventas.get((Long) linea[0]).addItem(new VentaResponseDTO.ItemVentaResponseDTO(
+                    (Long) linea[1],
+                    (String) linea[2],
+                    cantidad,
+                    precioUnitario,
+                    precioUnitario.multiply(new BigDecimal(cantidad))
+            ));
+        }
+    }
+
+    /**
+     * Cursor opaco: Base64 URL de "id:fechaVenta" de la última venta devuelta
+     */
+    private String codificarCursor(Long id, LocalDateTime fechaVenta) {
+        String valor = id + ":" + fechaVenta;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodificarCursor(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = valor.split(":", 2);
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            Long.parseLong(partes[0]);
+            LocalDateTime.parse(partes[1]);
+            return partes;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // Incluye NumberFormatException y errores de Base64
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+
+    /**
+     * Inicio de un rango: fecha (yyyy-MM-dd, desde las 00:00) o fecha y hora ISO
+     */
+    private LocalDateTime parsearInicio(String fecha) {
+        try {
+            return fecha.contains("T") ? LocalDateTime.parse(fecha) : LocalDate.parse(fecha).atStartOfDay();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Fecha inválida: " + fecha);
+        }
+    }
+
+    /**
+     * Fin exclusivo de un rango: una fecha sola incluye el día completo
+     */
+    private LocalDateTime parsearFin(String fecha) {
+        try {
+            return fecha.contains("T") ? LocalDateTime.parse(fecha) : LocalDate.parse(fecha).plusDays(1).atStartOfDay();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Fecha inválida: " + fecha);
+        }
+    }
+
+    private LocalDateTime inicioDeDiaSiguienteSiParcial(LocalDateTime fecha) {
+        LocalDateTime inicioDia = ResumenVentas.Granularidad.DIA.truncar(fecha);
+        return inicioDia.equals(fecha) ? fecha : inicioDia.plusDays(1);
+    }
+
+    private LocalDateTime maximo(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private LocalDateTime minimo(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private ReservaStockDTO convertirAReservaStockDTO(ReservasStock.Reserva reserva) {
+        List<VentaRequestDTO.ItemVentaDTO> items = new ArrayList<>(reserva.cantidades().size());
+        for (Map.Entry<Long, Integer> entry : reserva.cantidades().entrySet()) {
+            items.add(new VentaRequestDTO.ItemVentaDTO(entry.getKey(), entry.getValue()));
+        }
+        return new ReservaStockDTO(reserva.id(), items, reserva.creadaEn(), reserva.expiraEn());
+    }
+
+    /**
+     * Convertir Venta a VentaResponseDTO
+     */
+    private VentaResponseDTO convertirAVentaResponseDTO(Venta venta) {
+        VentaResponseDTO dto = new VentaResponseDTO();
+        dto.setId(venta.getId());
+        dto.setFechaVenta(venta.getFechaVenta());
+        dto.setTotal(venta.getTotal());
+
+        if (venta.getDetalles() != null) {
+            for (DetalleVenta detalle : venta.getDetalles()) {
+                dto.addItem(new VentaResponseDTO.ItemVentaResponseDTO(
+                        detalle.getProducto().getId(),
+                        detalle.getProducto().getNombre(),
+                        detalle.getCantidad(),
+                        detalle.getPrecioUnitario(),
+                        detalle.getSubtotal()
+                ));
+            }
+        }
 
-        return convertirAVentaResponseDTO(venta);
+        return dto;
     }
 }
@@ -0,0 +1,141 @@
+package com.alexis.sprintboot.app.Service;
+
+import com.alexis.sprintboot.app.Event.ProductoEliminadoEvent;
+import com.alexis.sprintboot.app.Event.ProductoGuardadoEvent;
+import com.alexis.sprintboot.app.Event.VentaRegistradaEvent;
+import com.alexis.sprintboot.app.Repository.ProductoRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Conjunto en memoria de productos por debajo del umbral de reposición.
+ *
+ * Se carga desde la consulta indexada de bajo stock y se actualiza con las
+ * ventas y los cambios de stock confirmados, así los procesos de reposición
+ * leen el conjunto actual sin recorrer el catálogo.
+ *
+ * Los eventos de transacciones concurrentes pueden llegar en otro orden que sus
+ * UPDATE: cuando el stock de un evento cambiaría la pertenencia al conjunto, se
+ * confirma con el valor de la tabla. Los productos calientes van por delante de la
+ * tabla (StockCaliente) y se toman del evento.
+ */
+@Component
+public class VigilanciaBajoStock {
+
+    private static final int TAMANIO_BLOQUE = 500;
+
+    private final ProductoRepository productoRepository;
+    private final StockCaliente stockCaliente;
+
+    // productoId -> stock actual
+    private final ConcurrentSkipListMap<Long, Integer> productosBajoStock = new ConcurrentSkipListMap<>();
+
+    @Value("${inventario.bajo-stock.umbral:10}")
+    private int umbral;
+
+    public VigilanciaBajoStock(ProductoRepository productoRepository, StockCaliente stockCaliente) {
+        this.productoRepository = productoRepository;
+        this.stockCaliente = stockCaliente;
+    }
+
+    public int getUmbral() {
+        return umbral;
+    }
+
+    /**
+     * Productos actualmente por debajo del umbral (productoId -> stock), ordenados por ID
+     */
+    public NavigableMap<Long, Integer> getProductosBajoStock() {
+        return new TreeMap<>(productosBajoStock);
+    }
+
+    /**
+     * Recargar el conjunto desde la base de datos (arranque y resincronización periódica).
+     * Recorre por ID en bloques, sin OFFSET: el conjunto cambia mientras se recorre.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+            initialDelayString = "${inventario.bajo-stock.resincronizacion-ms:600000}",
+            fixedDelayString = "${inventario.bajo-stock.resincronizacion-ms:600000}"
+    )
+    public void resincronizar() {
+        Map<Long, Integer> encontrados = new TreeMap<>();
+        long desdeId = 0;
+        List<Object[]> bloque;
+        do {
+            bloque = productoRepository.buscarBajoStockDesde(umbral, desdeId, Limit.of(TAMANIO_BLOQUE));
+            for (Object[] fila : bloque) {
+                desdeId = (Long) fila[0];
+                encontrados.put(desdeId, (Integer) fila[1]);
+            }
+        } while (bloque.size() == TAMANIO_BLOQUE);
+
+        productosBajoStock.keySet().retainAll(encontrados.keySet());
+        productosBajoStock.putAll(encontrados);
+    }
+
+    @TransactionalEventListener
+    public void onProductoGuardado(ProductoGuardadoEvent event) {
+        actualizarConfirmando(Map.of(event.getProducto().getId(), event.getProducto().getStockActual()));
+    }
+
+    @TransactionalEventListener
+    public void onProductoEliminado(ProductoEliminadoEvent event) {
+        productosBajoStock.remove(event.getProductoId());
+    }
+
+    @TransactionalEventListener
+    public void onVentaRegistrada(VentaRegistradaEvent event) {
+        actualizarConfirmando(event.getStockPosteriorPorProducto());
+    }
+
+    /**
+     * Aplicar el stock informado por un evento; si entraría o saldría del conjunto,
+     * con el valor vigente en la tabla (una sola consulta para todos esos productos)
+     */
+    private void actualizarConfirmando(Map<Long, Integer> stockPorProducto) {
+        List<Long> aConfirmar = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : stockPorProducto.entrySet()) {
+            Long productoId = entry.getKey();
+            Integer stock = entry.getValue();
+            if (stockCaliente.esCaliente(productoId)) {
+                actualizar(productoId, stock);
+            } else if ((stock != null && stock < umbral) || productosBajoStock.containsKey(productoId)) {
+                aConfirmar.add(productoId);
+            }
+        }
+        if (aConfirmar.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Integer> vigente = new HashMap<>();
+        for (Object[] fila : productoRepository.leerStockActual(aConfirmar)) {
+            vigente.put((Long) fila[0], (Integer) fila[1]);
+        }
+        for (Long productoId : aConfirmar) {
+            // Un producto que ya no está en la tabla sale del conjunto
+            actualizar(productoId, vigente.get(productoId));
+        }
+    }
+
+    private void actualizar(Long productoId, Integer stock) {
+        if (stock != null && stock < umbral) {
+            productosBajoStock.put(productoId, stock);
+        } else {
+            productosBajoStock.remove(productoId);
+        }
+    }
+}
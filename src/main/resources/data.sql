@@ -12,6 +12,11 @@ SET FOREIGN_KEY_CHECKS = 0;
 
 TRUNCATE TABLE detalle_ventas;
 TRUNCATE TABLE ventas;
+TRUNCATE TABLE resumen_ventas;
+TRUNCATE TABLE resumen_ventas_productos;
+TRUNCATE TABLE ventas_idempotencia;
+TRUNCATE TABLE movimientos_stock_pendientes;
+TRUNCATE TABLE ventas_pendientes;
 TRUNCATE TABLE productos;
 TRUNCATE TABLE categorias;
 TRUNCATE TABLE usuarios;
@@ -0,0 +1,380 @@
+package com.alexis.sprintboot.app.Carga;
+
+import com.alexis.sprintboot.app.Model.Categoria;
+import com.alexis.sprintboot.app.Model.Rol;
+import com.alexis.sprintboot.app.Model.Usuario;
+import com.alexis.sprintboot.app.Repository.CategoriaRepository;
+import com.alexis.sprintboot.app.Repository.UsuarioRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prueba de carga de punta a punta contra la aplicación levantada con H2 (perfil "carga").
+ *
+ * Toma las peticiones de postman/inventory-system-collection.json.txt (login, registro,
+ * categorías, listado de productos, venta) y las combina en escenarios con peso:
+ * navegar, escanear SKU, vender, reponer y reportar. Cada cliente concurrente repite
+ * escenarios hasta terminar la duración; solo se mide después del calentamiento.
+ * El reporte (peticiones/s, p50/p95/p99 y % de errores por endpoint) se imprime
+ * y se guarda en target/carga-resultados.json. La prueba falla si algún endpoint
+ * supera carga.umbral.error-porcentaje o carga.umbral.p99-ms.
+ *
+ * Ejecutar con:
+ *   mvn test -Pcarga -Dcarga.concurrencia=200 -Dcarga.duracion-segundos=60
+ * Comparar hilos de plataforma y virtuales (Java 21):
+ *   mvn test -Pcarga -Dcarga.concurrencia=2000 -Dspring.threads.virtual.enabled=true
+ *
+ * Cliente y servidor comparten la JVM y la CPU: los números sirven para comparar
+ * cambios entre sí, no como capacidad absoluta del servidor.
+ */
+@Tag("carga")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("carga")
+class CargaEndToEndBenchmark {
+
+    private static final Path COLECCION = Path.of("postman", "inventory-system-collection.json.txt");
+    private static final Path RESULTADOS = Path.of("target", "carga-resultados.json");
+
+    // Usuario de la petición de login de la colección
+    private static final String ADMIN_EMAIL = "admin@inventory.com";
+    private static final String ADMIN_PASSWORD = "123456";
+
+    @LocalServerPort
+    private int puerto;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${carga.concurrencia}")
+    private int concurrencia;
+
+    @Value("${carga.duracion-segundos}")
+    private int duracionSegundos;
+
+    @Value("${carga.calentamiento-segundos}")
+    private int calentamientoSegundos;
+
+    @Value("${carga.productos}")
+    private int cantidadProductos;
+
+    @Value("${carga.cajeros}")
+    private int cantidadCajeros;
+
+    @Value("${carga.pesos}")
+    private String pesos;
+
+    @Value("${carga.umbral.error-porcentaje}")
+    private double umbralErrorPorcentaje;
+
+    @Value("${carga.umbral.p99-ms}")
+    private double umbralP99Ms;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean hilosVirtuales;
+
+    private final Map<String, EstadisticasEndpoint> estadisticas = new ConcurrentHashMap<>();
+    private HttpClient cliente;
+    private Map<String, String> variablesBase;
+
+    private PlantillaPeticion listarProductos;
+    private PlantillaPeticion listarCategorias;
+    private PlantillaPeticion buscarPorSku;
+    private PlantillaPeticion registrarVenta;
+    private PlantillaPeticion aumentarStock;
+    private PlantillaPeticion valorInventario;
+    private PlantillaPeticion bajoStock;
+
+    private JsonNode plantillaVenta;
+    private final List<Long> idsProductos = new ArrayList<>();
+    private final List<String> skusProductos = new ArrayList<>();
+    // Solo productos con stock alto: una venta rechazada por stock no es un error de la carga
+    private final List<Long> idsVendibles = new ArrayList<>();
+    private final List<String> tokensCajeros = new ArrayList<>();
+
+    @Test
+    void ejecutarCarga() throws Exception {
+        cliente = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        variablesBase = new HashMap<>();
+        // Los controladores están bajo /api dentro del context-path /api
+        variablesBase.put("baseUrl", "http://localhost:" + puerto + "/api/api");
+
+        ColeccionPostman coleccion = new ColeccionPostman(COLECCION, objectMapper);
+        prepararPlantillas(coleccion);
+        prepararDatos(coleccion);
+
+        Map<String, Integer> pesosEscenarios = leerPesos();
+        int pesoTotal = pesosEscenarios.values().stream().mapToInt(Integer::intValue).sum();
+
+        long inicioMedicion = System.nanoTime() + TimeUnit.SECONDS.toNanos(calentamientoSegundos);
+        long fin = inicioMedicion + TimeUnit.SECONDS.toNanos(duracionSegundos);
+
+        ExecutorService clientes = Executors.newFixedThreadPool(concurrencia);
+        for (int i = 0; i < concurrencia; i++) {
+            clientes.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < fin && !Thread.currentThread().isInterrupted()) {
+                    ejecutarEscenario(elegirEscenario(pesosEscenarios, pesoTotal, random), random, inicioMedicion);
+                }
+            });
+        }
+        clientes.shutdown();
+        clientes.awaitTermination(duracionSegundos + calentamientoSegundos + 60L, TimeUnit.SECONDS);
+
+        Map<String, EstadisticasEndpoint.Resumen> resumenes = reportar();
+        assertTrue(!resumenes.isEmpty(), "No se registró ninguna petición durante la medición");
+
+        List<String> fueraDeUmbral = new ArrayList<>();
+        resumenes.forEach((endpoint, r) -> {
+            if (r.porcentajeErrores() > umbralErrorPorcentaje) {
+                fueraDeUmbral.add(String.format("%s: %.2f%% de errores (máximo %.2f%%)",
+                        endpoint, r.porcentajeErrores(), umbralErrorPorcentaje));
+            }
+            if (r.p99Ms() > umbralP99Ms) {
+                fueraDeUmbral.add(String.format("%s: p99 %.2f ms (máximo %.2f ms)", endpoint, r.p99Ms(), umbralP99Ms));
+            }
+        });
+        assertTrue(fueraDeUmbral.isEmpty(), "Endpoints fuera de umbral:\n" + String.join("\n", fueraDeUmbral));
+    }
+
+    private void prepararPlantillas(ColeccionPostman coleccion) throws IOException {
+        PlantillaPeticion productos = coleccion.buscar("GET", "/productos");
+        listarProductos = productos.con(productos.getUrl().replace("page=0", "page={{pagina}}"), null);
+        listarCategorias = coleccion.buscar("GET", "/categorias");
+        registrarVenta = coleccion.buscar("POST", "/ventas");
+        plantillaVenta = objectMapper.readTree(registrarVenta.getCuerpo());
+
+        // Peticiones que la colección no trae, con las mismas variables
+        buscarPorSku = new PlantillaPeticion("GET", "{{baseUrl}}/productos/sku/{{sku}}", Map.of(), null);
+        aumentarStock = new PlantillaPeticion("POST",
+                "{{baseUrl}}/productos/{{productoId}}/stock/aumentar?cantidad={{cantidad}}",
+                Map.of("Authorization", "Bearer {{adminToken}}"), null);
+        valorInventario = new PlantillaPeticion("GET", "{{baseUrl}}/productos/inventario/valor-total", Map.of(), null);
+        bajoStock = new PlantillaPeticion("GET", "{{baseUrl}}/productos/bajo-stock?page=0&size=20", Map.of(), null);
+    }
+
+    /**
+     * Administrador, catálogo y cajeros: el catálogo se carga con POST /productos/bulk
+     * para que índices y cachés se actualicen igual que en producción
+     */
+    private void prepararDatos(ColeccionPostman coleccion) throws Exception {
+        if (usuarioRepository.findByEmail(ADMIN_EMAIL).isEmpty()) {
+            Usuario admin = new Usuario();
+            admin.setEmail(ADMIN_EMAIL);
+            admin.setPassword(passwordEncoder.encode(ADMIN_PASSWORD));
+            admin.setNombre("Admin");
+            admin.setApellido("Carga");
+            admin.setRol(Rol.ADMIN);
+            admin.setActivo(true);
+            usuarioRepository.save(admin);
+        }
+        Categoria categoria = categoriaRepository.save(new Categoria("Carga", "Productos de la prueba de carga"));
+
+        JsonNode login = enviarJson(coleccion.buscar("POST", "/auth/login").construir(variablesBase));
+        variablesBase.put("adminToken", login.path("data").path("token").asText());
+
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 1; i <= cantidadProductos; i++) {
+            ObjectNode producto = objectMapper.createObjectNode();
+            producto.put("sku", "CARGA-" + i);
+            producto.put("nombre", "Producto de carga " + i);
+            producto.put("precio", 10 + (i % 90));
+            // Stock alto para que las ventas no se queden sin existencias; algunos bajo el umbral
+            producto.put("stockActual", i % 20 == 0 ? 5 : 1_000_000);
+            producto.put("categoriaId", categoria.getId());
+            ndjson.append(producto).append('\n');
+        }
+        PlantillaPeticion bulk = new PlantillaPeticion("POST", "{{baseUrl}}/productos/bulk",
+                Map.of("Authorization", "Bearer {{adminToken}}", "Content-Type", "application/x-ndjson"), null);
+        JsonNode carga = enviarJson(bulk.construir(variablesBase, ndjson.toString()));
+        for (JsonNode fila : carga.path("data").path("filas")) {
+            if (fila.hasNonNull("id")) {
+                idsProductos.add(fila.get("id").asLong());
+                skusProductos.add(fila.get("sku").asText());
+                if (fila.get("fila").asInt() % 20 != 0) {
+                    idsVendibles.add(fila.get("id").asLong());
+                }
+            }
+        }
+
+        PlantillaPeticion registro = coleccion.buscar("POST", "/auth/register");
+        ObjectNode cuerpoRegistro = (ObjectNode) objectMapper.readTree(registro.getCuerpo());
+        for (int i = 1; i <= cantidadCajeros; i++) {
+            cuerpoRegistro.put("email", "cajero" + i + "-" + System.nanoTime() + "@carga.test");
+            JsonNode respuesta = enviarJson(registro.construir(variablesBase, cuerpoRegistro.toString()));
+            tokensCajeros.add(respuesta.path("data").path("token").asText());
+        }
+
+        assertTrue(!idsProductos.isEmpty() && !tokensCajeros.isEmpty(), "No se pudieron preparar los datos de carga");
+    }
+
+    private void ejecutarEscenario(String escenario, ThreadLocalRandom random, long inicioMedicion) {
+        Map<String, String> variables = new HashMap<>(variablesBase);
+        int indice = random.nextInt(idsProductos.size());
+        variables.put("productoId", String.valueOf(idsProductos.get(indice)));
+        variables.put("sku", skusProductos.get(indice));
+
+        switch (escenario) {
+            case "navegar" -> {
+                variables.put("pagina", String.valueOf(random.nextInt(Math.max(1, idsProductos.size() / 10))));
+                enviar("GET /categorias", listarCategorias.construir(variables), inicioMedicion);
+                enviar("GET /productos", listarProductos.construir(variables), inicioMedicion);
+            }
+            case "escanear" -> enviar("GET /productos/sku/{sku}", buscarPorSku.construir(variables), inicioMedicion);
+            case "vender" -> {
+                variables.put("token", tokensCajeros.get(random.nextInt(tokensCajeros.size())));
+                enviar("POST /ventas", registrarVenta.construir(variables, cuerpoVenta(random)), inicioMedicion);
+            }
+            case "reponer" -> {
+                variables.put("cantidad", String.valueOf(1 + random.nextInt(50)));
+                enviar("POST /productos/{id}/stock/aumentar", aumentarStock.construir(variables), inicioMedicion);
+            }
+            case "reportar" -> {
+                enviar("GET /productos/inventario/valor-total", valorInventario.construir(variables), inicioMedicion);
+                enviar("GET /productos/bajo-stock", bajoStock.construir(variables), inicioMedicion);
+            }
+            default -> throw new IllegalArgumentException("Escenario desconocido: " + escenario);
+        }
+    }
+
+    /**
+     * Cuerpo de la venta de la colección con 1 a 5 líneas de productos al azar
+     */
+    private String cuerpoVenta(ThreadLocalRandom random) {
+        ObjectNode cuerpo = plantillaVenta.deepCopy();
+        JsonNode itemPrototipo = plantillaVenta.path("items").get(0);
+        ArrayNode items = cuerpo.putArray("items");
+        int lineas = 1 + random.nextInt(5);
+        for (int i = 0; i < lineas; i++) {
+            ObjectNode item = itemPrototipo.deepCopy();
+            item.put("productoId", idsVendibles.get(random.nextInt(idsVendibles.size())));
+            items.add(item);
+        }
+        return cuerpo.toString();
+    }
+
+    private void enviar(String endpoint, HttpRequest request, long inicioMedicion) {
+        long inicio = System.nanoTime();
+        boolean error;
+        try {
+            HttpResponse<Void> respuesta = cliente.send(request, HttpResponse.BodyHandlers.discarding());
+            error = respuesta.statusCode() >= 400;
+        } catch (IOException e) {
+            error = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (inicio >= inicioMedicion) {
+            estadisticas.computeIfAbsent(endpoint, k -> new EstadisticasEndpoint())
+                    .registrar(System.nanoTime() - inicio, error);
+        }
+    }
+
+    private JsonNode enviarJson(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> respuesta = cliente.send(request, HttpResponse.BodyHandlers.ofString());
+        if (respuesta.statusCode() >= 400) {
+            throw new IllegalStateException("Preparación fallida: " + request.uri() + " -> "
+                    + respuesta.statusCode() + " " + respuesta.body());
+        }
+        return objectMapper.readTree(respuesta.body());
+    }
+
+    private Map<String, Integer> leerPesos() {
+        Map<String, Integer> resultado = new LinkedHashMap<>();
+        for (String par : pesos.split(",")) {
+            String[] partes = par.trim().split("=");
+            int peso = Integer.parseInt(partes[1].trim());
+            if (peso > 0) {
+                resultado.put(partes[0].trim(), peso);
+            }
+        }
+        return resultado;
+    }
+
+    private static String elegirEscenario(Map<String, Integer> pesos, int pesoTotal, ThreadLocalRandom random) {
+        int valor = random.nextInt(pesoTotal);
+        for (Map.Entry<String, Integer> entrada : pesos.entrySet()) {
+            valor -= entrada.getValue();
+            if (valor < 0) {
+                return entrada.getKey();
+            }
+        }
+        throw new IllegalStateException("Pesos de escenarios inválidos");
+    }
+
+    private Map<String, EstadisticasEndpoint.Resumen> reportar() throws IOException {
+        Map<String, EstadisticasEndpoint.Resumen> resumenes = new TreeMap<>();
+        estadisticas.forEach((endpoint, datos) -> resumenes.put(endpoint, datos.resumir(duracionSegundos)));
+
+        System.out.printf("%nCarga: concurrencia=%d duracion=%ds hilosVirtuales=%s pesos=%s%n",
+                concurrencia, duracionSegundos, hilosVirtuales, pesos);
+        System.out.printf("%-40s %10s %10s %8s %10s %10s %10s%n",
+                "endpoint", "peticiones", "req/s", "error%", "p50(ms)", "p95(ms)", "p99(ms)");
+
+        long total = 0;
+        long errores = 0;
+        for (Map.Entry<String, EstadisticasEndpoint.Resumen> entrada : resumenes.entrySet()) {
+            EstadisticasEndpoint.Resumen r = entrada.getValue();
+            System.out.printf("%-40s %10d %10.1f %8.2f %10.2f %10.2f %10.2f%n",
+                    entrada.getKey(), r.peticiones(), r.peticionesPorSegundo(), r.porcentajeErrores(),
+                    r.p50Ms(), r.p95Ms(), r.p99Ms());
+            total += r.peticiones();
+            errores += r.errores();
+        }
+        System.out.printf("%-40s %10d %10.1f %8.2f%n", "TOTAL", total, total / (double) duracionSegundos,
+                total == 0 ? 0 : 100.0 * errores / total);
+
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("concurrencia", concurrencia);
+        resultado.put("duracionSegundos", duracionSegundos);
+        resultado.put("hilosVirtuales", hilosVirtuales);
+        resultado.put("pesos", pesos);
+        resultado.put("endpoints", resumenes);
+        Files.createDirectories(RESULTADOS.getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(RESULTADOS.toFile(), resultado);
+
+        return resumenes;
+    }
+}
@@ -0,0 +1,61 @@
+package com.alexis.sprintboot.app.Carga;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lee las peticiones de la colección de Postman del repositorio (postman/*.json.txt)
+ */
+class ColeccionPostman {
+
+    private final List<PlantillaPeticion> peticiones = new ArrayList<>();
+
+    ColeccionPostman(Path archivo, ObjectMapper objectMapper) throws IOException {
+        JsonNode raiz = objectMapper.readTree(archivo.toFile());
+        recorrer(raiz.path("item"));
+    }
+
+    /**
+     * Buscar la petición por método y ruta (sin {{baseUrl}} ni query string)
+     */
+    PlantillaPeticion buscar(String metodo, String ruta) {
+        for (PlantillaPeticion peticion : peticiones) {
+            String url = peticion.getUrl().replace("{{baseUrl}}", "");
+            int query = url.indexOf('?');
+            String rutaPeticion = query >= 0 ? url.substring(0, query) : url;
+            if (peticion.getMetodo().equals(metodo) && rutaPeticion.equals(ruta)) {
+                return peticion;
+            }
+        }
+        throw new IllegalArgumentException("La colección no tiene la petición " + metodo + " " + ruta);
+    }
+
+    private void recorrer(JsonNode items) {
+        for (JsonNode item : items) {
+            if (item.has("item")) {
+                recorrer(item.get("item"));
+                continue;
+            }
+            JsonNode request = item.path("request");
+            JsonNode url = request.path("url");
+            String textoUrl = url.isObject() ? url.path("raw").asText() : url.asText();
+
+            Map<String, String> cabeceras = new LinkedHashMap<>();
+            for (JsonNode cabecera : request.path("header")) {
+                cabeceras.put(cabecera.path("key").asText(), cabecera.path("value").asText());
+            }
+
+            JsonNode body = request.path("body");
+            String cuerpo = "raw".equals(body.path("mode").asText()) ? body.path("raw").asText() : null;
+
+            peticiones.add(new PlantillaPeticion(request.path("method").asText("GET"), textoUrl, cabeceras, cuerpo));
+        }
+    }
+}
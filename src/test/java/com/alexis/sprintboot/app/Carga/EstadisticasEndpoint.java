@@ -0,0 +1,52 @@
+package com.alexis.sprintboot.app.Carga;
+
+import java.util.Arrays;
+
+/**
+ * Latencias y errores de un endpoint durante la medición
+ */
+class EstadisticasEndpoint {
+
+    private long[] latenciasNanos = new long[1024];
+    private int cantidad;
+    private long errores;
+
+    synchronized void registrar(long latenciaNanos, boolean error) {
+        if (cantidad == latenciasNanos.length) {
+            latenciasNanos = Arrays.copyOf(latenciasNanos, cantidad * 2);
+        }
+        latenciasNanos[cantidad++] = latenciaNanos;
+        if (error) {
+            errores++;
+        }
+    }
+
+    synchronized Resumen resumir(double segundosMedidos) {
+        long[] ordenadas = Arrays.copyOf(latenciasNanos, cantidad);
+        Arrays.sort(ordenadas);
+        return new Resumen(
+                cantidad,
+                errores,
+                cantidad / segundosMedidos,
+                percentilMs(ordenadas, 0.50),
+                percentilMs(ordenadas, 0.95),
+                percentilMs(ordenadas, 0.99)
+        );
+    }
+
+    private static double percentilMs(long[] ordenadas, double percentil) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        int indice = (int) Math.min(ordenadas.length - 1, Math.ceil(percentil * ordenadas.length) - 1);
+        return ordenadas[Math.max(indice, 0)] / 1_000_000.0;
+    }
+
+    record Resumen(long peticiones, long errores, double peticionesPorSegundo,
+                   double p50Ms, double p95Ms, double p99Ms) {
+
+        double porcentajeErrores() {
+            return peticiones == 0 ? 0 : 100.0 * errores / peticiones;
+        }
+    }
+}
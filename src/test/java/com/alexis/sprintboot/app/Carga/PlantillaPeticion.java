@@ -0,0 +1,98 @@
+package com.alexis.sprintboot.app.Carga;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Petición HTTP con variables {{nombre}} al estilo Postman (URL, cabeceras y cuerpo)
+ */
+class PlantillaPeticion {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final String metodo;
+    private final String url;
+    private final Map<String, String> cabeceras;
+    private final String cuerpo;
+
+    PlantillaPeticion(String metodo, String url, Map<String, String> cabeceras, String cuerpo) {
+        this.metodo = metodo;
+        this.url = url;
+        this.cabeceras = new LinkedHashMap<>(cabeceras);
+        this.cuerpo = cuerpo;
+    }
+
+    String getMetodo() {
+        return metodo;
+    }
+
+    String getUrl() {
+        return url;
+    }
+
+    String getCuerpo() {
+        return cuerpo;
+    }
+
+    /**
+     * Copia con otra URL y/o cuerpo (mismas cabeceras)
+     */
+    PlantillaPeticion con(String nuevaUrl, String nuevoCuerpo) {
+        return new PlantillaPeticion(metodo, nuevaUrl, cabeceras, nuevoCuerpo);
+    }
+
+    /**
+     * Copia con una cabecera adicional
+     */
+    PlantillaPeticion conCabecera(String nombre, String valor) {
+        PlantillaPeticion copia = new PlantillaPeticion(metodo, url, cabeceras, cuerpo);
+        copia.cabeceras.put(nombre, valor);
+        return copia;
+    }
+
+    HttpRequest construir(Map<String, String> variables) {
+        return construir(variables, cuerpo);
+    }
+
+    HttpRequest construir(Map<String, String> variables, String cuerpoReemplazo) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(reemplazar(url, variables)))
+                .timeout(TIMEOUT);
+        cabeceras.forEach((nombre, valor) -> builder.header(nombre, reemplazar(valor, variables)));
+
+        String cuerpoFinal = cuerpoReemplazo != null ? reemplazar(cuerpoReemplazo, variables) : null;
+        if (cuerpoFinal != null) {
+            if (!cabeceras.containsKey("Content-Type")) {
+                builder.header("Content-Type", "application/json");
+            }
+            builder.method(metodo, HttpRequest.BodyPublishers.ofString(cuerpoFinal));
+        } else {
+            builder.method(metodo, HttpRequest.BodyPublishers.noBody());
+        }
+        return builder.build();
+    }
+
+    static String reemplazar(String texto, Map<String, String> variables) {
+        if (texto == null || texto.indexOf("{{") < 0) {
+            return texto;
+        }
+        StringBuilder resultado = new StringBuilder(texto.length());
+        int desde = 0;
+        int inicio;
+        while ((inicio = texto.indexOf("{{", desde)) >= 0) {
+            int fin = texto.indexOf("}}", inicio);
+            if (fin < 0) {
+                break;
+            }
+            resultado.append(texto, desde, inicio);
+            String nombre = texto.substring(inicio + 2, fin);
+            String valor = variables.get(nombre);
+            resultado.append(valor != null ? valor : texto.substring(inicio, fin + 2));
+            desde = fin + 2;
+        }
+        resultado.append(texto, desde, texto.length());
+        return resultado.toString();
+    }
+}
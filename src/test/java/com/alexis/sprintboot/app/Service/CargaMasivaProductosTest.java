@@ -0,0 +1,93 @@
+package com.alexis.sprintboot.app.Service;
+
+import com.alexis.sprintboot.app.DTO.CargaMasivaResponseDTO;
+import com.alexis.sprintboot.app.DTO.CargaMasivaResponseDTO.Resultado;
+import com.alexis.sprintboot.app.DTO.CargaMasivaResponseDTO.ResultadoFilaDTO;
+import com.alexis.sprintboot.app.Model.Categoria;
+import com.alexis.sprintboot.app.Model.Producto;
+import com.alexis.sprintboot.app.Repository.CategoriaRepository;
+import com.alexis.sprintboot.app.Repository.ProductoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Carga masiva contra H2: las altas van en un lote JDBC con las claves generadas
+ * y cada fila informa el ID del producto creado o actualizado.
+ */
+@SpringBootTest(properties = "inventario.productos.carga-masiva.tamanio-bloque=3")
+@ActiveProfiles("pruebas")
+class CargaMasivaProductosTest {
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Test
+    void creaYActualizaPorSkuEnVariosBloques() throws Exception {
+        String prefijo = "BULK-" + System.nanoTime() + "-";
+        Categoria categoria = categoriaRepository.save(new Categoria("Carga " + prefijo, null));
+        Producto existente = productoRepository.save(new Producto(prefijo + "E", "Existente",
+                new BigDecimal("1.00"), 4, categoria));
+
+        String ndjson = String.join("\n",
+                fila(prefijo + "A", "Alta A", "2.50", 10, categoria.getId()),
+                fila(prefijo + "E", "Existente renombrado", "1.50", 6, categoria.getId()),
+                fila(prefijo + "B", "Alta B", "3.00", 1, categoria.getId()),
+                // Segundo bloque: el mismo SKU dos veces y una fila inválida
+                fila(prefijo + "C", "Alta C", "4.00", 2, categoria.getId()),
+                fila(prefijo + "C", "Alta C final", "4.50", 3, categoria.getId()),
+                fila(prefijo + "X", "Sin categoría", "1.00", 1, 999_999L));
+
+        CargaMasivaResponseDTO respuesta = productoService.cargarProductosMasivo(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(6, respuesta.getTotal());
+        assertEquals(3, respuesta.getCreados());
+        assertEquals(2, respuesta.getActualizados());
+        assertEquals(1, respuesta.getErrores());
+
+        List<ResultadoFilaDTO> filas = respuesta.getFilas();
+        assertEquals(Resultado.CREADO, filas.get(0).getResultado());
+        assertEquals(existente.getId(), filas.get(1).getId());
+        assertEquals(Resultado.CREADO, filas.get(3).getResultado());
+        assertEquals(Resultado.ACTUALIZADO, filas.get(4).getResultado());
+        assertEquals(filas.get(3).getId(), filas.get(4).getId());
+        assertNull(filas.get(5).getId());
+
+        Producto a = productoRepository.findBySku(prefijo + "A").orElseThrow();
+        assertEquals(filas.get(0).getId(), a.getId());
+        assertEquals(10, a.getStockActual());
+        assertEquals(categoria.getId(), a.getCategoria().getId());
+
+        Producto c = productoRepository.findBySku(prefijo + "C").orElseThrow();
+        assertEquals(filas.get(3).getId(), c.getId());
+        assertEquals("Alta C final", c.getNombre());
+        assertEquals(0L, c.getVersion());
+
+        Producto e = productoRepository.findBySku(prefijo + "E").orElseThrow();
+        assertEquals("Existente renombrado", e.getNombre());
+        assertEquals(6, e.getStockActual());
+        assertNotNull(productoRepository.findBySku(prefijo + "B").orElseThrow().getId());
+    }
+
+    private static String fila(String sku, String nombre, String precio, int stock, Long categoriaId) {
+        return String.format("{\"sku\":\"%s\",\"nombre\":\"%s\",\"precio\":%s,\"stockActual\":%d,\"categoriaId\":%d}",
+                sku, nombre, precio, stock, categoriaId);
+    }
+}
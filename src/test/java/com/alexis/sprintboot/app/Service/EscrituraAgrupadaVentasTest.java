@@ -0,0 +1,88 @@
+package com.alexis.sprintboot.app.Service;
+
+import com.alexis.sprintboot.app.DTO.VentaRequestDTO;
+import com.alexis.sprintboot.app.Exception.StockInsuficienteException;
+import com.alexis.sprintboot.app.Model.Producto;
+import com.alexis.sprintboot.app.Repository.ProductoRepository;
+import com.alexis.sprintboot.app.Repository.VentaRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Escritura agrupada contra H2: en un lote, la venta que sobrevende se rechaza sola
+ * y las demás se confirman con sus ventas y detalles insertados en lote.
+ */
+@SpringBootTest
+@ActiveProfiles("pruebas")
+class EscrituraAgrupadaVentasTest {
+
+    @Autowired
+    private VentaService ventaService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private VentaRepository ventaRepository;
+
+    @Test
+    void laVentaQueSobrevendeSeRechazaSolaYLasDemasSeConfirman() {
+        Long escaso = crearProducto(5);
+        Long otro = crearProducto(10);
+
+        List<EscritorVentasAgrupado.Resultado> resultados = ventaService.registrarVentasAgrupadas(List.of(
+                carrito(escaso, 2, otro, 1),
+                // Después de la primera solo quedan 3
+                carrito(escaso, 4, otro, 1),
+                carrito(otro, 3, escaso, 3)));
+
+        assertTrue(resultados.get(0).isConfirmada());
+        assertFalse(resultados.get(1).isConfirmada());
+        assertInstanceOf(StockInsuficienteException.class, resultados.get(1).error());
+        assertTrue(resultados.get(2).isConfirmada());
+
+        assertEquals(0, stockDe(escaso));
+        assertEquals(6, stockDe(otro));
+
+        Long primera = resultados.get(0).venta().getId();
+        Long tercera = resultados.get(2).venta().getId();
+        assertNotEquals(primera, tercera);
+        assertEquals(new BigDecimal("15.00"), ventaRepository.findById(primera).orElseThrow().getTotal());
+
+        // Cada venta con sus propias líneas: [ventaId, productoId, productoNombre, cantidad, precioUnitario]
+        List<Object[]> lineas = ventaRepository.findLineasDeVentas(List.of(primera, tercera));
+        assertEquals(4, lineas.size());
+        assertEquals(primera, lineas.get(0)[0]);
+        assertEquals(2, lineas.get(0)[3]);
+        assertEquals(tercera, lineas.get(3)[0]);
+        assertEquals(3, lineas.get(3)[3]);
+    }
+
+    private Long crearProducto(int stock) {
+        Producto producto = new Producto("LOTE-" + System.nanoTime(), "Producto lote",
+                new BigDecimal("5.00"), stock);
+        return productoRepository.save(producto).getId();
+    }
+
+    private VentaRequestDTO carrito(Long productoA, int cantidadA, Long productoB, int cantidadB) {
+        VentaRequestDTO ventaRequest = new VentaRequestDTO();
+        ventaRequest.addItem(productoA, cantidadA);
+        ventaRequest.addItem(productoB, cantidadB);
+        return ventaRequest;
+    }
+
+    private int stockDe(Long productoId) {
+        return productoRepository.findById(productoId).orElseThrow().getStockActual();
+    }
+}
@@ -0,0 +1,109 @@
+package com.alexis.sprintboot.app.Service;
+
+import com.alexis.sprintboot.app.DTO.ProductoDTO;
+import com.alexis.sprintboot.app.DTO.VentaResponseDTO;
+import com.alexis.sprintboot.app.Event.ProductoEliminadoEvent;
+import com.alexis.sprintboot.app.Event.ProductoGuardadoEvent;
+import com.alexis.sprintboot.app.Event.VentaRegistradaEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndiceBusquedaProductosTest {
+
+    private IndiceBusquedaProductos indice;
+
+    @BeforeEach
+    void setUp() {
+        indice = new IndiceBusquedaProductos();
+        indice.iniciarCarga();
+        indice.cargarBloque(List.of(
+                producto(1L, "Café Molido Premium", 10),
+                producto(2L, "Leche Entera", 20),
+                producto(3L, "Cafetera Italiana", 5),
+                producto(4L, "Abc Bcd", 1)
+        ));
+        indice.finalizarCarga();
+    }
+
+    @Test
+    void buscaSubcadenasSinDistinguirMayusculasNiAcentos() {
+        assertEquals(List.of(1L, 3L), ids(indice.buscar("CAFE", 10)));
+        assertEquals(List.of(1L), ids(indice.buscar("olido", 10)));
+        assertEquals(List.of(2L), ids(indice.buscar("  entera ", 10)));
+    }
+
+    @Test
+    void losTrigramasSueltosNoAlcanzanSinLaSubcadenaCompleta() {
+        // "abc" y "bcd" están en el nombre, pero no "abcd"
+        assertEquals(List.of(), ids(indice.buscar("abcd", 10)));
+        assertEquals(List.of(), ids(indice.buscar("xyz", 10)));
+    }
+
+    @Test
+    void dosCaracteresSeResuelvenPorPrefijoIncluidoElFinalDelNombre() {
+        assertEquals(List.of(1L), ids(indice.buscar("mo", 10)));
+        // "na" solo aparece al final de "Italiana" (trigrama con terminador)
+        assertEquals(List.of(3L), ids(indice.buscar("na", 10)));
+        assertEquals(List.of(), ids(indice.buscar("c", 10)));
+    }
+
+    @Test
+    void respetaElLimite() {
+        assertEquals(1, indice.buscar("caf", 1).size());
+    }
+
+    @Test
+    void unCambioDeNombreReindexaYUnBorradoLoQuita() {
+        indice.onProductoGuardado(new ProductoGuardadoEvent(
+                producto(2L, "Leche Entera", 20), producto(2L, "Yogur Natural", 20)));
+        assertEquals(List.of(), ids(indice.buscar("leche", 10)));
+        assertEquals(List.of(2L), ids(indice.buscar("yogur", 10)));
+
+        indice.onProductoEliminado(new ProductoEliminadoEvent(producto(3L, "Cafetera Italiana", 5)));
+        assertEquals(List.of(1L), ids(indice.buscar("cafe", 10)));
+    }
+
+    @Test
+    void laVentaGuardaElStockPosteriorAunqueLleguePorDuplicadoODesordenada() {
+        VentaRegistradaEvent primera = venta(Map.of(1L, 8));
+        VentaRegistradaEvent segunda = venta(Map.of(1L, 5));
+
+        indice.onVentaRegistrada(segunda);
+        indice.onVentaRegistrada(primera);
+        indice.onVentaRegistrada(segunda);
+
+        assertEquals(5, indice.buscar("molido", 10).get(0).getStockActual());
+    }
+
+    @Test
+    void losEventosDuranteLaCargaNoSePisanConElBloque() {
+        indice.iniciarCarga();
+        indice.onProductoGuardado(new ProductoGuardadoEvent(null, producto(5L, "Azúcar Rubia", 7)));
+        indice.onProductoEliminado(new ProductoEliminadoEvent(producto(2L, "Leche Entera", 20)));
+        indice.cargarBloque(List.of(producto(5L, "Azucar Vieja", 1), producto(2L, "Leche Entera", 20)));
+        indice.finalizarCarga();
+
+        assertTrue(indice.isListo());
+        assertEquals(List.of(5L), ids(indice.buscar("rubia", 10)));
+        assertEquals(List.of(), ids(indice.buscar("leche", 10)));
+    }
+
+    private static ProductoDTO producto(Long id, String nombre, int stock) {
+        return new ProductoDTO(id, "SKU-" + id, nombre, new BigDecimal("1.00"), stock, null, null);
+    }
+
+    private static VentaRegistradaEvent venta(Map<Long, Integer> stockPosterior) {
+        return new VentaRegistradaEvent(new VentaResponseDTO(), Map.of(), stockPosterior);
+    }
+
+    private static List<Long> ids(List<ProductoDTO> productos) {
+        return productos.stream().map(ProductoDTO::getId).toList();
+    }
+}
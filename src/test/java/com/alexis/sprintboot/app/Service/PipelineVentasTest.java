@@ -0,0 +1,118 @@
+package com.alexis.sprintboot.app.Service;
+
+import com.alexis.sprintboot.app.DTO.TicketVentaDTO;
+import com.alexis.sprintboot.app.DTO.VentaRequestDTO;
+import com.alexis.sprintboot.app.Model.Producto;
+import com.alexis.sprintboot.app.Model.VentaPendiente;
+import com.alexis.sprintboot.app.Repository.ProductoRepository;
+import com.alexis.sprintboot.app.Repository.VentaPendienteRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ventas asíncronas contra H2: la venta aceptada queda guardada antes de responder
+ * y se registra una sola vez, también si quedó pendiente de una ejecución anterior.
+ */
+@SpringBootTest
+@ActiveProfiles("pruebas")
+class PipelineVentasTest {
+
+    private static final long ESPERA_MAXIMA_MS = 10_000;
+
+    @Autowired
+    private PipelineVentas pipelineVentas;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private VentaPendienteRepository ventaPendienteRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void laVentaAceptadaQuedaGuardadaYSeConfirma() throws Exception {
+        Long productoId = crearProducto(10);
+
+        TicketVentaDTO ticket = pipelineVentas.encolar(carrito(productoId, 3));
+
+        assertTrue(ventaPendienteRepository.findByTicket(ticket.getTicket()).isPresent());
+        TicketVentaDTO resuelto = esperarResolucion(ticket.getTicket());
+        assertEquals(TicketVentaDTO.Estado.CONFIRMADA, resuelto.getEstado());
+        assertNotNull(resuelto.getVenta());
+        assertEquals(7, stockDe(productoId));
+        assertNotNull(ventaPendienteRepository.findByTicket(ticket.getTicket()).orElseThrow().getResueltaEn());
+    }
+
+    @Test
+    void unaVentaPendienteDeOtraEjecucionSeRegistraUnaSolaVez() throws Exception {
+        Long productoId = crearProducto(10);
+
+        // Fila que quedó sin resolver (por ejemplo, la aplicación se cayó antes de registrarla)
+        String ticket = UUID.randomUUID().toString();
+        ventaPendienteRepository.save(new VentaPendiente(ticket,
+                objectMapper.writeValueAsString(carrito(productoId, 4)), LocalDateTime.now().minusMinutes(10)));
+        assertEquals(TicketVentaDTO.Estado.PENDIENTE, pipelineVentas.obtenerTicket(ticket).getEstado());
+
+        pipelineVentas.recuperarSinResolver();
+        assertEquals(TicketVentaDTO.Estado.CONFIRMADA, esperarResolucion(ticket).getEstado());
+        assertEquals(6, stockDe(productoId));
+
+        // Ya resuelta: una segunda recuperación no la vuelve a vender
+        pipelineVentas.recuperarSinResolver();
+        Thread.sleep(500);
+        assertEquals(6, stockDe(productoId));
+    }
+
+    @Test
+    void unProductoInexistenteSeRechazaYNoVuelveASerPendiente() throws Exception {
+        String ticket = UUID.randomUUID().toString();
+        ventaPendienteRepository.save(new VentaPendiente(ticket,
+                objectMapper.writeValueAsString(carrito(999_999_999L, 1)), LocalDateTime.now().minusMinutes(10)));
+
+        pipelineVentas.recuperarSinResolver();
+        TicketVentaDTO resuelto = esperarResolucion(ticket);
+        assertEquals(TicketVentaDTO.Estado.RECHAZADA, resuelto.getEstado());
+        assertNotNull(ventaPendienteRepository.findByTicket(ticket).orElseThrow().getResueltaEn());
+    }
+
+    private TicketVentaDTO esperarResolucion(String ticket) throws InterruptedException {
+        long limite = System.currentTimeMillis() + ESPERA_MAXIMA_MS;
+        while (System.currentTimeMillis() < limite) {
+            TicketVentaDTO estado = pipelineVentas.obtenerTicket(ticket);
+            if (estado != null && estado.getEstado() != TicketVentaDTO.Estado.PENDIENTE) {
+                return estado;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("El ticket " + ticket + " no se resolvió");
+    }
+
+    private Long crearProducto(int stock) {
+        Producto producto = new Producto("ASYNC-" + System.nanoTime(), "Producto async",
+                new BigDecimal("5.00"), stock);
+        return productoRepository.save(producto).getId();
+    }
+
+    private VentaRequestDTO carrito(Long productoId, int cantidad) {
+        VentaRequestDTO ventaRequest = new VentaRequestDTO();
+        ventaRequest.addItem(productoId, cantidad);
+        return ventaRequest;
+    }
+
+    private int stockDe(Long productoId) {
+        return productoRepository.findById(productoId).orElseThrow().getStockActual();
+    }
+}
@@ -0,0 +1,153 @@
+package com.alexis.sprintboot.app.Service;
+
+import com.alexis.sprintboot.app.DTO.ReservaStockDTO;
+import com.alexis.sprintboot.app.DTO.VentaRequestDTO;
+import com.alexis.sprintboot.app.Exception.StockInsuficienteException;
+import com.alexis.sprintboot.app.Model.Producto;
+import com.alexis.sprintboot.app.Repository.ProductoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reservas y ventas concurrentes contra H2: lo retenido por un carrito nunca se vende
+ * a otro, así que una reserva creada siempre se puede confirmar.
+ * Cada caso se repite varias veces porque depende del intercalado de los hilos.
+ */
+@SpringBootTest
+@ActiveProfiles("pruebas")
+class ReservasStockConcurrenciaTest {
+
+    private static final int RONDAS = 30;
+    private static final int STOCK_INICIAL = 10;
+
+    @Autowired
+    private VentaService ventaService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void ventasSinReservaNoVendenLoRetenido() throws Exception {
+        for (int ronda = 0; ronda < RONDAS; ronda++) {
+            Long productoId = crearProducto(ronda);
+            ReservaStockDTO reserva = ventaService.reservarStock(carrito(productoId, 8));
+
+            // Quedan 2 unidades libres y dos ventas de 2 llegan a la vez
+            List<Boolean> vendidas = enParalelo(List.of(
+                    () -> vender(productoId, 2),
+                    () -> vender(productoId, 2)));
+
+            assertEquals(1, vendidas.stream().filter(Boolean::booleanValue).count(), "Ronda " + ronda);
+            ventaService.confirmarReserva(reserva.getId());
+            assertEquals(0, stockDe(productoId), "Ronda " + ronda);
+        }
+    }
+
+    @Test
+    void reservaYVentasSimultaneasSiempreSePuedenConfirmar() throws Exception {
+        for (int ronda = 0; ronda < RONDAS; ronda++) {
+            Long productoId = crearProducto(RONDAS + ronda);
+
+            List<Callable<Object>> tareas = new ArrayList<>();
+            tareas.add(() -> {
+                try {
+                    return ventaService.reservarStock(carrito(productoId, 8));
+                } catch (StockInsuficienteException e) {
+                    return null;
+                }
+            });
+            tareas.add(() -> vender(productoId, 2));
+            tareas.add(() -> vender(productoId, 2));
+            List<Object> resultados = enParalelo(tareas);
+
+            int vendido = 0;
+            for (int i = 1; i < resultados.size(); i++) {
+                vendido += Boolean.TRUE.equals(resultados.get(i)) ? 2 : 0;
+            }
+            ReservaStockDTO reserva = (ReservaStockDTO) resultados.get(0);
+            if (reserva != null) {
+                ventaService.confirmarReserva(reserva.getId());
+                vendido += 8;
+            }
+
+            assertTrue(vendido <= STOCK_INICIAL, "Ronda " + ronda + ": vendido " + vendido);
+            assertEquals(STOCK_INICIAL - vendido, stockDe(productoId), "Ronda " + ronda);
+        }
+    }
+
+    private Long crearProducto(int ronda) {
+        Producto producto = new Producto("RESERVA-" + ronda + "-" + System.nanoTime(), "Producto reserva " + ronda,
+                new BigDecimal("9.99"), STOCK_INICIAL);
+        return productoRepository.save(producto).getId();
+    }
+
+    private boolean vender(Long productoId, int cantidad) {
+        try {
+            ventaService.procesarVenta(carrito(productoId, cantidad));
+            return true;
+        } catch (StockInsuficienteException e) {
+            return false;
+        }
+    }
+
+    private VentaRequestDTO carrito(Long productoId, int cantidad) {
+        VentaRequestDTO ventaRequest = new VentaRequestDTO();
+        ventaRequest.addItem(productoId, cantidad);
+        return ventaRequest;
+    }
+
+    private int stockDe(Long productoId) {
+        return productoRepository.findById(productoId).orElseThrow().getStockActual();
+    }
+
+    /**
+     * Ejecutar las tareas a la vez (arrancan juntas en una barrera) y devolver sus resultados en orden
+     */
+    private <T> List<T> enParalelo(List<Callable<T>> tareas)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        CyclicBarrier barrera = new CyclicBarrier(tareas.size());
+        List<Future<T>> futuros = new ArrayList<>();
+        for (Callable<T> tarea : tareas) {
+            futuros.add(executor.submit(() -> {
+                barrera.await();
+                return tarea.call();
+            }));
+        }
+        List<T> resultados = new ArrayList<>();
+        for (Future<T> futuro : futuros) {
+            resultados.add(futuro.get(30, TimeUnit.SECONDS));
+        }
+        return resultados;
+    }
+}
@@ -0,0 +1,181 @@
+package com.alexis.sprintboot.app.Service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RuedaTemporalTest {
+
+    private static final long TICK_MS = 10;
+    private static final int RANURAS = 16;
+
+    private RuedaTemporal<Integer> rueda;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (rueda != null) {
+            rueda.detener();
+        }
+    }
+
+    @Test
+    void venceDespuesDelPlazo() throws InterruptedException {
+        Map<Integer, Long> vencidos = new ConcurrentHashMap<>();
+        CountDownLatch latch = new CountDownLatch(3);
+        rueda = new RuedaTemporal<>("rueda-prueba", TICK_MS, RANURAS, elemento -> {
+            vencidos.put(elemento, System.nanoTime());
+            latch.countDown();
+        });
+        rueda.iniciar();
+
+        long inicio = System.nanoTime();
+        rueda.agendar(50, 50);
+        rueda.agendar(100, 100);
+        rueda.agendar(150, 150);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        for (Map.Entry<Integer, Long> entry : vencidos.entrySet()) {
+            long transcurridoMs = TimeUnit.NANOSECONDS.toMillis(entry.getValue() - inicio);
+            // La ranura redondea el vencimiento al tick: a lo sumo un tick antes
+            assertTrue(transcurridoMs >= entry.getKey() - TICK_MS,
+                    "Venció a los " + transcurridoMs + " ms con plazo " + entry.getKey());
+        }
+    }
+
+    @Test
+    void plazoMayorQueUnaVueltaEsperaLasVueltasQueFaltan() throws InterruptedException {
+        long vueltaMs = TICK_MS * RANURAS;
+        long plazoMs = vueltaMs * 2 + vueltaMs / 2;
+        CountDownLatch latch = new CountDownLatch(1);
+        long[] vencidoEn = new long[1];
+        rueda = new RuedaTemporal<>("rueda-prueba", TICK_MS, RANURAS, elemento -> {
+            vencidoEn[0] = System.nanoTime();
+            latch.countDown();
+        });
+        rueda.iniciar();
+
+        long inicio = System.nanoTime();
+        rueda.agendar(1, plazoMs);
+
+        assertFalse(latch.await(vueltaMs * 2, TimeUnit.MILLISECONDS));
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(vencidoEn[0] - inicio) >= plazoMs - TICK_MS);
+    }
+
+    @Test
+    void cadaElementoAgendadoDesdeVariosHilosVenceUnaSolaVez() throws InterruptedException {
+        int hilos = 4;
+        int porHilo = 500;
+        AtomicInteger[] vencimientos = new AtomicInteger[hilos * porHilo];
+        for (int i = 0; i < vencimientos.length; i++) {
+            vencimientos[i] = new AtomicInteger();
+        }
+        CountDownLatch latch = new CountDownLatch(vencimientos.length);
+        rueda = new RuedaTemporal<>("rueda-prueba", TICK_MS, RANURAS, elemento -> {
+            vencimientos[elemento].incrementAndGet();
+            latch.countDown();
+        });
+        rueda.iniciar();
+
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        for (int h = 0; h < hilos; h++) {
+            int desde = h * porHilo;
+            executor.execute(() -> {
+                for (int i = desde; i < desde + porHilo; i++) {
+                    rueda.agendar(i, ThreadLocalRandom.current().nextLong(0, TICK_MS * RANURAS * 2));
+                }
+            });
+        }
+        executor.shutdown();
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        // Margen para detectar vencimientos repetidos
+        Thread.sleep(TICK_MS * RANURAS);
+        for (int i = 0; i < vencimientos.length; i++) {
+            assertEquals(1, vencimientos[i].get(), "Elemento " + i);
+        }
+    }
+
+    @Test
+    void agendarMientrasAvanzaElTickNoEsperaUnaVuelta() throws InterruptedException {
+        // Vuelta larga: una entrada que cae en la ranura recién recorrida tardaría 640 ms
+        int ranuras = 64;
+        long vueltaMs = TICK_MS * ranuras;
+        int hilos = 16;
+        int porHilo = 20000;
+        AtomicLong demoraMaximaNanos = new AtomicLong();
+        CountDownLatch latch = new CountDownLatch(hilos * porHilo);
+        RuedaTemporal<Long> ruedaLarga = new RuedaTemporal<>("rueda-prueba", TICK_MS, ranuras, agendadoEn -> {
+            demoraMaximaNanos.accumulateAndGet(System.nanoTime() - agendadoEn, Math::max);
+            latch.countDown();
+        });
+        ruedaLarga.iniciar();
+
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        try {
+            for (int h = 0; h < hilos; h++) {
+                executor.execute(() -> {
+                    for (int i = 0; i < porHilo; i++) {
+                        // Plazo 0 repartido a lo largo de muchos ticks: alguno cae en un cambio de tick
+                        ruedaLarga.agendar(System.nanoTime(), 0);
+                        if (i % 100 == 0) {
+                            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                        }
+                    }
+                });
+            }
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+            ruedaLarga.detener();
+        }
+
+        long demoraMaximaMs = TimeUnit.NANOSECONDS.toMillis(demoraMaximaNanos.get());
+        assertTrue(demoraMaximaMs < vueltaMs / 2, "Demora máxima " + demoraMaximaMs + " ms");
+    }
+
+    @Test
+    void unErrorAlVencerNoDetieneLaRueda() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        rueda = new RuedaTemporal<>("rueda-prueba", TICK_MS, RANURAS, elemento -> {
+            if (elemento == 1) {
+                throw new IllegalStateException("falla de prueba");
+            }
+            latch.countDown();
+        });
+        rueda.iniciar();
+
+        rueda.agendar(1, 0);
+        rueda.agendar(2, TICK_MS * 5);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void detenidaNoVenceLoPendiente() throws InterruptedException {
+        AtomicInteger vencidos = new AtomicInteger();
+        rueda = new RuedaTemporal<>("rueda-prueba", TICK_MS, RANURAS, elemento -> vencidos.incrementAndGet());
+        rueda.iniciar();
+
+        rueda.agendar(1, TICK_MS * 10);
+        rueda.detener();
+        rueda = null;
+
+        Thread.sleep(TICK_MS * 20);
+        assertEquals(0, vencidos.get());
+    }
+}
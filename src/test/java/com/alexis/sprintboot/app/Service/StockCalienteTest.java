@@ -0,0 +1,190 @@
+package com.alexis.sprintboot.app.Service;
+
+import com.alexis.sprintboot.app.Event.StockCalienteVolcadoEvent;
+import com.alexis.sprintboot.app.Exception.StockInsuficienteException;
+import com.alexis.sprintboot.app.Model.MovimientoStockPendiente;
+import com.alexis.sprintboot.app.Model.Producto;
+import com.alexis.sprintboot.app.Repository.MovimientoStockPendienteRepository;
+import com.alexis.sprintboot.app.Repository.ProductoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stock caliente contra H2: el libro en memoria nunca baja de cero, el volcado lleva
+ * a la tabla lo vendido y al reiniciar se vuelca lo pendiente antes de cargar el libro.
+ * Cada prueba arma su propia instancia con sus productos (el perfil de pruebas no
+ * tiene volcado programado).
+ */
+@SpringBootTest
+@ActiveProfiles("pruebas")
+@RecordApplicationEvents
+class StockCalienteTest {
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private MovimientoStockPendienteRepository movimientoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ApplicationEvents eventos;
+
+    @Test
+    void reservasConcurrentesNuncaBajanDeCeroYElVolcadoLasLlevaALaTabla() throws Exception {
+        Producto producto = crearProducto(50);
+        StockCaliente stockCaliente = iniciarInstancia(producto.getId());
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> vendidasPorHilo = new ArrayList<>();
+        for (int h = 0; h < 8; h++) {
+            vendidasPorHilo.add(executor.submit(() -> {
+                int vendidas = 0;
+                for (int i = 0; i < 40; i++) {
+                    int cantidad = ThreadLocalRandom.current().nextInt(1, 4);
+                    try {
+                        transactionTemplate.executeWithoutResult(estado -> stockCaliente.reservar(
+                                new TreeMap<>(Map.of(producto.getId(), cantidad)), Map.of(producto.getId(), producto)));
+                        vendidas += cantidad;
+                    } catch (StockInsuficienteException e) {
+                        // Sin stock: la reserva no tomó nada
+                    }
+                }
+                return vendidas;
+            }));
+        }
+        int vendidas = 0;
+        for (Future<Integer> future : vendidasPorHilo) {
+            vendidas += future.get();
+        }
+        executor.shutdown();
+
+        assertTrue(vendidas <= 50, "Vendidas " + vendidas);
+        assertEquals(50 - vendidas, stockCaliente.obtenerDisponible(producto.getId()));
+        // La fila sigue igual hasta el volcado
+        assertEquals(50, stockDe(producto.getId()));
+        assertEquals(vendidas, pendientesDe(producto.getId()));
+
+        stockCaliente.volcarPendientes();
+
+        assertEquals(50 - vendidas, stockDe(producto.getId()));
+        assertEquals(0, pendientesDe(producto.getId()));
+        int volcadas = eventos.stream(StockCalienteVolcadoEvent.class)
+                .mapToInt(evento -> evento.getCantidad(producto.getId()))
+                .sum();
+        assertEquals(vendidas, volcadas);
+    }
+
+    @Test
+    void unaBajaDirectaQueElLibroNoCubreFallaYUnaDeshechaSeDevuelve() {
+        Producto producto = crearProducto(10);
+        Long id = producto.getId();
+        StockCaliente stockCaliente = iniciarInstancia(id);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        // Venta de 8 todavía sin volcar: la fila dice 10, el libro 2
+        transactionTemplate.executeWithoutResult(estado ->
+                stockCaliente.reservar(new TreeMap<>(Map.of(id, 8)), Map.of(id, producto)));
+
+        assertThrows(StockInsuficienteException.class, () -> transactionTemplate.executeWithoutResult(estado ->
+                stockCaliente.ajustar(Map.of(id, -5), Map.of(id, producto))));
+        assertEquals(2, stockCaliente.obtenerDisponible(id));
+
+        transactionTemplate.executeWithoutResult(estado -> {
+            stockCaliente.ajustar(Map.of(id, -2), Map.of(id, producto));
+            estado.setRollbackOnly();
+        });
+        assertEquals(2, stockCaliente.obtenerDisponible(id));
+
+        // Baja confirmada junto con la fila (como disminuirStock) y una reposición
+        transactionTemplate.executeWithoutResult(estado -> {
+            stockCaliente.ajustar(Map.of(id, -2), Map.of(id, producto));
+            productoRepository.aplicarDescuentoStock(id, 2);
+        });
+        transactionTemplate.executeWithoutResult(estado -> {
+            stockCaliente.ajustar(Map.of(id, 5), Map.of(id, producto));
+            productoRepository.sumarStock(id, 5);
+            // La suba se suma al libro recién al confirmar
+            assertEquals(0, stockCaliente.obtenerDisponible(id));
+        });
+
+        stockCaliente.volcarPendientes();
+        assertEquals(5, stockCaliente.obtenerDisponible(id));
+        assertEquals(5, stockDe(id));
+    }
+
+    @Test
+    void alReiniciarSeVuelcanLosMovimientosAntesDeCargarElLibro() {
+        Producto producto = crearProducto(20);
+        Long id = producto.getId();
+        StockCaliente anterior = iniciarInstancia(id);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        transactionTemplate.executeWithoutResult(estado ->
+                anterior.reservar(new TreeMap<>(Map.of(id, 3)), Map.of(id, producto)));
+        transactionTemplate.executeWithoutResult(estado ->
+                anterior.reservar(new TreeMap<>(Map.of(id, 4)), Map.of(id, producto)));
+        assertEquals(7, pendientesDe(id));
+
+        // La instancia anterior se cae sin volcar; la nueva arranca con los movimientos en la tabla
+        StockCaliente reiniciada = iniciarInstancia(id);
+
+        assertEquals(0, pendientesDe(id));
+        assertEquals(13, stockDe(id));
+        assertEquals(13, reiniciada.obtenerDisponible(id));
+    }
+
+    private StockCaliente iniciarInstancia(Long productoId) {
+        StockCaliente stockCaliente = new StockCaliente(productoRepository, movimientoRepository,
+                transactionManager, eventPublisher, new SimpleMeterRegistry(), String.valueOf(productoId), 4);
+        stockCaliente.iniciar();
+        return stockCaliente;
+    }
+
+    private Producto crearProducto(int stock) {
+        return productoRepository.save(new Producto("CALIENTE-" + System.nanoTime(), "Producto caliente",
+                new BigDecimal("2.00"), stock));
+    }
+
+    private int stockDe(Long productoId) {
+        return productoRepository.findById(productoId).orElseThrow().getStockActual();
+    }
+
+    private int pendientesDe(Long productoId) {
+        // La consulta de movimientos bloquea filas: requiere transacción
+        return new TransactionTemplate(transactionManager).execute(estado ->
+                movimientoRepository.findByOrderByIdAsc(Limit.of(10_000)).stream()
+                        .filter(movimiento -> movimiento.getProductoId().equals(productoId))
+                        .mapToInt(MovimientoStockPendiente::getCantidad)
+                        .sum());
+    }
+}
@@ -0,0 +1,182 @@
+package com.alexis.sprintboot.app.Service;
+
+import com.alexis.sprintboot.app.DTO.VentaRequestDTO;
+import com.alexis.sprintboot.app.Model.Categoria;
+import com.alexis.sprintboot.app.Model.Producto;
+import com.alexis.sprintboot.app.Repository.CategoriaRepository;
+import com.alexis.sprintboot.app.Repository.ProductoRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Benchmark de procesarVenta para carritos de 1, 10 y 100 líneas contra H2.
+ *
+ * Cuenta las sentencias SQL que Hibernate prepara en el hilo de la venta (un
+ * StatementInspector): un batch JDBC cuenta una vez, como un viaje a la base.
+ * Se mide el camino atómico (UPDATE condicionado por línea) y el optimista
+ * (un batch de UPDATE con @Version). Los productos se reparten entre varias
+ * categorías, como en un carrito real: cargarlas no debe sumar consultas.
+ *
+ * Ejecutar con: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.alexis.sprintboot.app.Service.VentaServiceBenchmark$ContadorSentencias")
+@ActiveProfiles("pruebas")
+class VentaServiceBenchmark {
+
+    private static final int CALENTAMIENTO = 50;
+    private static final int ITERACIONES = 500;
+    private static final int PRODUCTOS = 100;
+    private static final int CATEGORIAS = 10;
+
+    /**
+     * Cuenta las sentencias preparadas por el hilo que está midiendo; las de los
+     * hilos de fondo (volcados, estadísticas) no se cuentan
+     */
+    public static class ContadorSentencias implements StatementInspector {
+
+        private static final ThreadLocal<int[]> SENTENCIAS = new ThreadLocal<>();
+
+        static void iniciar() {
+            SENTENCIAS.set(new int[1]);
+        }
+
+        static int detener() {
+            int[] sentencias = SENTENCIAS.get();
+            SENTENCIAS.remove();
+            return sentencias[0];
+        }
+
+        @Override
+        public String inspect(String sql) {
+            int[] sentencias = SENTENCIAS.get();
+            if (sentencias != null) {
+                sentencias[0]++;
+            }
+            return sql;
+        }
+    }
+
+    @Autowired
+    private VentaService ventaService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    private final List<Long> productoIds = new ArrayList<>();
+    private VentaService destino;
+    private boolean actualizacionAtomicaOriginal;
+
+    @BeforeEach
+    void setUp() {
+        List<Categoria> categorias = new ArrayList<>();
+        for (int i = 0; i < CATEGORIAS; i++) {
+            categorias.add(new Categoria("Bench " + System.nanoTime() + "-" + i, null));
+        }
+        categorias = categoriaRepository.saveAll(categorias);
+
+        List<Producto> productos = new ArrayList<>();
+        for (int i = 0; i < PRODUCTOS; i++) {
+            productos.add(new Producto("BENCH-" + System.nanoTime() + "-" + i, "Producto " + i,
+                    new BigDecimal("9.99"), Integer.MAX_VALUE / 2, categorias.get(i % CATEGORIAS)));
+        }
+        for (Producto producto : productoRepository.saveAll(productos)) {
+            productoIds.add(producto.getId());
+        }
+
+        destino = AopTestUtils.getUltimateTargetObject(ventaService);
+        actualizacionAtomicaOriginal = (boolean) ReflectionTestUtils.getField(destino, "actualizacionAtomica");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.setField(destino, "actualizacionAtomica", actualizacionAtomicaOriginal);
+    }
+
+    @Test
+    void carritoDeUnaLinea() {
+        medir(1);
+    }
+
+    @Test
+    void carritoDeDiezLineas() {
+        medir(10);
+    }
+
+    @Test
+    void carritoDeCienLineas() {
+        medir(100);
+    }
+
+    private void medir(int lineas) {
+        // Lectura IN, un UPDATE condicionado por línea, lectura del stock resultante,
+        // INSERT de la venta y uno por detalle (IDENTITY no agrupa los INSERT)
+        medir(lineas, true, 2 * lineas + 3);
+        // Lectura IN, un batch de UPDATE, INSERT de la venta y uno por detalle
+        medir(lineas, false, lineas + 3);
+    }
+
+    private void medir(int lineas, boolean atomica, int sentenciasEsperadas) {
+        ReflectionTestUtils.setField(destino, "actualizacionAtomica", atomica);
+        VentaRequestDTO request = crearCarrito(lineas);
+
+        for (int i = 0; i < CALENTAMIENTO; i++) {
+            ventaService.procesarVenta(request);
+        }
+
+        long[] latencias = new long[ITERACIONES];
+        int sentencias = 0;
+        for (int i = 0; i < ITERACIONES; i++) {
+            ContadorSentencias.iniciar();
+            long inicio = System.nanoTime();
+            try {
+                ventaService.procesarVenta(request);
+            } finally {
+                latencias[i] = System.nanoTime() - inicio;
+                sentencias += ContadorSentencias.detener();
+            }
+        }
+        Arrays.sort(latencias);
+
+        int sentenciasPorVenta = sentencias / ITERACIONES;
+        long p50 = latencias[(int) (ITERACIONES * 0.50)];
+        long p99 = latencias[(int) (ITERACIONES * 0.99)];
+
+        System.out.printf(
+                "lineas=%d modo=%s sentenciasPorVenta=%d p50=%.3fms p99=%.3fms%n",
+                lineas, atomica ? "atomico" : "optimista", sentenciasPorVenta,
+                p50 / 1_000_000.0, p99 / 1_000_000.0
+        );
+
+        assertEquals(sentenciasEsperadas, sentenciasPorVenta);
+        assertEquals(0, sentencias % ITERACIONES, "Todas las ventas deben ejecutar las mismas sentencias");
+    }
+
+    private VentaRequestDTO crearCarrito(int lineas) {
+        VentaRequestDTO request = new VentaRequestDTO();
+        // Orden inverso para comprobar que el orden del carrito no afecta al de bloqueo
+        for (int i = lineas - 1; i >= 0; i--) {
+            request.addItem(productoIds.get(i), 1);
+        }
+        return request;
+    }
+}